@@ -0,0 +1,117 @@
+package siccom.sim;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link OverlapGeometry#lensAreas(double[], double[], double[], double[], int)} with a lens area loop
+ * on the Vector API -- the model does not use the Vector API, this benchmark shows what it would gain.
+ * <li>The Vector API is an incubator module -- this class is compiled and run with --add-modules jdk.incubator.vector.</li>
+ * <li>The vector acos is not the one of Math, its results differ in the last digits, see {@link #maxDifference()}.</li>
+ * <li>The pairs are the ones of the {@link OverlapGeometryBenchmark}.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class LensAreaVectorBenchmark
+{
+	static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Param({"8", "64", "1024"})
+	int pairs;
+
+	OverlapGeometryBenchmark p = new OverlapGeometryBenchmark();
+
+	@Setup
+	public void setUp()
+	{
+		p.pairs = pairs;
+		p.setUp();
+	}
+
+	@Benchmark
+	public double[] batch()
+	{
+		OverlapGeometry.lensAreas(p.r1, p.r2, p.dist, p.area, pairs);
+		return p.area;
+	}
+
+	@Benchmark
+	public double[] vector()
+	{
+		lensAreas(p.r1, p.r2, p.dist, p.area, pairs);
+		return p.area;
+	}
+
+	/**
+	 * The lens areas of a number of circle pairs, a vector of pairs at a time -- the rest pair by pair
+	 */
+	static void lensAreas(double[] r1, double[] r2, double[] dist, double[] area, int num)
+	{
+		int i = 0;
+		for (int upper = SPECIES.loopBound(num); i<upper; i+=SPECIES.length())
+		{
+			DoubleVector a = DoubleVector.fromArray(SPECIES, r1, i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, r2, i);
+			DoubleVector d = DoubleVector.fromArray(SPECIES, dist, i);
+			DoubleVector r = a.min(b);
+			DoubleVector R = a.max(b);
+			DoubleVector dd = d.mul(d), rr = r.mul(r), RR = R.mul(R);
+
+			DoubleVector part1 = rr.mul(dd.add(rr).sub(RR).div(d.mul(r).mul(2)).lanewise(VectorOperators.ACOS));
+			DoubleVector part2 = RR.mul(dd.add(RR).sub(rr).div(d.mul(R).mul(2)).lanewise(VectorOperators.ACOS));
+			DoubleVector part3 = R.add(r).sub(d).mul(d.add(r).sub(R)).mul(d.sub(r).add(R)).mul(d.add(r).add(R)).sqrt().mul(0.5);
+			part1.add(part2).sub(part3).intoArray(area, i);
+		}
+		for (; i<num; i++) area[i] = OverlapGeometry.lensArea(r1[i], r2[i], dist[i]);
+	}
+
+	/**
+	 * @return the largest relative difference between the vector loop and the model
+	 */
+	double maxDifference()
+	{
+		double[] model = new double[pairs];
+		OverlapGeometry.lensAreas(p.r1, p.r2, p.dist, model, pairs);
+		lensAreas(p.r1, p.r2, p.dist, p.area, pairs);
+
+		double max = 0;
+		for (int i=0; i<pairs; i++) max = Math.max(max, Math.abs(p.area[i] - model[i]) / model[i]);
+		return max;
+	}
+
+	/**
+	 * Prints the differences to the model
+	 */
+	public static void main(String[] args)
+	{
+		for (int pairs : new int[] {8, 64, 1024})
+		{
+			LensAreaVectorBenchmark b = new LensAreaVectorBenchmark();
+			b.pairs = pairs;
+			b.setUp();
+			System.out.println(pairs + " pairs: largest relative difference " + b.maxDifference());
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package siccom.sim;
+
+import java.awt.geom.Ellipse2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the {@link OverlapGeometry} kernel -- the time of one call for all pairs or points.
+ * <li><i>boxed</i> is the lens area as it was computed inline before, with Double temporaries.</li>
+ * <li><i>scalar</i> calls {@link OverlapGeometry#lensArea(double, double, double)} pair by pair,
+ * <i>batch</i> calls {@link OverlapGeometry#lensAreas(double[], double[], double[], double[], int)} once.</li>
+ * <li><i>ellipse</i> tests the branch ends with a new Ellipse2D per end as before,
+ * <i>circle</i> with {@link OverlapGeometry#circleContains(double, double, double, double, double)}.</li>
+ *
+ * The pairs are overlapping circles with radii of 1 to 50 pixels, drawn with a fixed seed.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OverlapGeometryBenchmark
+{
+	/**
+	 * The number of pairs -- the candidates of one colony are usually a few dozen
+	 */
+	@Param({"8", "64", "1024"})
+	int pairs;
+
+	double[] r1, r2, dist, area;
+	/**
+	 * The branch ends and the circle they are tested against
+	 */
+	double[] px, py;
+	double ulX = 100, ulY = 100, diameter = 80;
+
+	@Setup
+	public void setUp()
+	{
+		Random random = new Random(1);
+		r1 = new double[pairs];
+		r2 = new double[pairs];
+		dist = new double[pairs];
+		area = new double[pairs];
+		px = new double[pairs];
+		py = new double[pairs];
+		for (int i=0; i<pairs; i++)
+		{
+			r1[i] = 1 + random.nextDouble() * 49;
+			r2[i] = 1 + random.nextDouble() * 49;
+			// overlapping, but neither circle within the other
+			double min = Math.abs(r1[i] - r2[i]);
+			dist[i] = min + random.nextDouble() * (r1[i] + r2[i] - min);
+			px[i] = ulX - 20 + random.nextDouble() * (diameter + 40);
+			py[i] = ulY - 20 + random.nextDouble() * (diameter + 40);
+		}
+	}
+
+	@Benchmark
+	public double boxed()
+	{
+		double sum = 0;
+		for (int i=0; i<pairs; i++)
+		{
+			double r, R;
+			if (r2[i] > r1[i])
+			{
+				r = r1[i];
+				R = r2[i];
+			}
+			else
+			{
+				r = r2[i];
+				R = r1[i];
+			}
+			double d = dist[i];
+			Double part1 = r*r*Math.acos((d*d + r*r - R*R)/(2*d*r));
+			Double part2 = R*R*Math.acos((d*d + R*R - r*r)/(2*d*R));
+			Double part3 = 0.5*Math.sqrt((-d+r+R)*(d+r-R)*(d-r+R)*(d+r+R));
+			Double intersectionArea = part1 + part2 - part3;
+			sum += intersectionArea;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double[] scalar()
+	{
+		for (int i=0; i<pairs; i++) area[i] = OverlapGeometry.lensArea(r1[i], r2[i], dist[i]);
+		return area;
+	}
+
+	@Benchmark
+	public double[] batch()
+	{
+		OverlapGeometry.lensAreas(r1, r2, dist, area, pairs);
+		return area;
+	}
+
+	@Benchmark
+	public int ellipse()
+	{
+		int inside = 0;
+		for (int i=0; i<pairs; i++)
+			if (new Ellipse2D.Double(ulX, ulY, diameter, diameter).contains(px[i], py[i])) inside++;
+		return inside;
+	}
+
+	@Benchmark
+	public int circle()
+	{
+		int inside = 0;
+		for (int i=0; i<pairs; i++)
+			if (OverlapGeometry.circleContains(ulX, ulY, diameter, px[i], py[i])) inside++;
+		return inside;
+	}
+}
@@ -58,6 +58,7 @@ public class Welcome extends JFrame implements ActionListener
 	public int resolutionValue;
 	public int maGroupNum;
 	public int braGroupNum;
+	public int outInterval;
 
 	private String infoFileExtension = ".inf";
 	public GUIParameterFile currentParameterFile = null;
@@ -87,7 +88,7 @@ public class Welcome extends JFrame implements ActionListener
 			resolutionValue = readInt(pf, "resolution"); 
 			maGroupNum = readInt(pf, "maCoNum");
 			braGroupNum = readInt(pf, "braCoNum");
-			Siccom.indivOutInter = readInt(pf, "indivOutInter");
+			outInterval = readInt(pf, "indivOutInter");
 			
 
 		}
@@ -126,7 +127,6 @@ public class Welcome extends JFrame implements ActionListener
 
 		
 		
-		Siccom.gui = true;
 		readMainFile("mainParam");
 		
 		File directory = new File(Main.class.getProtectionDomain().getCodeSource()
@@ -261,29 +261,25 @@ public class Welcome extends JFrame implements ActionListener
 	public void actionPerformed(ActionEvent evt) 
 	{
 		// get parameters
-		Siccom.areaWidth = Integer.valueOf(widthField.getText().trim()).intValue();
-		Siccom.areaHeight = Integer.valueOf(heightField.getText().trim()).intValue();
-
-		Siccom.resolution = (Integer.valueOf(resolutionField.getText().trim()).intValue());
-		Siccom.meterConv = Siccom.resolution / 100.0;
-		Siccom.growthConv = 1 / (Siccom.resolution*10) /12;
+		Siccom sim = new Siccom(System.currentTimeMillis(), true);
+		sim.setArea(Integer.valueOf(widthField.getText().trim()).intValue(),
+					Integer.valueOf(heightField.getText().trim()).intValue(),
+					Integer.valueOf(resolutionField.getText().trim()).intValue());
+		sim.indivOutInter = outInterval;
 		
-		Siccom.gridWidth  = Siccom.areaWidth / Siccom.meterConv;
-		Siccom.gridHeight = Siccom.areaHeight / Siccom.meterConv;
-				
-		Siccom.totalArea = Siccom.gridWidth * Siccom.gridHeight;
 		SiccomUI.maCoGroupNum = Integer.valueOf(maCoNumField.getText().trim()).intValue();
 		SiccomUI.braCoGroupNum = Integer.valueOf(braCoNumField.getText().trim()).intValue();
-		Siccom.maCoGroupNum = Integer.valueOf(maCoNumField.getText().trim()).intValue();
-		Siccom.braCoGroupNum = Integer.valueOf(braCoNumField.getText().trim()).intValue();
+		sim.maCoGroupNum = Integer.valueOf(maCoNumField.getText().trim()).intValue();
+		sim.braCoGroupNum = Integer.valueOf(braCoNumField.getText().trim()).intValue();
+		sim.createOutput = false;
 
 		// setup the GUI
-		siccomGUI = new SiccomUI();
+		siccomGUI = new SiccomUI(sim);
 		siccomGUI.initParameters();
 		SiccomUI.cons = new Console(siccomGUI);
 		SiccomUI.cons.setSize(500, 600);
 		SiccomUI.cons.setVisible(true);
-		SiccomUI.cons.setLocation((int)Siccom.gridWidth+30, 0);
+		SiccomUI.cons.setLocation((int)sim.gridWidth+30, 0);
 		
 		// remove the welcome panel
 		this.dispose();
@@ -23,7 +23,8 @@ import sim.engine.Schedule;
 import sim.engine.SimState;
 import sim.engine.Steppable;
 import sim.portrayal.continuous.ContinuousPortrayal2D;
-import sim.portrayal.grid.SparseGridPortrayal2D;
+import sim.portrayal.grid.ValueGridPortrayal2D;
+import sim.util.gui.SimpleColorMap;
 import sim.util.media.chart.TimeSeriesAttributes;
 
 /**
@@ -45,7 +46,7 @@ public class SiccomUI extends GUIState
 	 * The display for the simulation
 	 */
 	public Display2D display;
-	static int displayWidth = (int)Siccom.gridWidth+10;
+	int displayWidth;
 	
 	/**
 	 * The frame for the display
@@ -115,7 +116,7 @@ public class SiccomUI extends GUIState
 	/**
 	 * Portrayal for turf algae; for portrayals see the MASON documentation
 	 */
-	SparseGridPortrayal2D  turfPortrayal = new SparseGridPortrayal2D();
+	ValueGridPortrayal2D  turfPortrayal = new ValueGridPortrayal2D("Turf Cover");
 	/**
 	 * JFrame for the Population Size Chart
 	 */
@@ -158,9 +159,8 @@ public class SiccomUI extends GUIState
 	 */
 	public SiccomUI()
 	{
-		super(new Siccom(System.currentTimeMillis()));
-		Siccom.gui = true;
-		Siccom.createOutput = false;
+		this(new Siccom(System.currentTimeMillis(), true));
+		sim.createOutput = false;
 	}
 	
 	/**
@@ -517,10 +517,11 @@ public class SiccomUI extends GUIState
 		 */
 		sim = (Siccom)state;
 		
-		massiveCoralsPortrayal.setField( sim.massiveCorals );
-		branchingCoralsPortrayal.setField(sim.branchingCorals);
-		algaePortrayal.setField( sim.algae );
-		turfPortrayal.setField( sim.turf );
+		massiveCoralsPortrayal.setField( sim.massiveCorals.view );
+		branchingCoralsPortrayal.setField(sim.branchingCorals.view);
+		algaePortrayal.setField( sim.algae.view );
+		turfPortrayal.setField( sim.turf.view );
+		turfPortrayal.setMap( new SimpleColorMap(0.0, 100.0, Color.black, new Color(0, 100, 0)) );
 		
 				
 		// reschedule the displayer
@@ -538,7 +539,8 @@ public class SiccomUI extends GUIState
 	{
 		super.init(c);
 
-		display = new Display2D(Siccom.gridWidth, Siccom.gridHeight, this, 1);
+		displayWidth = (int)sim.gridWidth+10;
+		display = new Display2D(sim.gridWidth, sim.gridHeight, this, 1);
 		displayFrame = display.createFrame();
 		c.registerFrame(displayFrame);
 		displayFrame.setVisible(true);
@@ -582,7 +584,7 @@ public class SiccomUI extends GUIState
 			popFrame = tsPop.create(
 					"Populations of Corals and Algae", "Time (years)", "Population Size");
 			// perhaps you might move the chart to where you like.
-			popFrame.setLocation((int)Siccom.gridWidth+30, consHeight + 5);
+			popFrame.setLocation((int)sim.gridWidth+30, consHeight + 5);
 			popFrame.setDefaultCloseOperation(1);	// hide on close
 			popFrame.pack();
 			c.registerFrame(popFrame);
@@ -592,7 +594,7 @@ public class SiccomUI extends GUIState
 			covFrame = tsCov.create(
 					"Relative Cover of Corals and Algae", "Time (years)", "Relative Cover (%)");
 			// perhaps you might move the chart to where you like.
-			covFrame.setLocation((int)Siccom.gridWidth+60, consHeight + 25);
+			covFrame.setLocation((int)sim.gridWidth+60, consHeight + 25);
 			covFrame.setDefaultCloseOperation(1);	// hide on close
 			covFrame.pack();
 			c.registerFrame(covFrame);
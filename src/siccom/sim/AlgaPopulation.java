@@ -0,0 +1,404 @@
+package siccom.sim;
+
+import java.util.Arrays;
+
+import sim.engine.SimState;
+import sim.engine.Steppable;
+import sim.field.continuous.Continuous2D;
+import sim.util.Bag;
+import sim.util.Double2D;
+import sim.util.IntBag;
+
+/**
+ * The macroalgae of the simulation, stored column by column.
+ * <li>Every alga occupies a slot of a {@link CellGrid}, which holds its position and finds its neighbours.
+ * Radius, height, size and age are kept in primitive arrays indexed by the same slot.</li>
+ * <li>Slots of dead algae are reused by new recruits and fragments.</li>
+ * <li>All algae are stepped at once, in random order, once a month.</li>
+ *
+ * {@link Alga} objects are only created for the portrayals when the GUI is running -- see {@link #view}.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class AlgaPopulation implements Steppable
+{
+	private static final long serialVersionUID = -1873364026613057382L;
+
+	Siccom sim;
+	/**
+	 * The positions of the algae
+	 */
+	CellGrid grid;
+	/**
+	 * The radius of each alga
+	 */
+	public double[] radius;
+	/**
+	 * The height of each alga
+	 */
+	public double[] height;
+	/**
+	 * The area each alga occupies
+	 */
+	public double[] size;
+	/**
+	 * The area covered by all living algae -- updated on birth, growth and death
+	 */
+	public double totalSize;
+	/**
+	 * The time each alga is in the simulation
+	 */
+	public int[] age;
+	/**
+	 * The number of each alga -- unique within the simulation, see {@link Siccom#nextSerial()}
+	 */
+	public long[] serial;
+	/**
+	 * Determines the life status of each slot
+	 */
+	public boolean[] alive;
+	/**
+	 * The slots of the living algae in the order they were added --
+	 * a dead alga is replaced by the last one, like in a {@link Bag}
+	 */
+	public int[] live;
+	/**
+	 * The position of each slot in {@link #live}
+	 */
+	int[] liveIndex;
+	int liveNum;
+	/**
+	 * The pass in which each alga was created -- fragments are stepped from the next month on
+	 */
+	int[] born;
+	/**
+	 * Counts the monthly passes
+	 */
+	int pass;
+
+	/**
+	 * The algae as objects for the portrayals -- null if the GUI is not running
+	 */
+	public Continuous2D view;
+	Alga[] views;
+
+	/**
+	 * The range outside the experimental field at which algal fragments can still settle
+	 * in order to minimize edge effects.
+	 */
+	private double algalExtensionBuffer = 100;
+
+	IntBag order = new IntBag(), aB = new IntBag();
+	Bag mB = new Bag(), bB = new Bag();
+
+	/**
+	 * Constructor
+	 * @param sim the simulation
+	 * @param discretization the side length of a grid cell
+	 * @param width the width of the area
+	 * @param height the height of the area
+	 * @param gui if true, the algae are mirrored into {@link #view}
+	 */
+	public AlgaPopulation(Siccom sim, double discretization, double width, double height, boolean gui)
+	{
+		this.sim = sim;
+		grid = new CellGrid(discretization, width, height);
+		int capacity = 64;
+		radius = new double[capacity];
+		this.height = new double[capacity];
+		size = new double[capacity];
+		age = new int[capacity];
+		serial = new long[capacity];
+		alive = new boolean[capacity];
+		born = new int[capacity];
+		live = new int[capacity];
+		liveIndex = new int[capacity];
+		if (gui)
+		{
+			view = new Continuous2D(discretization, width, height);
+			views = new Alga[capacity];
+		}
+	}
+
+	/**
+	 * Puts a new alga into the population
+	 * @param xPos x-position
+	 * @param yPos y-position
+	 * @param r initial radius
+	 * @param a initial age of the alga
+	 * @param aH alga height at instantiation -- only used if the radius exceeds the maximum radius
+	 * @return the slot of the alga
+	 */
+	public int add(double xPos, double yPos, double r, int a, double aH)
+	{
+		int slot = grid.add(null, xPos, yPos);
+		ensureCapacity(slot + 1);
+
+		age[slot] = a;
+		serial[slot] = sim.nextSerial();
+		alive[slot] = true;
+		born[slot] = pass;
+		liveIndex[slot] = liveNum;
+		live[liveNum++] = slot;
+		size[slot] = Math.pow(r, 2)*Math.PI;
+		totalSize += size[slot];
+		if (r <= sim.conf.aMaxRadius)
+		{
+			radius[slot] = r;
+			height[slot] = r;
+		}
+		else
+		{
+			radius[slot] = sim.conf.aMaxRadius;
+			height[slot] = aH;
+		}
+
+		if (view != null)
+		{
+			views[slot] = new Alga(this, slot);
+			view.setObjectLocation(views[slot], new Double2D(xPos, yPos));
+		}
+		return slot;
+	}
+
+	/**
+	 * Death of an alga -- frees its slot
+	 * @param slot the slot of the alga
+	 */
+	public void die(int slot)
+	{
+		if (!alive[slot]) return;
+		alive[slot] = false;
+		grid.remove(slot);
+		// no rounding residue for an empty population
+		if (liveNum == 1) totalSize = 0;
+		else totalSize -= size[slot];
+		int last = live[--liveNum];
+		live[liveIndex[slot]] = last;
+		liveIndex[last] = liveIndex[slot];
+
+		if (view != null)
+		{
+			view.remove(views[slot]);
+			views[slot] = null;
+		}
+	}
+
+	/**
+	 * Collects the slots of all algae within a distance of a point
+	 * @param x the x-position of the point
+	 * @param y the y-position of the point
+	 * @param dist the distance
+	 * @param exact if false, the algae of all grid cells overlapping the square around the point are passed
+	 * @param result is cleared and receives the slots
+	 * @return the result
+	 */
+	public IntBag getNeighbours(double x, double y, double dist, boolean exact, IntBag result)
+	{
+		grid.query(x, y, dist, exact, result);
+		return result;
+	}
+
+	/**
+	 * @return the number of algae -- the first entries of {@link #live}
+	 */
+	public int size()
+	{
+		return liveNum;
+	}
+
+	public double getX(int slot) { return grid.xs[slot]; }
+	public double getY(int slot) { return grid.ys[slot]; }
+	public double getDiameter(int slot) { return 2*radius[slot]; }
+
+	/**
+	 * Same as new Ellipse2D.Double(...).contains(px, py) for the shape of the alga
+	 * @return true if the point lies within the alga
+	 */
+	public boolean contains(int slot, double px, double py)
+	{
+		double r = radius[slot];
+		return OverlapGeometry.circleContains(grid.xs[slot] - r, grid.ys[slot] - r, 2*r, px, py);
+	}
+
+	/**
+	 * Steps all algae which were alive at the beginning of the month in random order
+	 */
+	public void step(SimState state)
+	{
+		pass++;
+
+		order.clear();
+		for (int i=0; i<liveNum; i++) order.add(live[i]);
+		order.shuffle(sim.random);
+
+		for (int i=0; i<order.numObjs; i++)
+		{
+			int slot = order.objs[i];
+			// the slot may have been freed and taken by a fragment in this pass
+			if (alive[slot] && born[slot] < pass) step(slot);
+		}
+		order.clear();
+	}
+
+	/**
+	 * Life loop of an alga
+	 */
+	void step(int slot)
+	{
+		double xPos = grid.xs[slot];
+		double yPos = grid.ys[slot];
+		if (xPos < -algalExtensionBuffer || xPos > sim.gridWidth+algalExtensionBuffer
+				|| yPos < -algalExtensionBuffer || yPos > sim.gridHeight+algalExtensionBuffer)
+		{
+			die(slot);
+			return;
+		}
+
+		RandomStream random = sim.streams.get(RandomStreams.ALGA, serial[slot]);
+		if (height[slot] > sim.conf.aFragmentationHeight) fragtate(slot, random);
+
+		// find neighbours
+		if (alive[slot]) interactAlgae(slot);
+		if (alive[slot]) interactMassiveCorals(slot, random);
+		if (alive[slot]) interactBranchingCorals(slot, random);
+
+		if (age[slot] > sim.conf.algaMaxAge) die(slot);
+		else if (alive[slot]) grow(slot);
+	}
+
+	/**
+	 * Interaction with other algae
+	 */
+	private void interactAlgae(int slot)
+	{
+		double x = grid.xs[slot];
+		double y = grid.ys[slot];
+		grid.query(x, y, radius[slot]+3, true, aB);
+		if (aB.numObjs > 1)
+		{
+			for (int i=0; i<aB.numObjs && alive[slot]; i++)
+			{
+				int other = aB.objs[i];
+				double dist = OverlapGeometry.distance(x, y, grid.xs[other], grid.ys[other]);
+				if (dist < (radius[slot]+radius[other]) && height[other] > height[slot]) die(slot);
+			}
+		}
+		aB.clear();
+	}
+
+	/**
+	 * Interaction with massive corals
+	 */
+	private void interactMassiveCorals(int slot, RandomStream random)
+	{
+		double x = grid.xs[slot];
+		double y = grid.ys[slot];
+		mB = sim.massiveCorals.getNeighbours(x, y, radius[slot], 0, mB);
+		for (int i=0; i<mB.numObjs && alive[slot]; i++)
+		{
+			MassiveCoral otherC = (MassiveCoral) mB.objs[i];
+			if ((otherC.size > size[slot]) && otherC.contains(x, y))
+			{
+				// the bleach grade defines the probability for algal survival if situated on a coral
+				// --> the more the coral recovers, the higher the probability for an alga to die
+				if (otherC.bleached)
+				{
+					if (random.nextBoolean(1-(otherC.bleachGrade/100))) die(slot);
+				}
+				else die(slot);
+			}
+		}
+		mB.clear();
+	}
+
+	/**
+	 * Interaction with branching corals
+	 */
+	private void interactBranchingCorals(int slot, RandomStream random)
+	{
+		double x = grid.xs[slot];
+		double y = grid.ys[slot];
+		bB = sim.branchingCorals.getNeighbours(x, y, radius[slot], 10, bB);
+		for (int i=0; i<bB.numObjs && alive[slot]; i++)
+		{
+			BranchingCoral otherC = (BranchingCoral) bB.objs[i];
+			double dist = OverlapGeometry.distance(x, y, otherC.sendXPos(), otherC.sendYPos());
+			if (otherC.radius > radius[slot] + dist)
+			{
+				if (otherC.bleached)
+				{
+					if (random.nextBoolean(1-(otherC.bleachGrade/100))) die(slot);
+				}
+				else die(slot);
+			}
+		}
+		bB.clear();
+	}
+
+	/**
+	 * Fragmenting of an alga
+	 */
+	void fragtate(int slot, RandomStream random)
+	{
+		double x = grid.xs[slot];
+		double y = grid.ys[slot];
+		double halfRange = sim.conf.aFragRange;
+
+		int fragNum = random.nextInt(sim.conf.aMaxFragNum);
+
+		if (fragNum !=0)
+		{
+			for (int i=0; i<=fragNum; i++)
+			{
+				double xPos = random.nextDouble() *  ((x+halfRange) - (x-halfRange) + 1)  + (x-halfRange);
+				double yPos = random.nextDouble() *  ((y+halfRange) - (y-halfRange) + 1)  + (y-halfRange);
+
+				// up to a threshold (radius = 2.0) --> height = radius
+				add(xPos, yPos, sim.conf.aFragmentSize, 0, sim.conf.algaRecRad);
+			}
+		}
+		height[slot] = height[slot] - (fragNum * sim.conf.aFragmentSize);
+	}
+
+	/**
+	 * Algal growth
+	 */
+	void grow(int slot)
+	{
+		double growthRate = sim.conf.aGrowthRate;
+		if (radius[slot] < sim.conf.aMaxRadius)
+		{
+			radius[slot] = radius[slot] + growthRate;
+			height[slot] = radius[slot];
+		}
+		else
+		{
+			radius[slot] = sim.conf.aMaxRadius;
+			height[slot] = height[slot] + growthRate;
+		}
+		age[slot] += 1;
+
+		double s = ((Math.pow(radius[slot],2))*Math.PI);
+		totalSize += s - size[slot];
+		size[slot] = s;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= radius.length) return;
+		int n = Math.max(capacity, radius.length * 2);
+
+		radius = Arrays.copyOf(radius, n);
+		height = Arrays.copyOf(height, n);
+		size = Arrays.copyOf(size, n);
+		age = Arrays.copyOf(age, n);
+		serial = Arrays.copyOf(serial, n);
+		alive = Arrays.copyOf(alive, n);
+		born = Arrays.copyOf(born, n);
+		live = Arrays.copyOf(live, n);
+		liveIndex = Arrays.copyOf(liveIndex, n);
+		if (views != null) views = Arrays.copyOf(views, n);
+	}
+}
@@ -0,0 +1,176 @@
+package siccom.sim;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Describes the branches of a branching coral colony or the axial rays of a massive one.
+ * Evoked by the {@link MassiveCoral} or {@link BranchingCoral}
+ * <li>The state of the branches is kept in primitive arrays -- branch i points at the angle (2*PI/num)*(i+1).</li>
+ * <li>The directions are shared by all colonies with the same number of branches.</li>
+ * <li>The branch ends are computed on demand.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+class Branches implements Serializable
+{
+	private static final long serialVersionUID = -4412937905262150278L;
+
+	/**
+	 * The directions of the branches -- indexed by the number of branches
+	 */
+	private static final HashMap<Integer, double[][]> directions = new HashMap<Integer, double[][]>();
+
+	/**
+	 * Coordinates for the center of the colony
+	 */
+	double startX, startY;
+	/**
+	 * How many branches are there
+	 */
+	int num;
+	/**
+	 * The length of each branch
+	 */
+	double[] length;
+	/**
+	 * The length the branch end refers to -- it is only updated when a branch grows,
+	 * cutting a branch back to the maximum length leaves the end where it is
+	 */
+	double[] tip;
+	/**
+	 * The actual growth rate of each branch
+	 */
+	double[] growthRate;
+	/**
+	 * Determines if a branch stops growing
+	 */
+	boolean[] stop;
+	/**
+	 * The initial growth rate of the coral colony
+	 */
+	private double initGrowthRate;
+	/**
+	 * The shared directions
+	 */
+	private transient double[] cos, sin;
+
+	/**
+	 * Constructor
+	 * @param startX the x-position of the colony center
+	 * @param startY the y-position of the colony center
+	 * @param length the initial length of all branches
+	 * @param num the number of branches
+	 * @param growthRate the initial growth rate
+	 */
+	public Branches(double startX, double startY, double length, int num, double growthRate)
+	{
+		this.startX = startX;
+		this.startY = startY;
+		this.num = num;
+		this.initGrowthRate = growthRate;
+
+		this.length = new double[num];
+		tip = new double[num];
+		this.growthRate = new double[num];
+		stop = new boolean[num];
+		for (int i=0; i<num; i++)
+		{
+			this.length[i] = length;
+			tip[i] = length;
+			this.growthRate[i] = growthRate;
+		}
+		fetchDirections();
+	}
+
+	/**
+	 * Growth of a branch
+	 * @param i the index of the branch
+	 */
+	public void grow(int i)
+	{
+		length[i] += growthRate[i];
+		tip[i] = length[i];
+		growthRate[i] = initGrowthRate;
+	}
+
+	/**
+	 * reduces the growth rate of a branch as soon as it touches another branch
+	 * @param i the index of the branch
+	 */
+	public void reduceGeneralGrowth(int i)
+	{
+		growthRate[i] = growthRate[i] * 0.7;
+	}
+
+	/**
+	 * reduces the growth rate for a smaller branch for each bigger branch it touches
+	 * @param i the index of the branch
+	 */
+	public void reduceMinorGrowth(int i)
+	{
+		growthRate[i] = growthRate[i] * 0.3;
+	}
+
+	/**
+	 * @return the x-position of the end of branch i
+	 */
+	public double getEndX(int i)
+	{
+		if (cos == null) fetchDirections();
+		return startX + (tip[i]*cos[i]);
+	}
+
+	/**
+	 * @return the y-position of the end of branch i
+	 */
+	public double getEndY(int i)
+	{
+		if (sin == null) fetchDirections();
+		return startY - (tip[i]*sin[i]);
+	}
+
+	/**
+	 * @return the length of the longest branch
+	 */
+	public double getMaxLength()
+	{
+		double max = 0;
+		for (int i=0; i<num; i++)
+			if (length[i] > max) max = length[i];
+		return max;
+	}
+
+	/**
+	 * Fetches the shared directions if the branch ends were not computed yet
+	 */
+	void fetchDirections()
+	{
+		if (cos != null && sin != null) return;
+		double[][] d = getDirections(num);
+		cos = d[0];
+		sin = d[1];
+	}
+
+	/**
+	 * Passes the cosine and the sine of the branch angles (2*PI/num)*(i+1)
+	 * @param num the number of branches
+	 * @return the cosines and the sines -- shared, must not be changed
+	 */
+	static synchronized double[][] getDirections(int num)
+	{
+		double[][] d = directions.get(num);
+		if (d == null)
+		{
+			d = new double[2][num];
+			for (int i=0; i<num; i++)
+			{
+				d[0][i] = Math.cos( (2*Math.PI/num)*(i+1) );
+				d[1][i] = Math.sin( (2*Math.PI/num)*(i+1) );
+			}
+			directions.put(num, d);
+		}
+		return d;
+	}
+}
@@ -3,7 +3,6 @@ package siccom.sim;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Ellipse2D;
-import java.util.ArrayList;
 
 import sim.engine.SimState;
 import sim.engine.Steppable;
@@ -11,6 +10,7 @@ import sim.portrayal.DrawInfo2D;
 import sim.portrayal.SimplePortrayal2D;
 import sim.util.Bag;
 import sim.util.Double2D;
+import sim.util.IntBag;
 import sim.util.gui.SimpleColorMap;
 
 
@@ -41,6 +41,14 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 * The simulation where the coral is in
 	 */
 	public Siccom sim;
+	/**
+	 * The number of the colony -- unique within the simulation, see {@link Siccom#nextSerial()}
+	 */
+	public long serial;
+	/**
+	 * The random stream of the colony in the current month -- see {@link #random()}
+	 */
+	RandomStream stream;
 	
 	public BranchingGroup bG;
 	
@@ -51,7 +59,28 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	/**
 	 * A bag to collect all neighbors
 	 */
-	public Bag neighbours;
+	public Bag neighbours = new Bag();
+	/**
+	 * The slots of the neighbouring algae, see {@link AlgaPopulation}
+	 */
+	IntBag algaNeighbours = new IntBag();
+	/**
+	 * The cached neighbour lists of the colony in the massive and the branching coral layer
+	 */
+	NeighbourList maCoList = new NeighbourList(), braCoList = new NeighbourList();
+	/**
+	 * True if the colony was alive at the beginning of its step
+	 */
+	boolean interacting;
+	/**
+	 * The position of the colony in the order of the {@link CoralInteraction} in the current month
+	 * -- colonies created after the order was drawn come after all others
+	 */
+	int interactionIndex = Integer.MAX_VALUE;
+	/**
+	 * True if the colony is the copy of a colony of a neighbouring tile -- see {@link ReefTiles}
+	 */
+	boolean ghost;
 	/**
 	 * The graphical information for {@link SimplePortrayal2D}
 	 */
@@ -73,9 +102,9 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	public double maxLength;
 	
 	/**
-	 * ArrayList for the single branches of the colony
+	 * The single branches of the colony
 	 */
-	public ArrayList<Branch> branches = new ArrayList<Branch>(numBranches);
+	public Branches branches;
 
 	// Colony
 	private Double2D me;
@@ -131,7 +160,7 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	/** 
 	 * The life status of the coral colony
 	 */
-	private boolean alive;										
+	boolean alive;										
 	/**
 	 * Measure to determine for how long is the colony in the simulation
 	 */
@@ -162,11 +191,11 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	/**
 	 * To calculate the area that is overgrown by multiple neighbors at a time
 	 */
-	private double interArea;
+	double interArea;
 	/**
 	 * The number of neighboring coral colonies
 	 */
-	private int numNeighbours = 0;
+	int numNeighbours = 0;
 	/**
 	 * The maximum branch Length of a 
 	 */
@@ -183,6 +212,19 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 * The probability that fragmenting occurs
 	 */
 	double fragProb;
+	/**
+	 * The turf cells covered by the bounding box of the colony -- see {@link TurfFootprintIndex}
+	 */
+	int[] turfFootprint;
+	/**
+	 * The size, the mature surface and the radius class last passed to the census -- see {@link #report()}
+	 */
+	private double reportedSize, reportedMature;
+	private int reportedRadiusClass = -1;
+	/**
+	 * The length of the longest branch -- the level of the colony in {@link Siccom#branchingCorals} depends on it
+	 */
+	double extent;
 	
 	// Different getters and setters for the console
 	public String getName() { return name; }
@@ -230,6 +272,7 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 							double fragRange) 
 	{
 		this.sim = sim;
+		serial = sim.nextSerial();
 		this.bG = bG;
 		this.name = name;
 		this.xPos = xPos;						//xPos;
@@ -250,16 +293,59 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 		initColor = color;
 		this.numBranches = numBranches;
 		
-		for (int i=1; i <= numBranches ; i++)
-		{
-			Branch b = new Branch(xPos, yPos, radius, numBranches, i, growthRate);
-			branches.add(b);
-		}
+		branches = new Branches(xPos, yPos, radius, numBranches, growthRate);
 
 		this.fragSize = fragSize;
 		this.fragRange = fragRange;
 		fragProb = sim.fragProb*bG.surfaceFactor;
 		
+		updateFootprint();
+		sim.braCoCensus.add(bG.id);
+		report();
+	}
+
+	/**
+	 * Constructor for a ghost -- the copy of a colony of a neighbouring tile, which the colonies of this tile see,
+	 * but which is neither stepped nor counted, see {@link ReefTiles}
+	 * @param sim the simulation of the tile
+	 * @param original the colony
+	 * @param xPos x-position in the tile
+	 * @param yPos y-position in the tile
+	 */
+	BranchingCoral(Siccom sim, BranchingCoral original, double xPos, double yPos)
+	{
+		this.sim = sim;
+		bG = sim.braCoGroups.get(original.bG.id);
+		name = original.name;
+		initColor = original.initColor;
+		CI = original.CI;
+		this.xPos = xPos;
+		this.yPos = yPos;
+		me = new Double2D(xPos, yPos);
+		maxBranchLength = original.maxBranchLength;
+		maximumBranchLength = original.maximumBranchLength;
+		numBranches = original.numBranches;
+		alive = true;
+		ghost = true;
+		copyGhost(original);
+	}
+
+	/**
+	 * Takes the state of the original of a ghost
+	 * @param original the colony
+	 */
+	void copyGhost(BranchingCoral original)
+	{
+		radius = original.radius;
+		diameter = original.diameter;
+		size = original.size;
+		age = original.age;
+		bleached = original.bleached;
+		bleachGrade = original.bleachGrade;
+		extent = original.extent;
+
+		turfFootprint = sim.braCoFootprint.place(this, turfFootprint, xPos, yPos, radius);
+		sim.branchingCorals.setObjectExtent(this, extent);
 	}
 
 
@@ -269,117 +355,129 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public void step(SimState state)
 	{
+		if (sim.pairwiseInteraction)
+		{
+			// prepare() and the interaction with other corals were done by the CoralInteraction
+			if (alive) finish();
+			return;
+		}
+
+		prepare();
+		if (interacting)
+		{
+			if(alive) interactMassiveCorals();
+			if(alive) interactBranchingCorals();
+			finish();
+		}
+	}
 
-		if (xPos < -extensionBuffer || xPos > Siccom.gridWidth+extensionBuffer 
-				|| yPos < -extensionBuffer || yPos > Siccom.gridHeight+extensionBuffer)
+	/**
+	 * First part of the step routine -- bleaching, reset of the growth rate, fragmentation and the current radius
+	 */
+	void prepare()
+	{
+		if (xPos < -extensionBuffer || xPos > sim.gridWidth+extensionBuffer 
+				|| yPos < -extensionBuffer || yPos > sim.gridHeight+extensionBuffer)
 	  			die();
 		
-			if (alive)
-			{
-				checkBleaching();
-				if (bleached){
-					 growthRate = initGrowthRate * (1 - (bleachGrade / 100)); 
-					 recover();
-				}
-				else
-				// reset the growth rate at every step 
-					growthRate = initGrowthRate;
+		interacting = alive;
+		if (alive)
+		{
+			checkBleaching();
+			if (bleached){
+				 growthRate = initGrowthRate * (1 - (bleachGrade / 100)); 
+				 recover();
+			}
+			else
+			// reset the growth rate at every step 
+				growthRate = initGrowthRate;
 
-				if (radius>=maxBranchLength && sim.random.nextBoolean(fragProb)) fragtate();
-				
-				getAvRadius();
-				if(alive) interactMassiveCorals();
-				if(alive) interactBranchingCorals();
-				if (radius<=sim.conf.aMaxRadius || bleached) interactAlgae();
-				if (age <= sim.conf.interactTurfAge ) interactTurf();
-				
-				double percentOvergrowth = 100/size*interArea;
-				if (percentOvergrowth>=sim.dieOvergrowthBra) die(); 
-				interArea=0;
+			if (radius>=maxBranchLength && random().nextBoolean(fragProb)) fragtate();
+			
+			getAvRadius();
+		}
+	}
+
+	/**
+	 * Last part of the step routine -- interaction with algae and turf, overgrowth, growth and breakage
+	 */
+	void finish()
+	{
+		if (radius<=sim.conf.aMaxRadius || bleached) interactAlgae();
+		if (age <= sim.conf.interactTurfAge ) interactTurf();
 		
-				if (alive && radius<=maxBranchLength)
-				{
-					grow();
-				}
+		double percentOvergrowth = 100/size*interArea;
+		if (percentOvergrowth>=sim.dieOvergrowthBra) die(); 
+		interArea=0;
 
-				if (numNeighbours < 1)			
-				{
-					if (sim.random.nextBoolean(sim.breakageProb	* bG.surfaceFactor ))
-					{
-						if (sim.random.nextBoolean(fragProb)) fragtate();
-						die();
-					}
-				}
-				
-				reschedule(1.0);
-				age += 1;
-				numNeighbours = 0;
-			}			
+		if (alive && radius<=maxBranchLength)
+		{
+			grow();
+		}
+
+		if (numNeighbours < 1)			
+		{
+			if (random().nextBoolean(sim.breakageProb	* bG.surfaceFactor ))
+			{
+				if (random().nextBoolean(fragProb)) fragtate();
+				die();
+			}
+		}
+		
+		reschedule(1.0);
+		age += 1;
+		numNeighbours = 0;
 	}
 	
 	private void interactAlgae() {
-		neighbours = sim.algae.getObjectsWithinDistance(me, maximumBranchLength+sim.conf.aMaxRadius+1);
+		AlgaPopulation algae = sim.algae;
+		algaNeighbours = algae.getNeighbours(me.x, me.y, maximumBranchLength+sim.conf.aMaxRadius+1, false, algaNeighbours);
 
-		if (neighbours.numObjs > 0)
+		if (algaNeighbours.numObjs > 0)
 		{
 			//algae can grow over corals if these are bleached. 
 			//--> calculate the area algae cover of the coral colony
 			algCoverage=0;
-			for (int j=0; j<neighbours.numObjs; j++)
+			for (int j=0; j<algaNeighbours.numObjs; j++)
 			{
-				algCoverage = algCoverage + ((Alga) neighbours.objs[j]).getSize();
+				algCoverage = algCoverage + algae.size[algaNeighbours.objs[j]];
 			}
 				
-			for (int i=0; i< neighbours.numObjs; i++)	
+			for (int i=0; i< algaNeighbours.numObjs; i++)	
 			{	
 				if(alive)
 				{
-					Alga otherA =  (Alga) neighbours.objs[i];
-					double dist = me.distance(otherA.sendXPos(), otherA.sendYPos());
+					int otherA = algaNeighbours.objs[i];
+					double dist = me.distance(algae.getX(otherA), algae.getY(otherA));
 			    
-					if ( dist <= this.getRadius() + otherA.getRadius())
+					if ( dist <= this.getRadius() + algae.radius[otherA])
 					{
-						Double r=0.0;
-						Double R=0.0;
-						if (otherA.getRadius()> this.getRadius()+ dist) die();
-						else if (otherA.getRadius() > this.getRadius()){
-							r = this.getRadius();
-							R = otherA.getRadius();
-						}
-						else {	
-							r = otherA.getRadius();
-							R = this.getRadius();
-						}
-						
-						Double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
-						Double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
-						Double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
-
-						Double intersectionArea = part1 + part2 - part3;	
+						if (OverlapGeometry.engulfs(algae.radius[otherA], this.getRadius(), dist)) die();
+						double intersectionArea = OverlapGeometry.lensArea(this.getRadius(), algae.radius[otherA], dist);
 						
 						if (intersectionArea>0)
 							interArea += intersectionArea;	
 						
-						for (Branch b : branches)
+						for (int j=0; j < branches.num; j++)
 						{
-							if (otherA.sendShape().contains(b.getEndX(), b.getEndY()))
+							if (algae.contains(otherA, branches.getEndX(j), branches.getEndY(j)))
 							{
-								b.reduceGeneralGrowth();
-								if(otherA.getSize()>this.getSize())	 b.reduceMinorGrowth();
+								branches.reduceGeneralGrowth(j);
+								if(algae.size[otherA]>this.getSize())	 branches.reduceMinorGrowth(j);
 							}
 						}
 					}
 				}
 			}
 		}
-		neighbours.clear();
+		algaNeighbours.clear();
 	}
 	
 	/**
 	 * Interaction with neighboring branching corals
 	 */
 	public void interactBranchingCorals() {
-		neighbours = sim.branchingCorals.getObjectsWithinDistance(me, maximumBranchLength+sim.braCoMaxLength+10);
+		neighbours = sim.branchingCorals.getNeighbours(braCoList, me.x, me.y, maximumBranchLength, 10, neighbours);
 		if (neighbours.numObjs > 1)
 		{
 			for (int i=0; i< neighbours.numObjs; i++)	
@@ -394,33 +492,18 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 						if (dist<=this.getRadius()+otherC.getRadius() && otherC.size >= size*0.5) numNeighbours+=1;
 						if (dist<this.getRadius()+otherC.getRadius() && otherC.bleached == false)
 						{
-							Double r=0.0;
-							Double R=0.0;
-							if (otherC.getRadius()> this.getRadius()+dist) die();
-							else if (otherC.getRadius() > this.getRadius()){
-								r = this.getRadius();
-								R = otherC.getRadius();
-							}
-							else {	
-								r = otherC.getRadius();
-								R = this.getRadius();
-							}
-							
-							Double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
-							Double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
-							Double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
-	
-							Double intersectionArea = part1 + part2 - part3;	
+							if (OverlapGeometry.engulfs(otherC.getRadius(), this.getRadius(), dist)) die();
+							double intersectionArea = OverlapGeometry.lensArea(this.getRadius(), otherC.getRadius(), dist);
 							if (intersectionArea>0)
 								interArea += intersectionArea;						
 							
-							for (Branch b : branches)
+							for (int j=0; j < branches.num; j++)
 							{
-								if ( otherC.sendShape().contains(b.end) )
+								if ( otherC.contains(branches.getEndX(j), branches.getEndY(j)) )
 								{
-									b.reduceGeneralGrowth();
+									branches.reduceGeneralGrowth(j);
 
-									if (otherC.getRadius()<getRadius())b.reduceMinorGrowth();
+									if (otherC.getRadius()<getRadius())branches.reduceMinorGrowth(j);
 	
 								}
 							}
@@ -438,8 +521,8 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public void interactMassiveCorals()
 	{
-		neighbours = sim.massiveCorals.getObjectsWithinDistance(me, (maximumBranchLength+sim.maCoMaxLength+1));
-		if (neighbours.numObjs > 1)
+		neighbours = sim.massiveCorals.getNeighbours(maCoList, me.x, me.y, maximumBranchLength, 1, neighbours);
+		if (neighbours.numObjs > 0)
 		{			
 			for (int i=0; i< neighbours.numObjs; i++)	
 			{
@@ -452,30 +535,15 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 					
 					if (dist<this.getRadius()+otherC.getRadius() && otherC.bleached == false)
 					{
-						Double r=0.0;
-						Double R=0.0;
-						if (otherC.getRadius()> this.getRadius()+dist) die();
-						 if (otherC.getRadius() > this.getRadius()){
-							r = this.getRadius();
-							R = otherC.getRadius();
-						}
-						else {	
-							r = otherC.getRadius();
-							R = this.getRadius();
-						}
-						
-						Double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
-						Double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
-						Double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
-
-						Double intersectionArea = part1 + part2 - part3;	
+						if (OverlapGeometry.engulfs(otherC.getRadius(), this.getRadius(), dist)) die();
+						double intersectionArea = OverlapGeometry.lensArea(this.getRadius(), otherC.getRadius(), dist);
 						if (otherC.getRadius()>this.getRadius() && intersectionArea>0)
 							interArea += intersectionArea;
 
 						
-						for (Branch b : branches)
+						for (int j=0; j < branches.num; j++)
 						{
-							if(otherC.sendShape().contains(b.end)) b.stop = true;
+							if(otherC.contains(branches.getEndX(j), branches.getEndY(j))) branches.stop[j] = true;
 
 						}
 					}
@@ -491,16 +559,12 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 */
 	private void interactTurf()
 	{
-		Bag t = sim.turf.getAllObjects();
-			
-		for (int i=0; i<t.size(); i++)
+		int cell = sim.turf.cellAt(me.x, me.y);
+		if (cell >= 0)
 		{
-			TurfCell tC = (TurfCell) t.objs[i];
-			if (tC.sendShape().contains(me.x, me.y))
-			{
-				if (tC.getCover() > 100) tC.cover = 100;
-				if (sim.random.nextBoolean(tC.getCover()/100/2)) die(); //probability to max 50%
-			}
+			double[] cover = sim.turf.cover;
+			if (cover[cell] > 100) cover[cell] = 100;
+			if (random().nextBoolean(cover[cell]/100/2)) die(); //probability to max 50%
 		}
 	}
 	
@@ -513,7 +577,7 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 			step(sim);
 			return;
 		}
-		sim.schedule.scheduleOnceIn(dTime, this);
+		sim.coralSchedule.scheduleOnceIn(dTime, this);
 	}
 	
 	/**
@@ -523,27 +587,30 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	{
 		double averageLength = 0;
 		maxLength = 0;
-		for (Branch b : branches)
+		for (int i=0; i < branches.num; i++)
 		{
 			/** 
 			 * The following part is to minimize edge effects of the simulation. 
 			 * If branching corals do not have any neighbors on one side they would grow to infinity and thereby 
 			 * skew the value for the average radius
 			 */
-			
-			if (b.getEndX() < Siccom.gridWidth  || b.getEndX() > Siccom.gridWidth ||
-				b.getEndY() < Siccom.gridHeight || b.getEndY() > Siccom.gridHeight ) maxLength = radius;
+			double endX = branches.getEndX(i);
+			double endY = branches.getEndY(i);
+			if (endX < sim.gridWidth  || endX > sim.gridWidth ||
+				endY < sim.gridHeight || endY > sim.gridHeight ) maxLength = radius;
 
 			// if they are on the simulation area.
-			if (b.getBranchLength() >= maxLength) maxLength = b.getBranchLength();
-			averageLength += b.getBranchLength();
+			if (branches.length[i] >= maxLength) maxLength = branches.length[i];
+			averageLength += branches.length[i];
 		}
 		radius = averageLength / numBranches;
 		diameter = 2*radius;
 		size = Math.PI * Math.pow(radius, 2);
+		report();
 		
 		maximumBranchLength = maxLength;
 		
+		updateFootprint();
 		
 		return radius;
 	}
@@ -554,19 +621,35 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public void grow()
 	{
-		for (Branch b : branches)
+		for (int i=0; i < branches.num; i++)
 		{
-			if (b.branchLength < maxBranchLength && b.stop == false)
-							b.growBranch();
-			if (b.branchLength > maxBranchLength) b.branchLength=maxBranchLength;  // ATTENTION
+			if (branches.length[i] < maxBranchLength && branches.stop[i] == false)
+							branches.grow(i);
+			if (branches.length[i] > maxBranchLength) branches.length[i]=maxBranchLength;  // ATTENTION
 			
-			b.stop = false;
-			b.growthRate = growthRate;
+			branches.stop[i] = false;
+			branches.growthRate[i] = growthRate;
 		}
 		
 		diameter = 2*radius;
 		size = Math.PI * Math.pow(radius, 2);
-				
+		report();
+		
+		updateFootprint();
+	}
+	
+	/**
+	 * Passes the bounding box of the colony to the turf footprint index
+	 * and the extent of the colony to the branching coral layer
+	 */
+	private void updateFootprint()
+	{
+		if (!alive) return;
+
+		extent = branches.getMaxLength();
+
+		turfFootprint = sim.braCoFootprint.place(this, turfFootprint, xPos, yPos, radius);
+		sim.branchingCorals.setObjectExtent(this, extent);
 	}
 	
 	/**
@@ -593,10 +676,10 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 
 	private void drawCoral(DrawInfo2D inf, int x, int y) 
 	{
-		for (Branch b : branches)
+		for (int i=0; i < branches.num; i++)
 		{
 			
-			drawArm(x,y, (int)b.getBranchLength(), (int)b.multiplier, inf);
+			drawArm(x,y, (int)branches.length[i], i+1, inf);
 		}
 	}
 
@@ -646,26 +729,89 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public double calculateHemisphereRecruitment()
 	{
-		return 2*Math.PI*Math.pow((radius*Siccom.resolution), 2);
+		return 2*Math.PI*Math.pow((radius*sim.resolution), 2);
 	}
 	
 
+	/**
+	 * @return the random stream of the colony in the current month, see {@link RandomStreams}
+	 */
+	RandomStream random()
+	{
+		return stream = sim.streams.get(RandomStreams.CORAL, serial, stream);
+	}
+
 	/**
 	 *  sets the life-status to false
 	 *  -- removes object from hash table 
 	 */
 	public void die() 
 	{
+		// a ghost is removed with its original
+		if (!alive || ghost) return;
 		alive = false;
+		report();
+		sim.braCoCensus.remove(bG.id);
 		sim.branchingCorals.remove(this);
+		sim.braCoFootprint.remove(this, turfFootprint);
   	}
 
+	/**
+	 * Passes the changes of size, mature surface and radius since the last report to the census
+	 * -- a dead colony takes its values back, see {@link Census}
+	 */
+	private void report()
+	{
+		double s = 0;
+		double mature = 0;
+		int radiusClass = -1;
+		if (alive)
+		{
+			s = size;
+			if (diameter >= bG.diamAtMaturity) mature = calculateHemisphereRecruitment();
+			if (!bleached) radiusClass = (int) radius;
+		}
+		sim.braCoCensus.change(bG.id, s - reportedSize, mature - reportedMature);
+		sim.braCoCensus.moveRadius(reportedRadiusClass, radiusClass);
+
+		reportedSize = s;
+		reportedMature = mature;
+		reportedRadiusClass = radiusClass;
+	}
+
 	public Ellipse2D.Double sendShape()
 	{
 		  	double ulX = xPos - radius;
 		  	double ulY = yPos - radius;
 			return new Ellipse2D.Double( ulX, ulY, diameter, diameter );
 	}
+
+	/**
+	 * Same as sendShape().contains(px, py) without creating the ellipse
+	 * @return true if the point lies within the colony
+	 */
+	public boolean contains(double px, double py)
+	{
+		return OverlapGeometry.circleContains(xPos - radius, yPos - radius, diameter, px, py);
+	}
+
+	/**
+	 * Same as sendShape().intersects(x, y, w, h) without creating the ellipse
+	 * @return true if the colony and the rectangle overlap
+	 */
+	public boolean intersects(double x, double y, double w, double h)
+	{
+		return OverlapGeometry.circleIntersects(xPos - radius, yPos - radius, diameter, x, y, w, h);
+	}
+
+	/**
+	 * Same as sendShape().contains(x, y, w, h) without creating the ellipse
+	 * @return true if the rectangle lies within the colony
+	 */
+	public boolean contains(double x, double y, double w, double h)
+	{
+		return OverlapGeometry.circleContains(xPos - radius, yPos - radius, diameter, x, y, w, h);
+	}
 	
 
 	
@@ -674,11 +820,11 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	  */
 	 public void checkBleaching()
 	 {
-		 double bleachProb = sim.bleachProbs.get(name);
+		 double bleachProb = sim.braCoBleachProbs[bG.id];
 
 		 if (bleachProb > 0)
 		 {
-			 if (sim.random.nextBoolean(bleachProb)) bleach();
+			 if (random().nextBoolean(bleachProb)) bleach();
 		 }
 	 }
 
@@ -687,7 +833,7 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 	  */
 	 public void bleach()
 	 {
-		 if (sim.random.nextBoolean( sim.bleachDeathProbs.get(name) )) die();
+		 if (random().nextBoolean( sim.braCoBleachDeathProbs[bG.id] )) die();
 
 		 
 		 bleachGrade = 100;
@@ -696,6 +842,7 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 		 growthRate = growthRate / bleachGrade;
 		 // set boolean bleached to true;
 		 bleached = true; 
+		 report();
 	 }
 	 
 	 /**
@@ -707,6 +854,7 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 //		 growthRate = growthRate / bleachGrade;
 		 if (bleachGrade<=0){
 			 bleached = false;
+			 report();
 			 bleachGrade = 0;
 		 }
 	 }
@@ -727,8 +875,8 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 		{
 			for (int i=0; i<=fragNum; i++)
 			{
-				double xPos = sim.random.nextDouble() *  ((x+halfRange) - (x-halfRange) + 1)  + (x-halfRange);
-				double yPos = sim.random.nextDouble() *  ((y+halfRange) - (y-halfRange) + 1)  + (y-halfRange);	
+				double xPos = random().nextDouble() *  ((x+halfRange) - (x-halfRange) + 1)  + (x-halfRange);
+				double yPos = random().nextDouble() *  ((y+halfRange) - (y-halfRange) + 1)  + (y-halfRange);	
 		  					
 				BranchingCoral mC = new BranchingCoral(	sim,										// the simulation, the agent acts in
 							bG,
@@ -745,8 +893,8 @@ public class BranchingCoral extends SimplePortrayal2D implements Steppable
 						fragSize,
 						fragRange);																			
 
-				sim.branchingCorals.setObjectLocation(mC, new Double2D(xPos, yPos));
-				sim.schedule.scheduleOnce(mC);
+				sim.branchingCorals.setObjectLocation(mC, new Double2D(xPos, yPos), mC.extent);
+				sim.coralSchedule.scheduleOnceIn(1.0, mC);
 				
 			}
 		}
@@ -3,7 +3,6 @@ package siccom.sim;
 import java.awt.Color;
 
 import sim.engine.Schedule;
-import sim.util.Bag;
 import sim.util.Double2D;
 
 /**
@@ -19,6 +18,8 @@ import sim.util.Double2D;
  */
 public class BranchingGroup extends CoralGroup
 {
+	private static final long serialVersionUID = 3190432270518936611L;
+
 	/**
 	 * number of branches a coral colony produces
 	 */
@@ -139,8 +140,8 @@ public class BranchingGroup extends CoralGroup
 		
 		while (sumSize < coveredArea)
 		{
-			double xPos = sim.random.nextDouble()* Siccom.gridWidth;
-			double yPos = sim.random.nextDouble()* Siccom.gridHeight;
+			double xPos = sim.random.nextDouble()* sim.gridWidth;
+			double yPos = sim.random.nextDouble()* sim.gridHeight;
 			
 			age = 10;
 			
@@ -160,9 +161,9 @@ public class BranchingGroup extends CoralGroup
 													fragRange);								
 			
 			sim.branchingCorals.setObjectLocation(mC, 
-					new Double2D(xPos, yPos));							// random location
+					new Double2D(xPos, yPos), mC.extent);							// random location
 			
-			sim.schedule.scheduleOnce(Schedule.EPOCH, mC);					// schedule once in the beginning 
+			sim.coralSchedule.scheduleOnce(Schedule.EPOCH, mC);					// schedule once in the beginning 
 																		// -- then Coral reschedules itself if alive			
 			sumSize = sumSize + mC.getSize();
 		}
@@ -179,10 +180,11 @@ public class BranchingGroup extends CoralGroup
  		totalRecs = selfMadeRecs + importedRecs;
  		
  		
+ 		RandomStream random = sim.streams.get(RandomStreams.BRANCHING_RECRUITMENT, id);
  		for (int i = 0 ; i<totalRecs; i++)
 		{
-			double xPos = sim.random.nextDouble()*Siccom.gridWidth;
-  			double yPos = sim.random.nextDouble()*Siccom.gridHeight;
+			double xPos = random.nextDouble()*sim.gridWidth;
+  			double yPos = random.nextDouble()*sim.gridHeight;
   				
   			BranchingCoral mC = new BranchingCoral(	sim,										// the simulation, the agent acts in
   													this,
@@ -199,8 +201,8 @@ public class BranchingGroup extends CoralGroup
 													fragSize,
 													fragRange);																							
   			
-  			sim.branchingCorals.setObjectLocation(mC, new Double2D(xPos, yPos));
-  			sim.schedule.scheduleOnce(mC);
+  			sim.branchingCorals.setObjectLocation(mC, new Double2D(xPos, yPos), mC.extent);
+  			sim.coralSchedule.scheduleOnceIn(1.0, mC);
   		}
  	}
  	
@@ -212,21 +214,10 @@ public class BranchingGroup extends CoralGroup
  	{
 		// the number of recruits that come directly from the focal reef
  		double inRecNum = 0;
- 		double surfaceArea = 0;
-
- 		// collect all massive corals into a bag to make them iterable
-		Bag bB = sim.branchingCorals.getAllObjects();
-		for(int i = 0; i<bB.size(); i++)
-		{
-			BranchingCoral bC = (BranchingCoral)bB.objs[i];
-			
-			// check, if coral is of the desired species, mature and can produce propagules 
-			if(bC.getName().equals(name) && bC.diameter >= diamAtMaturity && 
-					(bC.xPos > 0 || bC.xPos < Siccom.gridWidth || bC.yPos > 0 || bC.yPos < Siccom.gridHeight))
-			{
-					surfaceArea += bC.calculateHemisphereRecruitment();
-			}
-		}
+ 		
+ 		// the hemisphere surface of the mature colonies of this group, see Census
+ 		double surfaceArea = sim.braCoCensus.matureSurface[id];
+ 		
 		// calculate the total propagule output
 		inRecNum = (surfaceArea * surfaceFactor * propagulesPerSqCm);		
 		
@@ -240,7 +231,10 @@ public class BranchingGroup extends CoralGroup
  	 */
  	private int importedRecruits()
  	{
- 		return (int)((selfMadeRecs  * sim.coralRecImportFactor) + fixRecImport);
+ 		// the recruits from the other reefs -- the fraction of a recruit waits for the next event
+ 		int network = (int) networkRecImport;
+ 		networkRecImport -= network;
+ 		return (int)((selfMadeRecs  * sim.coralRecImportFactor) + fixRecImport) + network;
  	}
  	
  	
@@ -250,18 +244,8 @@ public class BranchingGroup extends CoralGroup
  	 */
 	public double calculateSurfaceArea()
  	{
- 		double surfaceArea = 0;
- 		
- 		Bag bB = sim.branchingCorals.getAllObjects();
-		for(int i = 0; i<bB.size(); i++)
-		{
-			BranchingCoral bC = (BranchingCoral)bB.objs[i];
-			
-				// calculate area of a hemisphere (massive coral head)
-//				if (sim.random.nextBoolean(0.5)) 
-			surfaceArea += bC.calculateHemisphere();
-		}
-		return surfaceArea * surfaceFactor;
+ 		// the hemispheres of all colonies of the layer, see Census
+ 		return sim.braCoCensus.getTotalSurface() * surfaceFactor;
  	}
  	
  	
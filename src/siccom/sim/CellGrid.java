@@ -0,0 +1,319 @@
+package siccom.sim;
+
+import java.io.Serializable;
+
+import sim.util.IntBag;
+
+/**
+ * A uniform grid of square cells holding point agents in primitive arrays.
+ * <li>Every agent occupies a slot; the slot indexes its position in {@link #xs} and {@link #ys}
+ * and the agent itself in {@link #agents}.</li>
+ * <li>Every cell keeps the slots of its agents in a flat int array,
+ * so neighbour queries neither hash nor box any values.</li>
+ * <li>Removing an agent swaps the last slot of its cell into its place and puts the slot
+ * on a free list -- both in constant time.</li>
+ *
+ * Positions outside the grid are stored in the nearest border cell, thus queries never miss them.
+ *
+ * Every agent entering a cell increases the {@link #version} of the grid and is noted in a journal,
+ * so cached neighbour lists can pick up the new arrivals instead of searching the grid again.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class CellGrid implements Serializable
+{
+	private static final long serialVersionUID = -3190417756230419812L;
+
+	/**
+	 * The side length of a cell
+	 */
+	double cellSize;
+	/**
+	 * The number of cells along the width and the height
+	 */
+	int cols, rows;
+
+	/**
+	 * The positions of the agents -- indexed by slot
+	 */
+	public double[] xs, ys;
+	/**
+	 * The agents -- indexed by slot, null for free slots
+	 */
+	public Object[] agents;
+	/**
+	 * The cell of each slot and the position of the slot within the cell's list
+	 */
+	int[] cellOf, posInCell;
+	/**
+	 * The number of slots ever handed out
+	 */
+	int slotNum;
+	/**
+	 * Slots released by removed agents
+	 */
+	int[] free;
+	int freeNum;
+	/**
+	 * The number of agents in the grid
+	 */
+	int size;
+
+	/**
+	 * The slots of the agents in each cell -- indexed by col * rows + row
+	 */
+	int[][] cellSlots;
+	int[] cellCount;
+
+	/**
+	 * The largest number of arrivals kept in the journal
+	 */
+	static final int JOURNAL_SIZE = 1 << 14;
+	/**
+	 * Counts the agents that entered a cell
+	 */
+	int version;
+	/**
+	 * The agents in the order they entered a cell -- the agent of version v is journal[v - journalBase - 1]
+	 */
+	Object[] journal = new Object[64];
+	int journalNum, journalBase;
+
+	/**
+	 * Constructor
+	 * @param cellSize the side length of a cell
+	 * @param width the width of the area
+	 * @param height the height of the area
+	 */
+	public CellGrid(double cellSize, double width, double height)
+	{
+		this.cellSize = cellSize;
+		cols = Math.max(1, (int)Math.ceil(width / cellSize));
+		rows = Math.max(1, (int)Math.ceil(height / cellSize));
+
+		int capacity = 64;
+		xs = new double[capacity];
+		ys = new double[capacity];
+		agents = new Object[capacity];
+		cellOf = new int[capacity];
+		posInCell = new int[capacity];
+		free = new int[16];
+
+		cellSlots = new int[cols*rows][];
+		cellCount = new int[cols*rows];
+		for (int i=0; i<cellSlots.length; i++) cellSlots[i] = new int[4];
+	}
+
+	/**
+	 * Puts an agent into the grid
+	 * @param agent the agent
+	 * @param x the x-position
+	 * @param y the y-position
+	 * @return the slot of the agent
+	 */
+	public int add(Object agent, double x, double y)
+	{
+		int slot;
+		if (freeNum > 0) slot = free[--freeNum];
+		else
+		{
+			if (slotNum == xs.length) ensureCapacity(slotNum * 2);
+			slot = slotNum++;
+		}
+
+		agents[slot] = agent;
+		xs[slot] = x;
+		ys[slot] = y;
+		enter(slot, cellIndex(x, y));
+		size++;
+		return slot;
+	}
+
+	/**
+	 * Moves an agent
+	 * @param slot the slot of the agent
+	 * @param x the new x-position
+	 * @param y the new y-position
+	 */
+	public void move(int slot, double x, double y)
+	{
+		xs[slot] = x;
+		ys[slot] = y;
+		int c = cellIndex(x, y);
+		if (c != cellOf[slot])
+		{
+			leave(slot);
+			enter(slot, c);
+		}
+	}
+
+	/**
+	 * Removes an agent from the grid
+	 * @param slot the slot of the agent
+	 */
+	public void remove(int slot)
+	{
+		leave(slot);
+		agents[slot] = null;
+		if (freeNum == free.length)
+		{
+			int[] f = new int[free.length * 2];
+			System.arraycopy(free, 0, f, 0, freeNum);
+			free = f;
+		}
+		free[freeNum++] = slot;
+		size--;
+	}
+
+	/**
+	 * Collects the slots of all agents within a distance of a point
+	 * @param x the x-position of the point
+	 * @param y the y-position of the point
+	 * @param dist the distance
+	 * @param exact if true, only agents within dist are passed;
+	 * 		  otherwise all agents of the cells overlapping the square around the point
+	 * @param result is cleared and receives the slots
+	 */
+	public void query(double x, double y, double dist, boolean exact, IntBag result)
+	{
+		result.clear();
+
+		int c0 = col(x - dist), c1 = col(x + dist);
+		int r0 = row(y - dist), r1 = row(y + dist);
+		double distSq = dist*dist;
+
+		for (int i=c0; i<=c1; i++)
+		{
+			for (int j=r0; j<=r1; j++)
+			{
+				int c = i*rows + j;
+				int[] s = cellSlots[c];
+				int n = cellCount[c];
+				for (int k=0; k<n; k++)
+				{
+					int slot = s[k];
+					if (exact)
+					{
+						double dx = xs[slot] - x;
+						double dy = ys[slot] - y;
+						if (dx*dx + dy*dy > distSq) continue;
+					}
+					result.add(slot);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of agents in the grid
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	private void enter(int slot, int c)
+	{
+		if (cellCount[c] == cellSlots[c].length)
+		{
+			int[] s = new int[cellSlots[c].length * 2];
+			System.arraycopy(cellSlots[c], 0, s, 0, cellCount[c]);
+			cellSlots[c] = s;
+		}
+		cellOf[slot] = c;
+		posInCell[slot] = cellCount[c];
+		cellSlots[c][cellCount[c]++] = slot;
+		note(agents[slot]);
+	}
+
+	/**
+	 * Passes an agent which entered a cell
+	 * @param v the version of the grid after the agent entered -- at least {@link #journalBase} + 1
+	 * @return the agent, which may have left again
+	 */
+	public Object arrival(int v)
+	{
+		return journal[v - journalBase - 1];
+	}
+
+	/**
+	 * @param v a version of the grid
+	 * @return true if all arrivals after version v are still in the journal
+	 */
+	public boolean journalSince(int v)
+	{
+		return v >= journalBase;
+	}
+
+	private void note(Object agent)
+	{
+		if (journalNum == journal.length)
+		{
+			if (journal.length < JOURNAL_SIZE)
+			{
+				Object[] j = new Object[journal.length * 2];
+				System.arraycopy(journal, 0, j, 0, journalNum);
+				journal = j;
+			}
+			else
+			{
+				// forget the older half
+				int half = journalNum / 2;
+				System.arraycopy(journal, half, journal, 0, journalNum - half);
+				for (int i=journalNum-half; i<journalNum; i++) journal[i] = null;
+				journalNum -= half;
+				journalBase += half;
+			}
+		}
+		journal[journalNum++] = agent;
+		version++;
+	}
+
+	private void leave(int slot)
+	{
+		int c = cellOf[slot];
+		int last = cellSlots[c][--cellCount[c]];
+		cellSlots[c][posInCell[slot]] = last;
+		posInCell[last] = posInCell[slot];
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= xs.length) return;
+		capacity = Math.max(capacity, xs.length * 2);
+
+		double[] nx = new double[capacity];
+		double[] ny = new double[capacity];
+		Object[] na = new Object[capacity];
+		int[] nc = new int[capacity];
+		int[] np = new int[capacity];
+		System.arraycopy(xs, 0, nx, 0, slotNum);
+		System.arraycopy(ys, 0, ny, 0, slotNum);
+		System.arraycopy(agents, 0, na, 0, slotNum);
+		System.arraycopy(cellOf, 0, nc, 0, slotNum);
+		System.arraycopy(posInCell, 0, np, 0, slotNum);
+		xs = nx; ys = ny; agents = na; cellOf = nc; posInCell = np;
+	}
+
+	int cellIndex(double x, double y)
+	{
+		return col(x)*rows + row(y);
+	}
+
+	int col(double x)
+	{
+		int c = (int)Math.floor(x / cellSize);
+		if (c < 0) return 0;
+		if (c >= cols) return cols-1;
+		return c;
+	}
+
+	int row(double y)
+	{
+		int r = (int)Math.floor(y / cellSize);
+		if (r < 0) return 0;
+		if (r >= rows) return rows-1;
+		return r;
+	}
+}
@@ -0,0 +1,464 @@
+package siccom.sim;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import sim.field.continuous.Continuous2D;
+import sim.util.Bag;
+import sim.util.Double2D;
+import sim.util.IntBag;
+
+/**
+ * The layer for massive corals, branching corals, or macroalgae.
+ * It offers the query methods of a MASON Continuous2D but keeps its agents in {@link CellGrid}s.
+ * <li>The methods taking a result Bag clear and refill it, so agents can reuse one Bag for all their queries.</li>
+ * <li>The order of the passed agents differs from Continuous2D -- they are listed cell by cell.</li>
+ * <li>When the GUI is running, every change is mirrored into {@link #view}, which is the field handed to the portrayals.</li>
+ *
+ * A stratified field sorts its agents into levels by their extent, i.e. the largest distance of their shape from
+ * their position. Level k holds the agents with an extent up to discretization * 2^k.
+ * {@link #getNeighbours(double, double, double, double, Bag)} searches every level only as far as an agent
+ * of that level can reach, so a few large colonies do not widen the search of all the small ones.
+ *
+ * Sessile agents can keep their candidates in a {@link NeighbourList}, which is only rebuilt when the agent
+ * outgrows the {@link #skin}; agents entering the searched area later are appended to the list.
+ *
+ * An entry is serialized without its agent, which the field sets again when it is read -- otherwise every candidate
+ * of a neighbour list would write its agent and that agent's neighbour lists in turn, and the serialization
+ * would go as deep as there are agents.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class CellListField implements Serializable
+{
+	private static final long serialVersionUID = 8072913554011364390L;
+
+	/**
+	 * Where an agent is stored
+	 */
+	static class Entry implements Serializable
+	{
+		private static final long serialVersionUID = -1398254417720957035L;
+
+		/**
+		 * The agent -- not serialized, see {@link CellListField#readObject(ObjectInputStream)}.
+		 * An entry which was removed before it was serialized has no agent anymore, it is only skipped.
+		 */
+		transient Object obj;
+		int level, slot;
+		/**
+		 * The index of the agent in allObjects
+		 */
+		int index;
+		double extent;
+		boolean removed;
+	}
+
+	/**
+	 * The levels of the field -- a field which is not stratified has a single level
+	 */
+	public CellGrid[] levels;
+	/**
+	 * The largest extent of the agents in each level
+	 */
+	double[] levelBound;
+	/**
+	 * The entry of every agent
+	 */
+	IdentityHashMap<Object, Entry> entries = new IdentityHashMap<Object, Entry>();
+	/**
+	 * All agents
+	 */
+	Bag allObjects = new Bag();
+	/**
+	 * A Continuous2D copy of this field for the portrayals -- null without GUI
+	 */
+	public Continuous2D view;
+	/**
+	 * Buffer for the slots found by the Bag based queries
+	 */
+	IntBag found = new IntBag();
+	/**
+	 * The margin a {@link NeighbourList} is built with beyond the reach of its agent
+	 */
+	public double skin;
+	/**
+	 * Counts the calls of {@link #clear()}, which outdate all neighbour lists
+	 */
+	int generation;
+
+	double width, height, discretization;
+	boolean stratified;
+
+	/**
+	 * Constructor
+	 * @param discretization the side length of a cell
+	 * @param width the width of the simulation area
+	 * @param height the height of the simulation area
+	 * @param stratified if true, the agents are sorted into levels by their extent
+	 * @param gui if true, a Continuous2D view is kept for the portrayals
+	 */
+	public CellListField(double discretization, double width, double height, boolean stratified, boolean gui)
+	{
+		this.discretization = discretization;
+		this.width = width;
+		this.height = height;
+		this.stratified = stratified;
+		skin = discretization;
+		initLevels();
+		if (gui) view = new Continuous2D(discretization, width, height);
+	}
+
+	/**
+	 * Puts an agent into the field or moves it
+	 * @param obj the agent
+	 * @param location the new position
+	 * @return always true
+	 */
+	public boolean setObjectLocation(Object obj, Double2D location)
+	{
+		Entry e = entries.get(obj);
+		if (e == null) insert(obj, location.x, location.y, 0);
+		else levels[e.level].move(e.slot, location.x, location.y);
+
+		if (view != null) view.setObjectLocation(obj, location);
+		return true;
+	}
+
+	/**
+	 * Puts an agent into the field or moves it and sets its extent
+	 * @param obj the agent
+	 * @param location the new position
+	 * @param extent the largest distance of the agent's shape from its position
+	 * @return always true
+	 */
+	public boolean setObjectLocation(Object obj, Double2D location, double extent)
+	{
+		Entry e = entries.get(obj);
+		if (e == null) insert(obj, location.x, location.y, extent);
+		else
+		{
+			levels[e.level].move(e.slot, location.x, location.y);
+			setObjectExtent(obj, extent);
+		}
+
+		if (view != null) view.setObjectLocation(obj, location);
+		return true;
+	}
+
+	/**
+	 * Sets the extent of an agent, which moves it to the matching level of a stratified field.
+	 * Agents which are not in the field are ignored.
+	 * @param obj the agent
+	 * @param extent the largest distance of the agent's shape from its position
+	 */
+	public void setObjectExtent(Object obj, double extent)
+	{
+		Entry e = entries.get(obj);
+		if (e == null) return;
+
+		e.extent = extent;
+		int level = levelOf(extent);
+		if (level != e.level)
+		{
+			CellGrid from = levels[e.level];
+			double x = from.xs[e.slot];
+			double y = from.ys[e.slot];
+			from.remove(e.slot);
+			e.level = level;
+			e.slot = levels[level].add(e, x, y);
+		}
+	}
+
+	/**
+	 * Removes an agent from the field
+	 * @param obj the agent
+	 * @return the agent, or null if it was not in the field
+	 */
+	public Object remove(Object obj)
+	{
+		Entry e = entries.remove(obj);
+		if (e == null) return null;
+		e.removed = true;
+
+		allObjects.remove(e.index);
+		if (e.index < allObjects.numObjs) entries.get(allObjects.objs[e.index]).index = e.index;
+		levels[e.level].remove(e.slot);
+
+		if (view != null) view.remove(obj);
+		return obj;
+	}
+
+	/**
+	 * @return all agents in the field -- this is not a copy
+	 */
+	public Bag getAllObjects()
+	{
+		return allObjects;
+	}
+
+	/**
+	 * Passes the largest extent of the agents in the field -- only the highest level which holds agents is scanned
+	 * @return the largest extent, 0 if the field is empty
+	 */
+	public double getMaxExtent()
+	{
+		for (int l=levels.length-1; l>=0; l--)
+		{
+			CellGrid grid = levels[l];
+			if (grid.size() == 0) continue;
+
+			double max = 0;
+			for (int slot=0; slot<grid.slotNum; slot++)
+				if (grid.agents[slot] != null) max = Math.max(max, ((Entry) grid.agents[slot]).extent);
+			return max;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the number of agents in the field
+	 */
+	public int size()
+	{
+		return allObjects.numObjs;
+	}
+
+	/**
+	 * @param obj the agent
+	 * @return the position of the agent, or null if it is not in the field
+	 */
+	public Double2D getObjectLocation(Object obj)
+	{
+		Entry e = entries.get(obj);
+		if (e == null) return null;
+		return new Double2D(levels[e.level].xs[e.slot], levels[e.level].ys[e.slot]);
+	}
+
+	/**
+	 * Passes all agents within a distance of a position
+	 * @param position the position
+	 * @param distance the distance
+	 * @return a new Bag with the agents
+	 */
+	public Bag getObjectsExactlyWithinDistance(Double2D position, double distance)
+	{
+		return getObjectsExactlyWithinDistance(position.x, position.y, distance, new Bag());
+	}
+
+	/**
+	 * Passes all agents within a distance of a position
+	 * @param x the x-position
+	 * @param y the y-position
+	 * @param distance the distance
+	 * @param result is cleared and receives the agents
+	 * @return result
+	 */
+	public Bag getObjectsExactlyWithinDistance(double x, double y, double distance, Bag result)
+	{
+		result.clear();
+		for (int l=0; l<levels.length; l++) collect(levels[l], x, y, distance, true, result);
+		return result;
+	}
+
+	/**
+	 * Passes all agents whose shape may touch a circle.
+	 * Each level is searched within reach + its largest extent + pad.
+	 * @param x the x-position of the circle
+	 * @param y the y-position of the circle
+	 * @param reach the radius of the circle
+	 * @param pad an additional distance
+	 * @param result is cleared and receives the agents
+	 * @return result
+	 */
+	public Bag getNeighbours(double x, double y, double reach, double pad, Bag result)
+	{
+		result.clear();
+		for (int l=0; l<levels.length; l++) collect(levels[l], x, y, reach + levelBound[l] + pad, true, result);
+		return result;
+	}
+
+	/**
+	 * Passes all agents whose shape may touch a circle from a neighbour list,
+	 * which is updated or rebuilt first.
+	 * The result holds the same agents as {@link #getNeighbours(double, double, double, double, Bag)}.
+	 * @param list the neighbour list of the agent asking
+	 * @param x the x-position of the circle
+	 * @param y the y-position of the circle
+	 * @param reach the radius of the circle
+	 * @param pad an additional distance
+	 * @param result is cleared and receives the agents
+	 * @return result
+	 */
+	public Bag getNeighbours(NeighbourList list, double x, double y, double reach, double pad, Bag result)
+	{
+		return getNeighbours(list, x, y, reach, pad, result, found);
+	}
+
+	/**
+	 * Same as {@link #getNeighbours(NeighbourList, double, double, double, double, Bag)} with an own buffer for the slots.
+	 * As long as the field is not changed, several threads may call it at once for different neighbour lists.
+	 * @param found the buffer for the slots found in the grid
+	 */
+	public Bag getNeighbours(NeighbourList list, double x, double y, double reach, double pad, Bag result, IntBag found)
+	{
+		if (!update(list, reach)) build(list, x, y, reach, pad, found);
+
+		result.clear();
+		int live = 0;
+		for (int i=0; i<list.num; i++)
+		{
+			Entry e = list.entries[i];
+			if (e.removed)
+			{
+				list.drop(e);
+				continue;
+			}
+			list.entries[live++] = e;
+
+			// the list is built with the skin -- pass only the agents within the current reach
+			CellGrid grid = levels[e.level];
+			double distance = reach + levelBound[e.level] + pad;
+			double dx = grid.xs[e.slot] - x;
+			double dy = grid.ys[e.slot] - y;
+			if (dx*dx + dy*dy <= distance*distance) result.add(e.obj);
+		}
+		for (int i=live; i<list.num; i++) list.entries[i] = null;
+		list.num = live;
+		return result;
+	}
+
+	/**
+	 * Removes all agents
+	 */
+	public void clear()
+	{
+		generation++;
+		entries.clear();
+		allObjects.clear();
+		initLevels();
+		if (view != null) view.clear();
+	}
+
+	public double getWidth()
+	{
+		return width;
+	}
+
+	public double getHeight()
+	{
+		return height;
+	}
+
+	private void initLevels()
+	{
+		int levelNum = 1;
+		if (stratified)
+			while (discretization * (1 << (levelNum-1)) < width + height) levelNum++;
+
+		levels = new CellGrid[levelNum];
+		levelBound = new double[levelNum];
+		for (int l=0; l<levelNum; l++)
+		{
+			levelBound[l] = discretization * (1 << l);
+			levels[l] = new CellGrid(Math.max(discretization, levelBound[l]), width, height);
+		}
+		if (!stratified) levelBound[0] = width + height;
+	}
+
+	private int levelOf(double extent)
+	{
+		int level = 0;
+		while (level < levels.length-1 && extent > levelBound[level]) level++;
+		return level;
+	}
+
+	/**
+	 * Appends the agents which arrived within reach of a neighbour list since it was built
+	 * @return false if the list has to be rebuilt
+	 */
+	private boolean update(NeighbourList list, double reach)
+	{
+		if (list.reach < 0 || reach > list.reach || list.generation != generation) return false;
+
+		for (int l=0; l<levels.length; l++)
+		{
+			CellGrid grid = levels[l];
+			if (grid.version == list.version[l]) continue;
+			if (!grid.journalSince(list.version[l])) return false;
+
+			double distance = list.reach + levelBound[l] + list.pad;
+			for (int v=list.version[l]+1; v<=grid.version; v++)
+			{
+				Entry e = (Entry) grid.arrival(v);
+				// agents which went on to another level are noted in that level's journal as well
+				if (e.removed || e.level != l) continue;
+
+				double dx = grid.xs[e.slot] - list.x;
+				double dy = grid.ys[e.slot] - list.y;
+				if (dx*dx + dy*dy <= distance*distance && !list.contains(e)) list.add(e);
+			}
+			list.version[l] = grid.version;
+		}
+		return true;
+	}
+
+	private void build(NeighbourList list, double x, double y, double reach, double pad, IntBag found)
+	{
+		if (list.version == null || list.version.length != levels.length) list.version = new int[levels.length];
+		list.clear();
+		list.x = x;
+		list.y = y;
+		list.pad = pad;
+		list.reach = reach + skin;
+		list.generation = generation;
+
+		for (int l=0; l<levels.length; l++)
+		{
+			CellGrid grid = levels[l];
+			list.version[l] = grid.version;
+			if (grid.size() == 0) continue;
+
+			grid.query(x, y, list.reach + levelBound[l] + pad, true, found);
+			for (int i=0; i<found.numObjs; i++) list.add((Entry) grid.agents[found.objs[i]]);
+		}
+	}
+
+	private void collect(CellGrid grid, double x, double y, double distance, boolean exact, Bag result)
+	{
+		if (grid.size() == 0) return;
+		grid.query(x, y, distance, exact, found);
+		for (int i=0; i<found.numObjs; i++) result.add(((Entry) grid.agents[found.objs[i]]).obj);
+	}
+
+	private void insert(Object obj, double x, double y, double extent)
+	{
+		Entry e = register(obj, levelOf(extent));
+		e.extent = extent;
+		e.slot = levels[e.level].add(e, x, y);
+	}
+
+	private Entry register(Object obj, int level)
+	{
+		Entry e = new Entry();
+		e.obj = obj;
+		e.level = level;
+		e.index = allObjects.numObjs;
+		entries.put(obj, e);
+		allObjects.add(obj);
+		return e;
+	}
+
+	/**
+	 * Reads the field and sets the agents of its entries again
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		for (Map.Entry<Object, Entry> e : entries.entrySet()) e.getValue().obj = e.getKey();
+	}
+}
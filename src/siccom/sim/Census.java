@@ -0,0 +1,135 @@
+package siccom.sim;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The number of colonies, the covered area and the structural metrics of each coral group in one layer.
+ * <li>The groups are identified by their {@link CoralGroup#id} -- their position in the group list.</li>
+ * <li>The colonies report their birth, their growth, their bleaching and their death, so the census is always up to date
+ * and reading it costs nothing but one array access per group.</li>
+ * <li>Besides number and area the census keeps the surface of the mature colonies of each group
+ * and a histogram of the radii of all unbleached colonies in steps of one pixel.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class Census implements Serializable
+{
+	private static final long serialVersionUID = 2093458713266701985L;
+
+	/**
+	 * The number of living colonies of each group
+	 */
+	public int[] count;
+	/**
+	 * The area covered by the living colonies of each group
+	 */
+	public double[] size;
+	/**
+	 * The hemisphere surface of the mature colonies of each group -- the base of the recruit production
+	 */
+	public double[] matureSurface;
+	/**
+	 * The number of unbleached colonies per radius class -- class i holds the radii in [i, i+1), see {@link #getMaxRadius()}
+	 */
+	int[] radii = new int[64];
+	/**
+	 * No radius class above this one is occupied
+	 */
+	int top = -1;
+
+	/**
+	 * Constructor
+	 * @param groupNum the number of groups
+	 */
+	public Census(int groupNum)
+	{
+		count = new int[groupNum];
+		size = new double[groupNum];
+		matureSurface = new double[groupNum];
+	}
+
+	/**
+	 * A new colony -- its values are passed by {@link #change(int, double, double)} and {@link #moveRadius(int, int)}
+	 * @param group the id of the group
+	 */
+	public void add(int group)
+	{
+		count[group]++;
+	}
+
+	/**
+	 * A colony changed its values
+	 * @param group the id of the group
+	 * @param dSize the change of the size
+	 * @param dMature the change of the mature surface
+	 */
+	public void change(int group, double dSize, double dMature)
+	{
+		size[group] += dSize;
+		matureSurface[group] += dMature;
+	}
+
+	/**
+	 * A colony changed its radius class
+	 * @param from the former class -- -1 if the colony was not counted
+	 * @param to the new class -- -1 if the colony is not counted anymore
+	 */
+	public void moveRadius(int from, int to)
+	{
+		if (from == to) return;
+		if (from >= 0) radii[from]--;
+		if (to >= 0)
+		{
+			if (to >= radii.length) radii = Arrays.copyOf(radii, Math.max(to + 1, radii.length * 2));
+			radii[to]++;
+			if (to > top) top = to;
+		}
+	}
+
+	/**
+	 * A colony died -- its values have to be taken back before
+	 * @param group the id of the group
+	 */
+	public void remove(int group)
+	{
+		count[group]--;
+		// no rounding residue for an empty group
+		if (count[group] == 0)
+		{
+			size[group] = 0;
+			matureSurface[group] = 0;
+		}
+	}
+
+	/**
+	 * @return the area covered by all colonies of the layer
+	 */
+	public double getTotalSize()
+	{
+		double s = 0;
+		for (int i=0; i<size.length; i++) s += size[i];
+		return s;
+	}
+
+	/**
+	 * @return the hemisphere surface of all colonies of the layer, 2*PI*r^2 each
+	 */
+	public double getTotalSurface()
+	{
+		return 2*getTotalSize();
+	}
+
+	/**
+	 * The upper limit of the largest radius of an unbleached colony -- for the output only.
+	 * Bleached colonies are not in the histogram, so it is no bound of the colonies' reach;
+	 * the neighbour searches use the extents of the layers, see {@link CellListField#getMaxExtent()}.
+	 * @return the upper limit of the largest radius, 0 if there is none
+	 */
+	public double getMaxRadius()
+	{
+		while (top >= 0 && radii[top] == 0) top--;
+		return top + 1;
+	}
+}
@@ -5,9 +5,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import javax.swing.JTable;
@@ -26,8 +29,10 @@ import siccom.gui.SiccomUI;
  *
  */
 
-public class Config 
+public class Config implements Serializable
 {
+	private static final long serialVersionUID = -2311845108032583262L;
+
 	Siccom sim;
 	
 	// Format for output data 
@@ -139,7 +144,7 @@ public class Config
 	/**
 	 * The absolute value of algal covered area
 	 */
-	public double algalCover; // = Siccom.totalArea / 100 * algalCoverPercent;
+	public double algalCover; // = sim.totalArea / 100 * algalCoverPercent;
 	/**
 	 * The maximal number of fragments an alga can produce
 	 */
@@ -150,7 +155,7 @@ public class Config
 	 * The parameter file from which to read the parameters
 	 * for corals, algae, and the environment, respectively
 	 */
-	public ParameterFile currentParameterFile = null;
+	public transient ParameterFile currentParameterFile = null;
 	
 	public Config(Siccom sim)
 	{
@@ -168,47 +173,79 @@ public class Config
 		return fileName;
 	}
 	
+	/**
+	 * Looks for a file in the folder of the {@link ParameterSet} of the simulation, if there is one
+	 * -- in the inf-folder otherwise
+	 * @param fn the file name
+	 * @return the file
+	 */
+	public File getFile(String fn)
+	{
+		if (sim.parameters != null && sim.parameters.infDir != null) return new File(sim.parameters.infDir, fn);
+		return new File(getLocalFileName(fn));
+	}
+	
+	/**
+	 * Reads a parameter file -- the {@link ParameterSet} of the simulation keeps the files it has read once
+	 * @param fileName the file name with extension
+	 * @return the parameter file
+	 */
+	private ParameterFile openParameterFile(String fileName) throws IOException
+	{
+		if (sim.parameters != null) return sim.parameters.getParameterFile(fileName);
+		
+		File file = getFile(fileName);
+		InputStreamReader in = null;
+		
+		if (file.isFile()) {
+			in = new InputStreamReader(new FileInputStream(file));
+		} 
+		else {
+			System.out.println(fileName + "\tcould not be found or corrupt");
+		}
+		return new ParameterFile(in, fileName, true);
+	}
+	
+	/**
+	 * Passes the value of a parameter -- the value of the {@link ParameterSet} of the simulation replaces the one of the file
+	 * @param pf the parameter file
+	 * @param key the key string to the value
+	 * @return the value as a String
+	 */
+	private String getValue(ParameterFile pf, String key)
+	{
+		if (sim.parameters != null) 
+		{
+			String value = sim.parameters.getValue(pf.getFileName(), key);
+			if (value != null) return value;
+		}
+		return pf.getValue(key);
+	}
+	
 	
 	public void readMainFile(String fn) 
 	{
-		File file;
 		String fileName;
-		InputStreamReader in = null;
 		try {
 			fileName = fn + infoFileExtension;
-			file = new File(getLocalFileName(fileName));
-			
-			if (file.isFile()) {
-				in = new InputStreamReader(new FileInputStream(file));
-			} 
-			else {
-				System.out.println(fileName + "\tcould not be found or corrupt");
-			}
 			
 
 			
 			
-			ParameterFile pf = new ParameterFile(in, fileName, true);
+			ParameterFile pf = openParameterFile(fileName);
 			this.currentParameterFile = pf;
 			
-			Siccom.areaWidth = readInt(pf, "areaWidth");			// the simulation area width in meters
-			Siccom.areaHeight = readInt(pf, "areaHeight");			// the simulation area height in meters
-			Siccom.resolution = readDouble(pf, "resolution"); 		// how many centimeters per pixel
-			Siccom.maCoGroupNum = readInt(pf, "maCoNum");
-			Siccom.braCoGroupNum = readInt(pf, "braCoNum");
-			Siccom.indivOutInter = readInt(pf, "indivOutInter");
+			sim.setArea(readInt(pf, "areaWidth"),				// the simulation area width in meters
+						readInt(pf, "areaHeight"),				// the simulation area height in meters
+						readDouble(pf, "resolution")); 			// how many centimeters per pixel
+			sim.maCoGroupNum = readInt(pf, "maCoNum");
+			sim.braCoGroupNum = readInt(pf, "braCoNum");
+			sim.indivOutInter = readInt(pf, "indivOutInter");
 			
-			Siccom.meterConv = Siccom.resolution / 100.0;					// converter from meters to pixels
-			Siccom.growthConv = 1 / (Siccom.resolution*10) / 12;			// converter from mm/year to pixels/month
-			Siccom.gridWidth = Siccom.areaWidth / Siccom.meterConv;				// the simulation area width in pixels
-			Siccom.gridHeight = Siccom.areaHeight / Siccom.meterConv;			// the simulation area height in pixels
 			
-			Siccom.totalArea = Siccom.gridWidth * Siccom.gridHeight;
-			
-			
-			sim.turfResolution = (int) (1 / Siccom.meterConv);
-			sim.cellNumWidth = (int)(Siccom.gridWidth / sim.turfResolution);
-			sim.cellNumHeight = (int)(Siccom.gridHeight / sim.turfResolution);
+			sim.turfResolution = (int) (1 / sim.meterConv);
+			sim.cellNumWidth = (int)(sim.gridWidth / sim.turfResolution);
+			sim.cellNumHeight = (int)(sim.gridHeight / sim.turfResolution);
 			sim.cellWidth = sim.turfResolution;
 			sim.cellHeight = sim.turfResolution;
 		
@@ -226,25 +263,15 @@ public class Config
 	 * @param fn the filename 
 	 */
 	public void readEnvironmentFile(String fn) {
-		File file;
 		String fileName;
-		InputStreamReader in = null;
 		try {
 			fileName = fn + infoFileExtension;
-			file = new File(getLocalFileName(fileName));
-			
-			if (file.isFile()) {
-				in = new InputStreamReader(new FileInputStream(file));
-			} 
-			else {
-				System.out.println(fileName + "\tcould not be found or corrupt");
-			}
 
-			ParameterFile pf = new ParameterFile(in, fileName, true);
+			ParameterFile pf = openParameterFile(fileName);
 			this.currentParameterFile = pf;
 			
-			sim.disturbMaxSize1 = readDouble(pf, "disturbMaxSize1") / Siccom.meterConv;
-			sim.disturbMinSize1 = readDouble(pf, "disturbMinSize1") / Siccom.meterConv;
+			sim.disturbMaxSize1 = readDouble(pf, "disturbMaxSize1") / sim.meterConv;
+			sim.disturbMinSize1 = readDouble(pf, "disturbMinSize1") / sim.meterConv;
 			sim.disturbMaxRadius1 = sim.disturbMaxSize1 / 2;
 			sim.disturbMinRadius1 = sim.disturbMinSize1 / 2;	
 			sim.disturbMeanInterval1 = (int)readDouble(pf, "disturbMeanInterval1");
@@ -276,8 +303,8 @@ public class Config
 			}
 			
 			
-			sim.disturbMaxSize2 = readDouble(pf, "disturbMaxSize2") / Siccom.meterConv;
-			sim.disturbMinSize2 = readDouble(pf, "disturbMinSize2") / Siccom.meterConv;
+			sim.disturbMaxSize2 = readDouble(pf, "disturbMaxSize2") / sim.meterConv;
+			sim.disturbMinSize2 = readDouble(pf, "disturbMinSize2") / sim.meterConv;
 			sim.disturbMaxRadius2 = sim.disturbMaxSize2 / 2;
 			sim.disturbMinRadius2 = sim.disturbMinSize2 / 2;	
 			sim.disturbMeanInterval2 = (int)readDouble(pf, "disturbMeanInterval2");
@@ -318,6 +345,9 @@ public class Config
 
 			sim.dieOvergrowthMas = readDouble(pf, "dieOvergrowthMas");
 			sim.dieOvergrowthBra = readDouble(pf, "dieOvergrowthBra");
+			sim.pairwiseInteraction = readBoolean(pf, "pairwiseInteraction");
+			sim.interactionThreads = Math.max(1, readInt(pf, "interactionThreads"));
+			sim.splitStreams = readBoolean(pf, "splitStreams");
 
 			sim.iniGrazingProb = readDouble(pf, "grazingProb");
 			sim.grazingProb = sim.iniGrazingProb;
@@ -341,9 +371,9 @@ public class Config
 			sim.maxGrazingProb = sim.grazingProb + sim.grazingProbHalfRange;
 			
 			// SCALING TURF
-			sim.turfResolution = (int) (readInt(pf, "turfResolution")/Siccom.meterConv);
-			sim.cellNumWidth = (int)(Siccom.gridWidth / sim.turfResolution);
-			sim.cellNumHeight = (int)(Siccom.gridHeight / sim.turfResolution);
+			sim.turfResolution = (int) (readInt(pf, "turfResolution")/sim.meterConv);
+			sim.cellNumWidth = (int)(sim.gridWidth / sim.turfResolution);
+			sim.cellNumHeight = (int)(sim.gridHeight / sim.turfResolution);
 			
 		} 
 		catch (IOException e) 
@@ -353,12 +383,27 @@ public class Config
 	}
 	
 	
+	/**
+	 * Passes the parameter files of a simulation -- the main file has to be read before, it holds the number of the groups
+	 * @return the file names with extension, in the order they are read
+	 */
+	public List<String> parameterFileNames()
+	{
+		List<String> names = new ArrayList<String>();
+		names.add("mainParam" + infoFileExtension);
+		names.add("environment" + infoFileExtension);
+		names.add("algaParam" + infoFileExtension);
+		for (int i=1; i<=sim.maCoGroupNum; i++) names.add("maCoParam" + i + infoFileExtension);
+		for (int i=1; i<=sim.braCoGroupNum; i++) names.add("braCoParam" + i + infoFileExtension);
+		return names;
+	}
+	
 	public void initOrganisms()
 	{		
 		readAlgaFile("algaParam");
 		
 		// read massive coral group parameters and setup the Massive Groups		
-		for (int i=1; i<=Siccom.maCoGroupNum;i++)
+		for (int i=1; i<=sim.maCoGroupNum;i++)
 		{
 			String fileName = "maCoParam"+i;
 			readParameterFile(fileName);
@@ -389,7 +434,7 @@ public class Config
 		}
 			
 		// read branching coral group parameters and setup Branching Groups
-		for (int i=1; i<=Siccom.braCoGroupNum;i++)
+		for (int i=1; i<=sim.braCoGroupNum;i++)
 		{
 			String fileName = "braCoParam"+i;
 			readParameterFile(fileName);
@@ -423,38 +468,28 @@ public class Config
 	}
 	
 	private void readAlgaFile(String fn) {
-		File file;
 		String fileName;
-		InputStreamReader in = null;
 		try {
 			fileName = fn + infoFileExtension;
-			file = new File(getLocalFileName(fileName));
-			
-			if (file.isFile()) {
-				in = new InputStreamReader(new FileInputStream(file));
-			} 
-			else {
-				System.out.println(fileName + "\tcould not be found or corrupt");
-			}
 
-			ParameterFile pf = new ParameterFile(in, fileName, true);
+			ParameterFile pf = openParameterFile(fileName);
 			this.currentParameterFile = pf;
 			aName = readString(pf, "name");
-			aMaxRadius = readDouble(pf, "aMaxRadius") / Siccom.resolution;
-			aMaxHeight = readDouble(pf, "aMaxHeight") / Siccom.resolution;
+			aMaxRadius = readDouble(pf, "aMaxRadius") / sim.resolution;
+			aMaxHeight = readDouble(pf, "aMaxHeight") / sim.resolution;
 			algaMaxAge = readInt(pf, "algaMaxAge");
-			aGrowthRate = readDouble(pf, "aGrowthRate") / (Siccom.resolution*10);
-			aFragmentationHeight = readDouble(pf, "aFragmentationHeight") / Siccom.resolution; 
+			aGrowthRate = readDouble(pf, "aGrowthRate") / (sim.resolution*10);
+			aFragmentationHeight = readDouble(pf, "aFragmentationHeight") / sim.resolution; 
 			aMaxFragNum = readInt(pf, "aMaxFragNum");
-			aFragmentSize = readDouble(pf, "aFragmentSize") / Siccom.resolution;
-			aFragRange	  = readDouble(pf, "aFragRange") / Siccom.meterConv;
+			aFragmentSize = readDouble(pf, "aFragmentSize") / sim.resolution;
+			aFragRange	  = readDouble(pf, "aFragRange") / sim.meterConv;
 			algalCoverPercent = readDouble(pf, "algalCoverPercent");
-			algaRecRad = readDouble(pf, "algaRecRad") / Siccom.resolution;
+			algaRecRad = readDouble(pf, "algaRecRad") / sim.resolution;
 			algaRecFirst = readInt(pf, "algaRecFirst");
 			algaRecInterval = readInt(pf, "algaRecInterval");
 			algaRecNumPerSqM = readDouble(pf, "algaRecNumPerSqM");
-			algaRecNum = (int)( algaRecNumPerSqM * Siccom.areaWidth * Siccom.areaHeight );
-			algalCover = Siccom.totalArea / 100 * algalCoverPercent;
+			algaRecNum = (int)( algaRecNumPerSqM * sim.areaWidth * sim.areaHeight );
+			algalCover = sim.totalArea / 100 * algalCoverPercent;
 			
 			
 		
@@ -470,35 +505,28 @@ public class Config
 	 * Before starting the simulation the parameters are read from the *.inf-files
 	 */
 	public void readParameterFile( String fn ) {
-		File file;
 		String fileName;
-		InputStreamReader in = null;
 		try {
 			fileName = fn + infoFileExtension;
-			file = new File(getLocalFileName(fileName));
-			
-			if (file.isFile()) {
-				in = new InputStreamReader(new FileInputStream(file));
-			} 
-			ParameterFile pf = new ParameterFile(in, fileName, true);
+			ParameterFile pf = openParameterFile(fileName);
 			this.currentParameterFile = pf;
 
 			name = readString(pf, "name");
 			colorString = readString(pf, "color");
 			color = getColor(colorString);				//readColor(pf, "color");
 			ci = readDouble(pf, "CI");
-			maxIniRadius = readDouble(pf, "maxIniRadius") / Siccom.resolution;
-			maxRadius = readDouble(pf, "maxRadius") / Siccom.resolution;
-			growthRate = readDouble(pf, "growthRate") * Siccom.growthConv;
+			maxIniRadius = readDouble(pf, "maxIniRadius") / sim.resolution;
+			maxRadius = readDouble(pf, "maxRadius") / sim.resolution;
+			growthRate = readDouble(pf, "growthRate") * sim.growthConv;
 			coveredArea = readDouble(pf, "coveredArea");
-			diamAtMaturity = readDouble(pf, "diamAtMaturity") / Siccom.resolution;
+			diamAtMaturity = readDouble(pf, "diamAtMaturity") / sim.resolution;
 			surfaceFactor = readDouble(pf, "surfaceFactor");
 			propagulesPerSqCm = readDouble(pf, "propagulesPerSqCm");
 			retainFactor = readDouble(pf, "retainFactor");
-			recRad = readDouble(pf, "recRad") / Siccom.resolution;
+			recRad = readDouble(pf, "recRad") / sim.resolution;
 			recFirst = readInt(pf, "recFirst");
 			recInterval = readInt(pf, "recInterval");
-			recNum = (int)(readDouble(pf, "recNumberPerSqM")*(Siccom.areaWidth*Siccom.areaHeight));
+			recNum = (int)(readDouble(pf, "recNumberPerSqM")*(sim.areaWidth*sim.areaHeight));
 			minBleachTemp = readDouble(pf, "minBleachTemp");
 			maxBleachTemp = readDouble(pf, "maxBleachTemp");
 			minDeathTemp = readDouble(pf, "minDeathTemp");
@@ -507,8 +535,8 @@ public class Config
 			if (fileName.startsWith("braCo"))
 			{	
 				numBranches = readInt(pf, "numBranches");
-				fragSize = readDouble(pf, "fragSize") / Siccom.resolution;
-				fragRange = readDouble(pf, "fragRange") / Siccom.meterConv;
+				fragSize = readDouble(pf, "fragSize") / sim.resolution;
+				fragRange = readDouble(pf, "fragRange") / sim.meterConv;
 			}
 		} catch (IOException e) {
 //			JOptionPane.showMessageDialog(frame, e, "Error",
@@ -526,7 +554,7 @@ public class Config
 	 * @return the value
 	 */
 	public double readDouble(ParameterFile pf, String key) {
-		String s = pf.getValue(key);
+		String s = getValue(pf, key);
 
 		double value = 0;
 		try {
@@ -548,7 +576,7 @@ public class Config
 	 * @return the value
 	 */
 	public int readInt(ParameterFile pf, String key) {
-		String str = pf.getValue(key);
+		String str = getValue(pf, key);
 
 		int val = 0;
 		try {
@@ -571,7 +599,7 @@ public class Config
 	 */
 	public String readString(ParameterFile pf, String key)
 	{
-		String s = pf.getValue(key);
+		String s = getValue(pf, key);
 		
 		String value = "";
 		try{
@@ -584,7 +612,7 @@ public class Config
 	}
 	
 	public boolean readBoolean(ParameterFile pf, String key) {
-		String str = pf.getValue(key);
+		String str = getValue(pf, key);
 	
 		boolean val = true;
 		try {
@@ -630,8 +658,8 @@ public class Config
 	{
 		if(fN.equals("environment.inf"))
 		{
-			sim.disturbMaxSize1 = Double.valueOf((String)tab.getValueAt(0, 0)) / Siccom.meterConv;
-			sim.disturbMinSize1 = Double.valueOf((String)tab.getValueAt(1, 0)) / Siccom.meterConv;
+			sim.disturbMaxSize1 = Double.valueOf((String)tab.getValueAt(0, 0)) / sim.meterConv;
+			sim.disturbMinSize1 = Double.valueOf((String)tab.getValueAt(1, 0)) / sim.meterConv;
 			sim.disturbMaxRadius1 = sim.disturbMaxSize1 / 2;
 			sim.disturbMinRadius1 = sim.disturbMinSize1 / 2;	
 			sim.disturbMeanInterval1 = (int)(Double.valueOf((String)tab.getValueAt(2, 0))*1.0);
@@ -662,8 +690,8 @@ public class Config
 			}
 			
 			
-			sim.disturbMaxSize2 = Double.valueOf((String)tab.getValueAt(5, 0)) / Siccom.meterConv;
-			sim.disturbMinSize2 = Double.valueOf((String)tab.getValueAt(6, 0)) / Siccom.meterConv;
+			sim.disturbMaxSize2 = Double.valueOf((String)tab.getValueAt(5, 0)) / sim.meterConv;
+			sim.disturbMinSize2 = Double.valueOf((String)tab.getValueAt(6, 0)) / sim.meterConv;
 			sim.disturbMaxRadius2 = sim.disturbMaxSize2 / 2;
 			sim.disturbMinRadius2 = sim.disturbMinSize2 / 2;	
 			sim.disturbMeanInterval2 = (int) (Double.valueOf((String)tab.getValueAt(7, 0))*1.0);
@@ -724,9 +752,9 @@ public class Config
 			sim.maxGrazingProb = sim.iniGrazingProb + sim.grazingProbHalfRange;
 			
 			// SCALING TURF
-			sim.turfResolution = (int) (Double.valueOf((String)tab.getValueAt(24, 0))/Siccom.meterConv);
-			sim.cellNumWidth = (int)(Siccom.gridWidth / sim.turfResolution);
-			sim.cellNumHeight = (int)(Siccom.gridHeight / sim.turfResolution);
+			sim.turfResolution = (int) (Double.valueOf((String)tab.getValueAt(24, 0))/sim.meterConv);
+			sim.cellNumWidth = (int)(sim.gridWidth / sim.turfResolution);
+			sim.cellNumHeight = (int)(sim.gridHeight / sim.turfResolution);
 			sim.cellWidth = sim.turfResolution;
 			sim.cellHeight = sim.turfResolution;
 			
@@ -735,21 +763,21 @@ public class Config
 		else if (fN.equals("algaParam.inf"))
 		{
 			aName = 				(String) tab.getValueAt(0, 0);
-			aMaxRadius = 			Double.valueOf((String)tab.getValueAt(1, 0)) / Siccom.resolution;
-			aMaxHeight = 			Double.valueOf((String)tab.getValueAt(2, 0)) / Siccom.resolution;
+			aMaxRadius = 			Double.valueOf((String)tab.getValueAt(1, 0)) / sim.resolution;
+			aMaxHeight = 			Double.valueOf((String)tab.getValueAt(2, 0)) / sim.resolution;
 			algaMaxAge = 			Integer.valueOf((String)tab.getValueAt(3, 0));
-			aGrowthRate = 			Double.valueOf((String)tab.getValueAt(4, 0)) / (Siccom.resolution*10);
-			aFragmentationHeight = 	Double.valueOf((String)tab.getValueAt(5, 0)) / Siccom.resolution;
+			aGrowthRate = 			Double.valueOf((String)tab.getValueAt(4, 0)) / (sim.resolution*10);
+			aFragmentationHeight = 	Double.valueOf((String)tab.getValueAt(5, 0)) / sim.resolution;
 			aMaxFragNum	=			Integer.valueOf((String)tab.getValueAt(6, 0));
-			aFragmentSize = 		Double.valueOf((String)tab.getValueAt(7, 0)) / Siccom.resolution;
-			aFragRange = 			Double.valueOf((String)tab.getValueAt(8, 0)) / Siccom.meterConv;
+			aFragmentSize = 		Double.valueOf((String)tab.getValueAt(7, 0)) / sim.resolution;
+			aFragRange = 			Double.valueOf((String)tab.getValueAt(8, 0)) / sim.meterConv;
 			algalCoverPercent = 	Double.valueOf((String)tab.getValueAt(9, 0));
-			algaRecRad = 			Double.valueOf((String)tab.getValueAt(10, 0)) / Siccom.resolution;
+			algaRecRad = 			Double.valueOf((String)tab.getValueAt(10, 0)) / sim.resolution;
 			algaRecFirst = 			Integer.valueOf((String)tab.getValueAt(11, 0));
 			algaRecInterval = 		Integer.valueOf((String)tab.getValueAt(12, 0));
 			algaRecNumPerSqM = 		Double.valueOf((String)tab.getValueAt(13, 0));
-			algaRecNum = 			(int)( algaRecNumPerSqM * Siccom.areaWidth * Siccom.areaHeight );
-			algalCover = Siccom.totalArea / 100 * algalCoverPercent;
+			algaRecNum = 			(int)( algaRecNumPerSqM * sim.areaWidth * sim.areaHeight );
+			algalCover = sim.totalArea / 100 * algalCoverPercent;
 		}
 		
 		else
@@ -759,18 +787,18 @@ public class Config
 		colorString = (String) tab.getValueAt(1, 0);	
 		color = getColor(colorString);
 		ci = Double.valueOf((String) tab.getValueAt(2, 0));
-		maxIniRadius = Double.valueOf((String)tab.getValueAt(3, 0)) / Siccom.resolution;
-		maxRadius = Double.valueOf((String)tab.getValueAt(4, 0)) / Siccom.resolution;
-		growthRate = Double.valueOf((String)tab.getValueAt(5, 0)) * Siccom.growthConv; // / (resolution * 10) / 12;
+		maxIniRadius = Double.valueOf((String)tab.getValueAt(3, 0)) / sim.resolution;
+		maxRadius = Double.valueOf((String)tab.getValueAt(4, 0)) / sim.resolution;
+		growthRate = Double.valueOf((String)tab.getValueAt(5, 0)) * sim.growthConv; // / (resolution * 10) / 12;
 		coveredArea = Double.valueOf((String)tab.getValueAt(6, 0));
-		diamAtMaturity = Double.valueOf((String)tab.getValueAt(7, 0)) / Siccom.resolution;
+		diamAtMaturity = Double.valueOf((String)tab.getValueAt(7, 0)) / sim.resolution;
 		surfaceFactor = Double.valueOf((String)tab.getValueAt(8, 0));
 		propagulesPerSqCm = Double.valueOf((String)tab.getValueAt(9, 0));
 		retainFactor = Double.valueOf((String)tab.getValueAt(10, 0));
-		recRad = Double.valueOf((String)tab.getValueAt(11, 0)) / Siccom.resolution;
+		recRad = Double.valueOf((String)tab.getValueAt(11, 0)) / sim.resolution;
 		recFirst = Integer.valueOf((String)tab.getValueAt(12, 0));
 		recInterval = Integer.valueOf((String)tab.getValueAt(13, 0));
-		recNum = (int)(Double.valueOf((String)tab.getValueAt(14, 0))*(Siccom.areaWidth*Siccom.areaHeight));
+		recNum = (int)(Double.valueOf((String)tab.getValueAt(14, 0))*(sim.areaWidth*sim.areaHeight));
 		minBleachTemp = Double.valueOf((String)tab.getValueAt(15, 0));
 		maxBleachTemp = Double.valueOf((String)tab.getValueAt(16, 0));
 		minDeathTemp = Double.valueOf((String)tab.getValueAt(17, 0));
@@ -779,8 +807,8 @@ public class Config
 		if (fN.startsWith("braCo"))
 		{
 			numBranches = Integer.valueOf((String)tab.getValueAt(19, 0));
-			fragSize = Double.valueOf((String)tab.getValueAt(20, 0)) / Siccom.resolution;
-			fragRange = Double.valueOf((String)tab.getValueAt(21, 0)) / Siccom.meterConv;
+			fragSize = Double.valueOf((String)tab.getValueAt(20, 0)) / sim.resolution;
+			fragRange = Double.valueOf((String)tab.getValueAt(21, 0)) / sim.meterConv;
 			
 			BranchingGroup braco = new BranchingGroup(	sim,
 														name,
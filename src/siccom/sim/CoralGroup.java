@@ -1,6 +1,7 @@
 package siccom.sim;
 
 import java.awt.Color;
+import java.io.Serializable;
 
 /**
  * Defines the parameters for a {@link CoralGroup} which then can be 
@@ -11,8 +12,10 @@ import java.awt.Color;
  * @version 2.0
  */
 
-public abstract class CoralGroup
+public abstract class CoralGroup implements Serializable
 {
+	private static final long serialVersionUID = 5028214779512836627L;
+
 	/**
 	 * The simulation in which the group is in
 	 */
@@ -21,6 +24,10 @@ public abstract class CoralGroup
 	 * The name of the Coral Group (Species name)
 	 */
 	public String name;		
+	/**
+	 * The position of the group in the group list of the simulation -- see {@link Census}
+	 */
+	public int id;
 	
 	public String colorString;
 	/**
@@ -75,6 +82,10 @@ public abstract class CoralGroup
 	 * The number of recruits per recruitment event
 	 */
 	public int	fixRecImport;					// number of recruits per event
+	/**
+	 * The recruits which arrived from the other reefs of a {@link MetaPopulation} since the last recruitment event
+	 */
+	public double networkRecImport;
 	
 
 	// BLEACHING	
@@ -145,7 +156,7 @@ public abstract class CoralGroup
 		iniGrowthRate 			= growthRate;
 		this.growthRate    		= iniGrowthRate;
 		this.coverPercent 		= coverPercent;
-		coveredArea 			= Siccom.totalArea/ 100 * coverPercent; 
+		coveredArea 			= sim.totalArea/ 100 * coverPercent; 
 		this.diamAtMaturity  	= diamAtMaturity;
 		this.surfaceFactor		= surfaceFactor;
 		this.propagulesPerSqCm 	= propagulesPerSqCm;
@@ -0,0 +1,448 @@
+package siccom.sim;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import sim.engine.SimState;
+import sim.engine.Steppable;
+import sim.util.Bag;
+import sim.util.IntBag;
+
+/**
+ * Handles the interaction between coral colonies pair by pair -- used if {@link Siccom#pairwiseInteraction} is set.
+ * It is scheduled every month before the corals.
+ * <li>At first all colonies which are not dormant are prepared in random order, i.e. bleaching, reset of growth rates and current radius.</li>
+ * <li>Then the overlapping pairs of every colony are searched. This phase only reads the colonies:
+ * distance, intersection area and the branch ends lying within the partner are noted in the {@link Pairs} of the colony.
+ * It runs on {@link Siccom#interactionThreads} threads.</li>
+ * <li>At last the colonies apply the outcome of their pairs one after the other in random order --
+ * growth reduction, overgrown area and death. Every pair is applied once.</li>
+ * <li>Afterwards the colonies finish their step in the {@link CoralSchedule}.</li>
+ *
+ * Unlike the default mode, all colonies see each other as they are at the beginning of the month.
+ * The pairs do not depend on the order in which they were searched, so the results are the same for any number of threads.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class CoralInteraction implements Steppable
+{
+	private static final long serialVersionUID = -6024583169347738011L;
+
+	/**
+	 * The number of colonies searched by one task at least
+	 */
+	static final int CHUNK = 128;
+
+	Siccom sim;
+	Bag corals = new Bag();
+	/**
+	 * The pairs of each colony with colonies of its own layer and, for massive colonies, with branching colonies
+	 * -- indexed like {@link #corals}
+	 */
+	Pairs[] same = new Pairs[0], cross = new Pairs[0];
+	/**
+	 * The buffers of the simulation thread
+	 */
+	Bag neighbours = new Bag();
+	IntBag found = new IntBag();
+	/**
+	 * The threads for the search -- created at the first search with more than one thread
+	 */
+	transient ForkJoinPool pool;
+
+	/**
+	 * Constructor
+	 * @param sim the simulation
+	 */
+	public CoralInteraction(Siccom sim)
+	{
+		this.sim = sim;
+	}
+
+	public void step(SimState state)
+	{
+		corals.clear();
+		corals.addAll(sim.massiveCorals.getAllObjects());
+		corals.addAll(sim.branchingCorals.getAllObjects());
+		corals.shuffle(sim.random);
+
+		int n = corals.numObjs;
+		for (int i=0; i<n; i++)
+		{
+			if (corals.objs[i] instanceof MassiveCoral)
+			{
+				MassiveCoral mC = (MassiveCoral) corals.objs[i];
+				mC.interactionIndex = i;
+				if (mC.alive && !mC.dormant) mC.prepare();
+				mC.branches.fetchDirections();
+			}
+			else
+			{
+				BranchingCoral bC = (BranchingCoral) corals.objs[i];
+				bC.interactionIndex = i;
+				if (bC.alive) bC.prepare();
+				bC.branches.fetchDirections();
+			}
+		}
+
+		if (same.length < n)
+		{
+			int m = Math.max(n, same.length * 2);
+			same = Arrays.copyOf(same, m);
+			cross = Arrays.copyOf(cross, m);
+			for (int i=0; i<m; i++)
+			{
+				if (same[i] == null) same[i] = new Pairs();
+				if (cross[i] == null) cross[i] = new Pairs();
+			}
+		}
+
+		// read-only phase
+		int threads = sim.interactionThreads;
+		if (threads > 1 && n > CHUNK)
+		{
+			if (pool == null || pool.getParallelism() != threads) pool = new ForkJoinPool(threads);
+			pool.invoke(new Search(0, n));
+		}
+		else search(0, n, neighbours, found);
+
+		// applying phase
+		for (int i=0; i<n; i++)
+		{
+			if (corals.objs[i] instanceof MassiveCoral) applyMassive((MassiveCoral) corals.objs[i], same[i], cross[i]);
+			else applyBranching((BranchingCoral) corals.objs[i], same[i]);
+		}
+		corals.clear();
+	}
+
+	/**
+	 * Searches the pairs of a range of colonies
+	 * @param from the first index in {@link #corals}
+	 * @param to the index after the last one
+	 * @param neighbours the buffer for the neighbours
+	 * @param found the buffer for the slots found in the grid
+	 */
+	void search(int from, int to, Bag neighbours, IntBag found)
+	{
+		for (int i=from; i<to; i++)
+		{
+			if (corals.objs[i] instanceof MassiveCoral)
+				searchMassive((MassiveCoral) corals.objs[i], same[i], cross[i], neighbours, found);
+			else
+				searchBranching((BranchingCoral) corals.objs[i], same[i], neighbours, found);
+		}
+		neighbours.clear();
+	}
+
+	/**
+	 * Splits the search into chunks of at least {@link #CHUNK} colonies
+	 */
+	class Search extends RecursiveAction
+	{
+		private static final long serialVersionUID = 5140281658346071929L;
+
+		int from, to;
+
+		Search(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute()
+		{
+			if (to - from <= CHUNK) search(from, to, new Bag(), new IntBag());
+			else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new Search(from, mid), new Search(mid, to));
+			}
+		}
+	}
+
+	/**
+	 * Notes the pairs of a massive colony -- colonies which come earlier in the order have noted their pairs with it
+	 */
+	private void searchMassive(MassiveCoral a, Pairs same, Pairs cross, Bag neighbours, IntBag found)
+	{
+		same.clear();
+		cross.clear();
+		if (!a.alive) return;
+		double rA = a.getRadius();
+
+		sim.massiveCorals.getNeighbours(a.maCoList, a.xPos, a.yPos, a.maximumBranchLength, 10, neighbours, found);
+		for (int i=0; i<neighbours.numObjs; i++)
+		{
+			MassiveCoral b = (MassiveCoral) neighbours.objs[i];
+			if (b == a || !b.alive || b.interactionIndex < a.interactionIndex) continue;
+			double dist = OverlapGeometry.distance(a.xPos, a.yPos, b.xPos, b.yPos);
+			if (dist < rA + b.getRadius()) same.add(b, rA, b.getRadius(), dist);
+		}
+		same.computeAreas();
+		for (int k=0; k<same.num; k++)
+		{
+			MassiveCoral b = (MassiveCoral) same.partner[k];
+			if (a.interacting && !b.bleached) same.inPartner[k] = same.noteEnds(a.branches, b);
+			if (b.interacting && !a.bleached) same.inColony[k] = same.noteEnds(b.branches, a);
+		}
+
+		// pairs of a massive and a branching colony are only noted by the massive colony
+		sim.branchingCorals.getNeighbours(a.braCoList, a.xPos, a.yPos, a.maximumBranchLength, 10, neighbours, found);
+		for (int i=0; i<neighbours.numObjs; i++)
+		{
+			BranchingCoral b = (BranchingCoral) neighbours.objs[i];
+			if (!b.alive) continue;
+			double dist = OverlapGeometry.distance(a.xPos, a.yPos, b.xPos, b.yPos);
+			if (dist <= rA + b.getRadius()) cross.add(b, rA, b.getRadius(), dist);
+		}
+		cross.computeAreas();
+		for (int k=0; k<cross.num; k++)
+		{
+			BranchingCoral b = (BranchingCoral) cross.partner[k];
+			if (cross.dist[k] == rA + cross.rB[k]) continue;
+			if (a.interacting && !b.bleached) cross.inPartner[k] = cross.noteEnds(a.branches, b);
+			if (!a.bleached) cross.inColony[k] = cross.noteEnds(b.branches, a);
+		}
+	}
+
+	/**
+	 * Notes the pairs of a branching colony with other branching colonies
+	 */
+	private void searchBranching(BranchingCoral a, Pairs same, Bag neighbours, IntBag found)
+	{
+		same.clear();
+		if (!a.alive) return;
+		double rA = a.getRadius();
+
+		sim.branchingCorals.getNeighbours(a.braCoList, a.xPos, a.yPos, a.maximumBranchLength, 10, neighbours, found);
+		for (int i=0; i<neighbours.numObjs; i++)
+		{
+			BranchingCoral b = (BranchingCoral) neighbours.objs[i];
+			if (b == a || !b.alive || b.interactionIndex < a.interactionIndex) continue;
+			double dist = OverlapGeometry.distance(a.xPos, a.yPos, b.xPos, b.yPos);
+			if (dist <= rA + b.getRadius()) same.add(b, rA, b.getRadius(), dist);
+		}
+		same.computeAreas();
+		for (int k=0; k<same.num; k++)
+		{
+			BranchingCoral b = (BranchingCoral) same.partner[k];
+			if (same.dist[k] == rA + same.rB[k]) continue;
+			if (!b.bleached) same.inPartner[k] = same.noteEnds(a.branches, b);
+			if (!a.bleached) same.inColony[k] = same.noteEnds(b.branches, a);
+		}
+	}
+
+	/**
+	 * Applies the pairs of a massive colony -- partners which died in this month are skipped
+	 */
+	private void applyMassive(MassiveCoral a, Pairs same, Pairs cross)
+	{
+		if (!a.alive) return;
+
+		for (int k=0; k<same.num; k++)
+		{
+			MassiveCoral b = (MassiveCoral) same.partner[k];
+			if (!b.alive) continue;
+			if (a.interacting && !b.bleached) overgrow(a, b, same.rA[k], same.rB[k], same.dist[k], same.area[k], same, same.inPartner[k]);
+			if (b.interacting && !a.bleached) overgrow(b, a, same.rB[k], same.rA[k], same.dist[k], same.area[k], same, same.inColony[k]);
+			if (!a.alive) return;
+		}
+
+		for (int k=0; k<cross.num; k++)
+		{
+			BranchingCoral b = (BranchingCoral) cross.partner[k];
+			if (!b.alive) continue;
+			pair(a, b, cross, k);
+			if (!a.alive) return;
+		}
+	}
+
+	/**
+	 * Applies the pairs of a branching colony with other branching colonies
+	 */
+	private void applyBranching(BranchingCoral a, Pairs same)
+	{
+		if (!a.alive) return;
+
+		for (int k=0; k<same.num; k++)
+		{
+			BranchingCoral b = (BranchingCoral) same.partner[k];
+			if (!b.alive) continue;
+			pair(a, b, same, k);
+			if (!a.alive) return;
+		}
+	}
+
+	/**
+	 * A massive and a branching colony which touch or overlap
+	 */
+	private void pair(MassiveCoral a, BranchingCoral b, Pairs p, int k)
+	{
+		double rA = p.rA[k], rB = p.rB[k], dist = p.dist[k], area = p.area[k];
+		if (a.size >= b.size*0.5) b.numNeighbours += 1;
+		if (dist == rA + rB) return;
+
+		if (a.interacting && !b.bleached)
+		{
+			if (OverlapGeometry.engulfs(rB, rA, dist)) a.die();
+			if (area > 0) a.interArea += area;
+			Branches br = a.branches;
+			int e = p.inPartner[k];
+			for (int j=0; j<br.num; j++)
+			{
+				if (p.ends[e + j])
+				{
+					br.reduceGeneralGrowth(j);
+					if (b.getSize() > a.getSize()) br.reduceMinorGrowth(j);
+				}
+			}
+		}
+		if (!a.bleached)
+		{
+			if (OverlapGeometry.engulfs(rA, rB, dist)) b.die();
+			if (rA > rB && area > 0) b.interArea += area;
+			Branches br = b.branches;
+			int e = p.inColony[k];
+			for (int j=0; j<br.num; j++)
+				if (p.ends[e + j]) br.stop[j] = true;
+		}
+	}
+
+	/**
+	 * Two branching colonies which touch or overlap
+	 */
+	private void pair(BranchingCoral a, BranchingCoral b, Pairs p, int k)
+	{
+		double rA = p.rA[k], rB = p.rB[k], dist = p.dist[k], area = p.area[k];
+		if (b.size >= a.size*0.5) a.numNeighbours += 1;
+		if (a.size >= b.size*0.5) b.numNeighbours += 1;
+		if (dist == rA + rB) return;
+
+		if (!b.bleached) overgrow(a, b, rA, rB, dist, area, p, p.inPartner[k]);
+		if (!a.bleached) overgrow(b, a, rB, rA, dist, area, p, p.inColony[k]);
+	}
+
+	/**
+	 * Applies the outcome of an overlap to the massive colony a
+	 * @param e the position of the branch ends of a lying within b in {@link Pairs#ends}
+	 */
+	private void overgrow(MassiveCoral a, MassiveCoral b, double rA, double rB, double dist, double area, Pairs p, int e)
+	{
+		if (OverlapGeometry.engulfs(rB, rA, dist)) a.die();
+		if (area > 0) a.interArea += area;
+		Branches br = a.branches;
+		for (int j=0; j<br.num; j++)
+		{
+			if (p.ends[e + j])
+			{
+				br.reduceGeneralGrowth(j);
+				if (b.getSize() > a.getSize()) br.reduceMinorGrowth(j);
+			}
+		}
+	}
+
+	/**
+	 * Applies the outcome of an overlap to the branching colony a
+	 * @param e the position of the branch ends of a lying within b in {@link Pairs#ends}
+	 */
+	private void overgrow(BranchingCoral a, BranchingCoral b, double rA, double rB, double dist, double area, Pairs p, int e)
+	{
+		if (OverlapGeometry.engulfs(rB, rA, dist)) a.die();
+		if (area > 0) a.interArea += area;
+		Branches br = a.branches;
+		for (int j=0; j<br.num; j++)
+		{
+			if (p.ends[e + j])
+			{
+				br.reduceGeneralGrowth(j);
+				if (rB < rA) br.reduceMinorGrowth(j);
+			}
+		}
+	}
+
+	/**
+	 * The overlapping pairs of one colony found in the read-only phase
+	 * <li>For each partner the radii, the distance and the intersection area.</li>
+	 * <li>For each side of a pair which may be overgrown, whether the branch ends of that side lie within the other one
+	 * -- {@link #inPartner} for the branches of the colony, {@link #inColony} for the branches of the partner.</li>
+	 */
+	static class Pairs implements Serializable
+	{
+		private static final long serialVersionUID = -2871495300618227404L;
+
+		Object[] partner = new Object[8];
+		double[] rA = new double[8], rB = new double[8], dist = new double[8], area = new double[8];
+		int num;
+		/**
+		 * The position of the branch ends of each side in {@link #ends}
+		 */
+		int[] inPartner = new int[8], inColony = new int[8];
+		boolean[] ends = new boolean[64];
+		int endNum;
+
+		void clear()
+		{
+			for (int i=0; i<num; i++) partner[i] = null;
+			num = 0;
+			endNum = 0;
+		}
+
+		void add(Object b, double rA, double rB, double dist)
+		{
+			if (num == partner.length)
+			{
+				int n = num * 2;
+				partner = Arrays.copyOf(partner, n);
+				this.rA = Arrays.copyOf(this.rA, n);
+				this.rB = Arrays.copyOf(this.rB, n);
+				this.dist = Arrays.copyOf(this.dist, n);
+				area = Arrays.copyOf(area, n);
+				inPartner = Arrays.copyOf(inPartner, n);
+				inColony = Arrays.copyOf(inColony, n);
+			}
+			partner[num] = b;
+			this.rA[num] = rA;
+			this.rB[num] = rB;
+			this.dist[num] = dist;
+			num++;
+		}
+
+		void computeAreas()
+		{
+			OverlapGeometry.lensAreas(rA, rB, dist, area, num);
+		}
+
+		/**
+		 * Notes which branch ends lie within a massive colony
+		 * @return the position of the first branch end
+		 */
+		int noteEnds(Branches br, MassiveCoral c)
+		{
+			int e = reserve(br.num);
+			for (int j=0; j<br.num; j++) ends[e + j] = c.contains(br.getEndX(j), br.getEndY(j));
+			return e;
+		}
+
+		/**
+		 * Notes which branch ends lie within a branching colony
+		 * @return the position of the first branch end
+		 */
+		int noteEnds(Branches br, BranchingCoral c)
+		{
+			int e = reserve(br.num);
+			for (int j=0; j<br.num; j++) ends[e + j] = c.contains(br.getEndX(j), br.getEndY(j));
+			return e;
+		}
+
+		private int reserve(int n)
+		{
+			if (endNum + n > ends.length) ends = Arrays.copyOf(ends, Math.max(endNum + n, ends.length * 2));
+			int e = endNum;
+			endNum += n;
+			return e;
+		}
+	}
+}
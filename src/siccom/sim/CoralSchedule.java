@@ -0,0 +1,98 @@
+package siccom.sim;
+
+import java.util.Arrays;
+
+import sim.engine.Schedule;
+import sim.engine.SimState;
+import sim.engine.Steppable;
+import sim.util.Bag;
+
+/**
+ * Steps the coral colonies of both layers in one pass per month.
+ * <li>The colonies are not put into the {@link Schedule} one by one -- they are kept in a compact list
+ * together with the time of their next step.</li>
+ * <li>Each pass steps all colonies which are due in random order, massive and branching colonies mixed.</li>
+ * <li>Colonies which are created or rescheduled during a pass are stepped in a later pass.</li>
+ *
+ * The pass itself is scheduled once, repeating every month, see {@link Siccom#start()}.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class CoralSchedule implements Steppable
+{
+	private static final long serialVersionUID = 4271306588235461297L;
+
+	Siccom sim;
+	/**
+	 * The scheduled colonies
+	 */
+	Bag colonies = new Bag();
+	/**
+	 * The time of the next step of each colony in {@link #colonies}
+	 */
+	double[] due = new double[64];
+	/**
+	 * The colonies of the actual pass
+	 */
+	Bag batch = new Bag();
+
+	/**
+	 * Constructor
+	 * @param sim the simulation
+	 */
+	public CoralSchedule(Siccom sim)
+	{
+		this.sim = sim;
+	}
+
+	/**
+	 * Schedules a colony for a single step -- same as {@link Schedule#scheduleOnce(double, Steppable)}
+	 * @param time the time of the step
+	 * @param coral the colony
+	 */
+	public void scheduleOnce(double time, Steppable coral)
+	{
+		if (colonies.numObjs == due.length) due = Arrays.copyOf(due, due.length * 2);
+		due[colonies.numObjs] = time;
+		colonies.add(coral);
+	}
+
+	/**
+	 * Schedules a colony for a single step -- same as {@link Schedule#scheduleOnceIn(double, Steppable)}
+	 * @param dTime the time interval from now on
+	 * @param coral the colony
+	 */
+	public void scheduleOnceIn(double dTime, Steppable coral)
+	{
+		scheduleOnce(sim.schedule.getTime() + dTime, coral);
+	}
+
+	/**
+	 * Steps all colonies which are due in random order
+	 */
+	public void step(SimState state)
+	{
+		double now = state.schedule.getTime();
+
+		// take the due colonies out of the list, the others keep their place
+		Object[] objs = colonies.objs;
+		int n = 0;
+		for (int i=0; i<colonies.numObjs; i++)
+		{
+			if (due[i] <= now) batch.add(objs[i]);
+			else
+			{
+				objs[n] = objs[i];
+				due[n] = due[i];
+				n++;
+			}
+		}
+		for (int i=n; i<colonies.numObjs; i++) objs[i] = null;
+		colonies.numObjs = n;
+
+		batch.shuffle(sim.random);
+		for (int i=0; i<batch.numObjs; i++) ((Steppable) batch.objs[i]).step(state);
+		batch.clear();
+	}
+}
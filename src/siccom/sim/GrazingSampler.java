@@ -0,0 +1,49 @@
+package siccom.sim;
+
+/**
+ * Picks the victims of grazing by geometric skipping.
+ * <li>Instead of one draw per alga or turf cell, the number of survivors up to the next victim is drawn --
+ * it is geometrically distributed with the grazing probability.</li>
+ * <li>Every alga or cell is still grazed independently with the grazing probability,
+ * but the number of draws equals the number of victims.</li>
+ *
+ * Usage: compute {@link #logMiss(double)} once per month, then step through the population with
+ * {@link #skip(RandomStream, double)}.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public final class GrazingSampler
+{
+	private GrazingSampler()
+	{
+	}
+
+	/**
+	 * @param p the grazing probability
+	 * @return log(1-p) -- NaN if nothing is grazed, i.e. p is 0 or not a probability
+	 */
+	public static double logMiss(double p)
+	{
+		if (!(p > 0)) return Double.NaN;
+		if (p >= 1) return Double.NEGATIVE_INFINITY;
+		return Math.log1p(-p);
+	}
+
+	/**
+	 * Draws the number of survivors before the next victim
+	 * @param random the random stream of the grazing, see {@link RandomStreams#GRAZING}
+	 * @param logMiss the value of {@link #logMiss(double)} for the grazing probability
+	 * @return the number of survivors -- Long.MAX_VALUE if nothing is grazed
+	 */
+	public static long skip(RandomStream random, double logMiss)
+	{
+		if (Double.isNaN(logMiss)) return Long.MAX_VALUE;
+		if (logMiss == Double.NEGATIVE_INFINITY) return 0;
+
+		// 1-u lies in (0,1], so the logarithm is finite
+		double u = 1.0 - random.nextDouble();
+		double k = Math.floor(Math.log(u) / logMiss);
+		return k >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) k;
+	}
+}
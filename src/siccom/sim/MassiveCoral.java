@@ -3,7 +3,6 @@ package siccom.sim;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Ellipse2D;
-import java.util.ArrayList;
 
 import org.jhotdraw.geom.Polygon2D;
 
@@ -13,6 +12,7 @@ import sim.portrayal.DrawInfo2D;
 import sim.portrayal.SimplePortrayal2D;
 import sim.util.Bag;
 import sim.util.Double2D;
+import sim.util.IntBag;
 import sim.util.gui.SimpleColorMap;
 
 public class MassiveCoral extends SimplePortrayal2D implements Steppable
@@ -44,6 +44,18 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 * The simulation where the coral is in
 	 */
 	public Siccom sim;
+	/**
+	 * The number of the colony -- unique within the simulation, see {@link Siccom#nextSerial()}
+	 */
+	public long serial;
+	/**
+	 * The random stream of the colony in the current month -- see {@link #random()}
+	 */
+	RandomStream stream;
+	/**
+	 * The coral group
+	 */
+	public MassiveGroup mG;
 	/**
 	 * Name of the coral group
 	 */
@@ -51,7 +63,36 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	/**
 	 * A bag to collect all neighbors
 	 */
-	public Bag neighbours;
+	public Bag neighbours = new Bag();
+	/**
+	 * The slots of the neighbouring algae, see {@link AlgaPopulation}
+	 */
+	IntBag algaNeighbours = new IntBag();
+	/**
+	 * The cached neighbour lists of the colony in the massive and the branching coral layer
+	 */
+	NeighbourList maCoList = new NeighbourList(), braCoList = new NeighbourList();
+	/**
+	 * True if the colony interacts with its neighbours this month -- colonies at their maximum radius do not
+	 */
+	boolean interacting;
+	/**
+	 * The position of the colony in the order of the {@link CoralInteraction} in the current month
+	 * -- colonies created after the order was drawn come after all others
+	 */
+	int interactionIndex = Integer.MAX_VALUE;
+	/**
+	 * True if the colony is not scheduled until the next bleaching month -- see {@link #sleep()}
+	 */
+	boolean dormant;
+	/**
+	 * True if the colony is the copy of a colony of a neighbouring tile -- see {@link ReefTiles}
+	 */
+	boolean ghost;
+	/**
+	 * The time the colony fell dormant
+	 */
+	double sleepTime;
 	/**
 	 * The graphical information for {@link SimplePortrayal2D}
 	 */
@@ -114,7 +155,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	/** 
 	 * The life status of the coral colony
 	 */
-	private boolean alive;										
+	boolean alive;										
 	/**
 	 * Measure to determine for how long is the colony in the simulation
 	 */
@@ -147,9 +188,9 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 *  CORAL POLYGON SHAPE	
 	 */
 	/**
-	 * The shape of the coral
+	 * The shape of the coral -- the lengths of its branches at fixed angles
 	 */
-	 Polygon2D.Double p;
+	 RadialProfile shape;
 	
 //	private Polygon2D.Double d;
 	
@@ -158,9 +199,9 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 */
 	private int numBranches = 24;
 	/**
-	 * List of all branches of the coral
+	 * The branches of the coral
 	 */
-	public ArrayList<Branch> branches = new ArrayList<Branch>(numBranches);
+	public Branches branches;
 	
 	/**
 	 * The actual maximum branch length
@@ -171,15 +212,28 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public double maximumBranchLength;
 	
-	private double interArea;
+	double interArea;
 	
 	double extensionBuffer;
+	/**
+	 * The turf cells covered by the bounding box of the colony -- see {@link TurfFootprintIndex}
+	 */
+	int[] turfFootprint;
+	/**
+	 * The size, the mature surface and the radius class last passed to the census -- see {@link #report()}
+	 */
+	private double reportedSize, reportedMature;
+	private int reportedRadiusClass = -1;
+	/**
+	 * The length of the longest branch -- the level of the colony in {@link Siccom#massiveCorals} depends on it
+	 */
+	double extent;
 	
 	// Different getters and setters for the console
 	public String getName() { return name; }
 	public double sendXPos() { return xPos; }
 	public double sendYPos() { return yPos; }
-	public int getAge() { return age; }
+	public int getAge() { return dormant ? age + (int)(sim.schedule.getTime() - sleepTime) : age; }
 	public double getSize() { return size; }
 	public double getGrowthRate() { return growthRate; }
 	public double getRadius() { return radius; }
@@ -189,6 +243,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	/**
 	   * Constructor for massive coral
 	   * @param sim the simulation where coral is situated in 
+	   * @param mG the coral group
 	   * @param name the name of the coral group
 	   * @param color the color of the coral group
 	   * @param maxRadius the maximum radius a colony can reach
@@ -201,6 +256,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	   */
 	
 	public MassiveCoral(	Siccom sim, 
+							MassiveGroup mG,
 							String name,
 							Color color,
 							double CI,
@@ -212,6 +268,8 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 							int age) 
 	{
 		this.sim = sim;
+		serial = sim.nextSerial();
+		this.mG = mG;
 		this.name = name;
 		this.xPos = xPos;						//xPos;
 		this.yPos = yPos;
@@ -231,137 +289,215 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 
 		
 		// create axes of the coral
-		for (int i=1; i <= numBranches ; i++)
-		{
-			Branch b = new Branch(xPos, yPos, radius, numBranches, i, growthRate);
-			branches.add(b);
-		}
+		branches = new Branches(xPos, yPos, radius, numBranches, growthRate);
 		
-		// set up the polygon shape
-		p = new Polygon2D.Double();
-		for (int i=0; i < branches.size(); i++)
+		// set up the shape
+		shape = new RadialProfile(xPos, yPos, numBranches);
+		for (int i=0; i < branches.num; i++)
 		{
-			Branch b =  branches.get(i);
-			int length = (int)b.getBranchLength();
-			int rad = length;
-			int div = (int)b.multiplier;
-			double endX = b.startX + (rad*Math.cos( (2*Math.PI/numBranches )*div ));
-	        double endY = b.startY - (rad*Math.sin( (2*Math.PI/numBranches)*div ));
-
-	        p.addPoint(endX, endY);
+			int length = (int)branches.length[i];
+			shape.set(i, length);
 		}
+		shape.update();
 		
+		updateFootprint();
+		sim.maCoCensus.add(mG.id);
+		report();
 	}
 	
+	/**
+	 * Constructor for a ghost -- the copy of a colony of a neighbouring tile, which the colonies of this tile see,
+	 * but which is neither stepped nor counted, see {@link ReefTiles}
+	 * @param sim the simulation of the tile
+	 * @param original the colony
+	 * @param xPos x-position in the tile
+	 * @param yPos y-position in the tile
+	 */
+	MassiveCoral(Siccom sim, MassiveCoral original, double xPos, double yPos)
+	{
+		this.sim = sim;
+		mG = sim.maCoGroups.get(original.mG.id);
+		name = original.name;
+		initColor = original.initColor;
+		CI = original.CI;
+		this.xPos = xPos;
+		this.yPos = yPos;
+		me = new Double2D(xPos, yPos);
+		maximumRadius = original.maximumRadius;
+		maximumBranchLength = original.maximumBranchLength;
+		shape = new RadialProfile(xPos, yPos, original.shape.n);
+		alive = true;
+		ghost = true;
+		copyGhost(original);
+	}
+
+	/**
+	 * Takes the state of the original of a ghost
+	 * @param original the colony
+	 */
+	void copyGhost(MassiveCoral original)
+	{
+		radius = original.radius;
+		diameter = original.diameter;
+		size = original.size;
+		age = original.age;
+		bleached = original.bleached;
+		bleachGrade = original.bleachGrade;
+		shape.copy(original.shape);
+		extent = original.extent;
+
+		turfFootprint = sim.maCoFootprint.place(this, turfFootprint, xPos, yPos, (int)extent);
+		sim.massiveCorals.setObjectExtent(this, extent);
+	}
+
 	/** 
 	 * Step routine of a massive coral colony
 	 */
 	public void step(SimState state)
 	{
-			if (alive)
+			if (sim.pairwiseInteraction)
 			{
+				// prepare() and the interaction with other corals were done by the CoralInteraction
+				if (alive) finish();
+				return;
+			}
 
-				if (xPos < -extensionBuffer || xPos > Siccom.gridWidth+extensionBuffer 
-						|| yPos < -extensionBuffer || yPos > Siccom.gridHeight+extensionBuffer)
-			  			die();
-				
-				checkBleaching();
-				if (bleached){
-					 growthRate = initGrowthRate * (1 - (this.bleachGrade / 100)); 
-					recover();
-				}
-				else
-					// reset the growth rate at every step 
-					growthRate = initGrowthRate;
-				
-				for (Branch b : branches)
-				{
-					b.growthRate = initGrowthRate;
-				}
-
-				if (!(radius >= maximumRadius))
+			if (alive)
+			{
+				prepare();
+				if (interacting)
 				{
-					if (alive) getAvRadius();										
 					if (alive) interactMassiveCorals();
 					if (alive) interactBranchingCorals();
-					if (radius<=sim.conf.aMaxRadius || bleached) interactAlgae();
-					if (age <= sim.conf.interactTurfAge) interactTurf();
-
-					double percentOvergrowth = 100/size*interArea;
-					if (percentOvergrowth>=sim.dieOvergrowthMas) die(); 	
-					interArea = 0.0;
-					
-					
-					if (alive)
-					{
-						grow();
-						
-					}
-				}				
-				reschedule(1.0);
-				age += 1;
+				}
+				finish();
 			}			
 	}
 
+	/**
+	 * First part of the step routine -- bleaching, reset of the growth rates and the current radius
+	 */
+	void prepare()
+	{
+		if (xPos < -extensionBuffer || xPos > sim.gridWidth+extensionBuffer 
+				|| yPos < -extensionBuffer || yPos > sim.gridHeight+extensionBuffer)
+			  			die();
+		
+		checkBleaching();
+		if (bleached){
+			 growthRate = initGrowthRate * (1 - (this.bleachGrade / 100)); 
+			recover();
+		}
+		else
+			// reset the growth rate at every step 
+			growthRate = initGrowthRate;
+		
+		for (int i=0; i < branches.num; i++)
+		{
+			branches.growthRate[i] = initGrowthRate;
+		}
+
+		interacting = !(radius >= maximumRadius);
+		if (interacting && alive) getAvRadius();
+	}
+
+	/**
+	 * Last part of the step routine -- interaction with algae and turf, overgrowth and growth
+	 */
+	void finish()
+	{
+		if (interacting)
+		{
+			if (radius<=sim.conf.aMaxRadius || bleached) interactAlgae();
+			if (age <= sim.conf.interactTurfAge) interactTurf();
+
+			double percentOvergrowth = 100/size*interArea;
+			if (percentOvergrowth>=sim.dieOvergrowthMas) die(); 	
+			interArea = 0.0;
+			
+			
+			if (alive)
+			{
+				grow();
+				
+			}
+		}				
+		age += 1;
+		
+		// a colony at its maximum radius, which is not bleached, does nothing but wait for a bleaching month
+		if (!interacting && !bleached && alive) sleep();
+		else reschedule(1.0);
+	}
+
+	/**
+	 * Takes the colony out of the schedule.
+	 * <li>The radius of a colony which reached its maximum radius is not updated anymore,
+	 * so it neither grows nor interacts -- its neighbours still interact with it.</li>
+	 * <li>Until it may bleach its step only resets growth rates and adds up its age.</li>
+	 * The colony is woken by {@link Siccom#wakeCorals()} as soon as its group may bleach.
+	 */
+	void sleep()
+	{
+		dormant = true;
+		sleepTime = sim.schedule.getTime();
+		sim.dormantMaCo[mG.id].add(this);
+	}
+
+	/**
+	 * Puts a dormant colony back into the schedule for the next month and adds up the months it slept
+	 */
+	void wake()
+	{
+		dormant = false;
+		age += (int)(sim.schedule.getTime() - sleepTime);
+		sim.coralSchedule.scheduleOnceIn(1.0, this);
+	}
+
 	/**
 	 * Interaction with neighboring macroalgae
 	 */
 	private void interactAlgae() {
-		neighbours = sim.algae.getObjectsExactlyWithinDistance(me, maximumBranchLength+sim.conf.aMaxRadius+1);
+		AlgaPopulation algae = sim.algae;
+		algaNeighbours = algae.getNeighbours(me.x, me.y, maximumBranchLength+sim.conf.aMaxRadius+1, true, algaNeighbours);
 
-		if (neighbours.numObjs > 0)
+		if (algaNeighbours.numObjs > 0)
 		{
 			//algae can grow over corals if these are bleached. 
 			//--> calculate the area algae cover of the coral colony
 			algCoverage=0;
-			for (int j=0; j<neighbours.numObjs; j++)
+			for (int j=0; j<algaNeighbours.numObjs; j++)
 			{
-				algCoverage = algCoverage + ((Alga) neighbours.objs[j]).getSize();
+				algCoverage = algCoverage + algae.size[algaNeighbours.objs[j]];
 			}
 				
-			for (int i=0; i< neighbours.numObjs; i++)	
+			for (int i=0; i< algaNeighbours.numObjs; i++)	
 			{	
 				if(alive)
 				{
-					Alga otherA =  (Alga) neighbours.objs[i];
-					double dist = me.distance(otherA.sendXPos(), otherA.sendYPos());
+					int otherA = algaNeighbours.objs[i];
+					double dist = me.distance(algae.getX(otherA), algae.getY(otherA));
 			    
-					if ( dist <= this.getRadius() + otherA.getRadius())
+					if ( dist <= this.getRadius() + algae.radius[otherA])
 					{
-						Double r=0.0;
-						Double R=0.0;
-						if (otherA.getRadius()> this.getRadius()+ dist) die();
-						else if (otherA.getRadius() > this.getRadius()){
-							r = this.getRadius();
-							R = otherA.getRadius();
-						}
-						else {	
-							r = otherA.getRadius();
-							R = this.getRadius();
-						}
-						
-						Double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
-						Double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
-						Double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
-
-						Double intersectionArea = part1 + part2 - part3;	
+						if (OverlapGeometry.engulfs(algae.radius[otherA], this.getRadius(), dist)) die();
+						double intersectionArea = OverlapGeometry.lensArea(this.getRadius(), algae.radius[otherA], dist);
 						
 						if (intersectionArea>0)
 							interArea += intersectionArea;	
 						
-						for (Branch b : branches)
+						for (int j=0; j < branches.num; j++)
 						{
-							if (otherA.sendShape().contains(b.getEndX(), b.getEndY()))
+							if (algae.contains(otherA, branches.getEndX(j), branches.getEndY(j)))
 							{
-								b.reduceGeneralGrowth();
-								if(otherA.getSize()>this.getSize())	 b.reduceMinorGrowth();
+								branches.reduceGeneralGrowth(j);
+								if(algae.size[otherA]>this.getSize())	 branches.reduceMinorGrowth(j);
 							}
 						}
 					}
 				}
 			}
 		}
-		neighbours.clear();
+		algaNeighbours.clear();
 	}
 	
 	/**
@@ -369,7 +505,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public void interactMassiveCorals() 
 	{
-		neighbours = sim.massiveCorals.getObjectsExactlyWithinDistance(me, maximumBranchLength+sim.maCoMaxLength+10);
+		neighbours = sim.massiveCorals.getNeighbours(maCoList, me.x, me.y, maximumBranchLength, 10, neighbours);
 		if (neighbours.numObjs > 1)
 		{
 			for (int i=0; i< neighbours.numObjs; i++)	
@@ -384,32 +520,17 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 						double dist = me.distance(otherC.sendXPos(), otherC.sendYPos());
 						if (dist<this.getRadius()+otherC.getRadius() && otherC.bleached == false)
 						{
-							Double r=0.0;
-							Double R=0.0;
-							if (otherC.getRadius()> this.getRadius()+dist) die();
-							 if (otherC.getRadius() > this.getRadius()){
-								r = this.getRadius();
-								R = otherC.getRadius();
-							}
-							else {	
-								r = otherC.getRadius();
-								R = this.getRadius();
-							}
-							
-							Double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
-							Double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
-							Double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
-	
-							Double intersectionArea = part1 + part2 - part3;	
+							if (OverlapGeometry.engulfs(otherC.getRadius(), this.getRadius(), dist)) die();
+							double intersectionArea = OverlapGeometry.lensArea(this.getRadius(), otherC.getRadius(), dist);
 							if (intersectionArea>0)
 								interArea += intersectionArea;
 
-							for (Branch b : branches)
+							for (int j=0; j < branches.num; j++)
 							{
-								if ( otherC.sendShape().contains(b.getEndX(), b.getEndY()))
+								if (otherC.contains(branches.getEndX(j), branches.getEndY(j)))
 								{
-									b.reduceGeneralGrowth();
-									if(otherC.getSize()>this.getSize())	 b.reduceMinorGrowth();
+									branches.reduceGeneralGrowth(j);
+									if(otherC.getSize()>this.getSize())	 branches.reduceMinorGrowth(j);
 								}
 							}
 						}
@@ -427,8 +548,8 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	{
 		
 		growthRate = initGrowthRate;
-		neighbours = sim.branchingCorals.getObjectsExactlyWithinDistance(me, maximumBranchLength+sim.braCoMaxLength+10);
-		if (neighbours.numObjs > 1)
+		neighbours = sim.branchingCorals.getNeighbours(braCoList, me.x, me.y, maximumBranchLength, 10, neighbours);
+		if (neighbours.numObjs > 0)
 		{
 			for (int i=0; i< neighbours.numObjs; i++)	
 			{
@@ -439,32 +560,17 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 					double dist = me.distance(otherC.xPos, otherC.yPos);
 					if (dist<this.getRadius()+otherC.getRadius() && otherC.bleached == false)
 					{
-						Double r=0.0;
-						Double R=0.0;
-						if (otherC.getRadius()> this.getRadius()+dist) die();
-						else if (otherC.getRadius() > this.getRadius()){
-							r = this.getRadius();
-							R = otherC.getRadius();
-						}
-						else {	
-							r = otherC.getRadius();
-							R = this.getRadius();
-						}
-						
-						Double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
-						Double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
-						Double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
-
-						Double intersectionArea = part1 + part2 - part3;	
+						if (OverlapGeometry.engulfs(otherC.getRadius(), this.getRadius(), dist)) die();
+						double intersectionArea = OverlapGeometry.lensArea(this.getRadius(), otherC.getRadius(), dist);
 						if (intersectionArea>0)
 							interArea += intersectionArea;						
 						
-						for (Branch b : branches)
+						for (int j=0; j < branches.num; j++)
 						{
-							if ( otherC.sendShape().contains(b.getEndX(), b.getEndY()) )
+							if (otherC.contains(branches.getEndX(j), branches.getEndY(j)))
 							{
-								b.reduceGeneralGrowth();
-								if(otherC.getSize()>this.getSize())	 b.reduceMinorGrowth();
+								branches.reduceGeneralGrowth(j);
+								if(otherC.getSize()>this.getSize())	 branches.reduceMinorGrowth(j);
 
 							}
 						}
@@ -479,16 +585,12 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 */
 	private void interactTurf()
 	{
-		Bag t = sim.turf.getAllObjects();
-			
-		for (int i=0; i<t.size(); i++)
+		int cell = sim.turf.cellAt(me.x, me.y);
+		if (cell >= 0)
 		{
-			TurfCell tC = (TurfCell) t.objs[i];
-			if (tC.sendShape().contains(me.x, me.y))
-			{
-				if (tC.getCover() > 100) tC.cover = 100;
-				if (sim.random.nextBoolean(tC.getCover()/100/2)) die(); //probability to max 50%
-			}
+			double[] cover = sim.turf.cover;
+			if (cover[cell] > 100) cover[cell] = 100;
+			if (random().nextBoolean(cover[cell]/100/2)) die(); //probability to max 50%
 		}
 	}
 	
@@ -503,7 +605,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 			step(sim);
 			return;
 		}
-		sim.schedule.scheduleOnceIn(dTime, this);
+		sim.coralSchedule.scheduleOnceIn(dTime, this);
 	}
 
 	/**
@@ -513,24 +615,26 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	{
 		double averageLength = 0;
 		maxLength = 0;
-		for (Branch b : branches)
+		for (int i=0; i < branches.num; i++)
 		{
 			/** 
 			 * The following part is to minimize edge effects of the simulation. 
 			 * If branching corals do not have any neighbours on one side they would grow to infinity and thereby 
 			 * skew the value for the average radius
 			 */
-			
-			if (b.getEndX() < Siccom.gridWidth  || b.getEndX() > Siccom.gridWidth ||
-				b.getEndY() < Siccom.gridHeight || b.getEndY() > Siccom.gridHeight ) maxLength = radius;
+			double endX = branches.getEndX(i);
+			double endY = branches.getEndY(i);
+			if (endX < sim.gridWidth  || endX > sim.gridWidth ||
+				endY < sim.gridHeight || endY > sim.gridHeight ) maxLength = radius;
 
 			// if they are on the simulation area.
-			if (b.getBranchLength() >= maxLength) maxLength = b.getBranchLength();
-			averageLength += b.getBranchLength();
+			if (branches.length[i] >= maxLength) maxLength = branches.length[i];
+			averageLength += branches.length[i];
 		}
 		radius = averageLength / numBranches;
 		diameter = 2*radius;
 		size = Math.PI * Math.pow(radius, 2);
+		report();
 		
 		maximumBranchLength = maxLength;
 	}
@@ -564,14 +668,13 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	private void drawPoly(DrawInfo2D inf, int x, int y) 
 	{
 		Polygon2D.Double drawP = new Polygon2D.Double();
-		for (int i=0; i < branches.size(); i++)
+		for (int i=0; i < branches.num; i++)
 		{
-			Branch b =  branches.get(i);
-			int length = (int)b.getBranchLength();
+			int length = (int)branches.length[i];
 			
 			int rad = (int)(inf.draw.width*length);
 			
-			int div = (int)b.multiplier;
+			int div = i+1;
 			double endX = x + (rad*Math.cos( (2*Math.PI/numBranches)*div ));
 	        double endY = y - (rad*Math.sin( (2*Math.PI/numBranches)*div ));
 
@@ -618,26 +721,87 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 */	
 	public double calculateHemisphereRecruitment()
 	{
-		return 2*Math.PI*Math.pow((radius*Siccom.resolution), 2);
+		return 2*Math.PI*Math.pow((radius*sim.resolution), 2);
 	}
 	
+	/**
+	 * @return the random stream of the colony in the current month, see {@link RandomStreams}
+	 */
+	RandomStream random()
+	{
+		return stream = sim.streams.get(RandomStreams.CORAL, serial, stream);
+	}
+
 	/**
 	 *  sets the life-status to false
 	 *  -- removes object from hash table 
 	 */
 	public void die() 
 	{
+		// a ghost is removed with its original
+		if (!alive || ghost) return;
 		alive = false;
+		report();
+		sim.maCoCensus.remove(mG.id);
+		if (dormant) sim.dormantMaCo[mG.id].remove(this);
 		sim.massiveCorals.remove(this);
+		sim.maCoFootprint.remove(this, turfFootprint);
   	}
 
 	/**
-	 * Passes the actual shape of the coral.
+	 * Passes the changes of size, mature surface and radius since the last report to the census
+	 * -- a dead colony takes its values back, see {@link Census}
+	 */
+	private void report()
+	{
+		double s = 0;
+		double mature = 0;
+		int radiusClass = -1;
+		if (alive)
+		{
+			s = size;
+			if (diameter >= mG.diamAtMaturity) mature = calculateHemisphereRecruitment();
+			if (!bleached) radiusClass = (int) radius;
+		}
+		sim.maCoCensus.change(mG.id, s - reportedSize, mature - reportedMature);
+		sim.maCoCensus.moveRadius(reportedRadiusClass, radiusClass);
+
+		reportedSize = s;
+		reportedMature = mature;
+		reportedRadiusClass = radiusClass;
+	}
+
+	/**
+	 * Passes the actual shape of the coral as a new polygon.
 	 * @return Polygon p
 	 */
 	public Polygon2D.Double sendShape()
 	{
-		return 	p;	
+		return 	shape.toPolygon();	
+	}
+
+	/**
+	 * @return true if the point lies within the colony
+	 */
+	public boolean contains(double px, double py)
+	{
+		return shape.contains(px, py);
+	}
+
+	/**
+	 * @return true if the colony and the rectangle overlap
+	 */
+	public boolean intersects(double x, double y, double w, double h)
+	{
+		return shape.intersects(x, y, w, h);
+	}
+
+	/**
+	 * @return true if the rectangle lies within the colony
+	 */
+	public boolean contains(double x, double y, double w, double h)
+	{
+		return shape.contains(x, y, w, h);
 	}
 
 	/**
@@ -647,31 +811,39 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	 */
 	public void grow()
 	{
-		p = new Polygon2D.Double();
-		for (int i=0; i < branches.size(); i++)
+		for (int i=0; i < branches.num; i++)
 		{
-			Branch b =  branches.get(i);
-			
-			if (b.branchLength < maximumRadius && b.stop == false)
-				b.growBranch();
+			if (branches.length[i] < maximumRadius && branches.stop[i] == false)
+				branches.grow(i);
 
-			b.stop = false;
+			branches.stop[i] = false;
 			growthRate = initGrowthRate;
 			
 			
-			int length = (int)b.getBranchLength();
-			int rad = length;
-			int div = (int)b.multiplier;
-
-			double endX = b.startX + (rad*Math.cos( (2*Math.PI/numBranches )*div ));
-	        double endY = b.startY - (rad*Math.sin( (2*Math.PI/numBranches)*div ));
-
-	        p.addPoint(endX, endY);
-	
+			int length = (int)branches.length[i];
+			shape.set(i, length);
 		}
+		shape.update();
 		
 		size = Math.PI * Math.pow(radius, 2);
 		diameter = 2*radius;		
+		report();
+		
+		updateFootprint();
+	}
+	
+	/**
+	 * Passes the bounding box of the polygon shape to the turf footprint index
+	 * and the extent of the colony to the massive coral layer
+	 */
+	private void updateFootprint()
+	{
+		if (!alive) return;
+		
+		extent = branches.getMaxLength();
+		
+		turfFootprint = sim.maCoFootprint.place(this, turfFootprint, xPos, yPos, (int)extent);
+		sim.massiveCorals.setObjectExtent(this, extent);
 	}
 	
 	/**
@@ -693,11 +865,11 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	  */
 	 public void checkBleaching()
 	 {
-		 double bleachProb = sim.bleachProbs.get(name);
+		 double bleachProb = sim.maCoBleachProbs[mG.id];
 
 		 if (bleachProb > 0)
 		 {
-			 if (sim.random.nextBoolean(bleachProb)) bleach();
+			 if (random().nextBoolean(bleachProb)) bleach();
 		 }
 	 }
 
@@ -706,7 +878,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 	  */
 	 public void bleach()
 	 {
-		 if (sim.random.nextBoolean( sim.bleachDeathProbs.get(name) )) die();
+		 if (random().nextBoolean( sim.maCoBleachDeathProbs[mG.id] )) die();
 		 
 		 bleachGrade = 100;
 		 
@@ -714,6 +886,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 		 growthRate = growthRate / bleachGrade;
 		 // set boolean bleached to true;
 		 bleached = true; 
+		 report();
 	 }
 	 
 	 /**
@@ -726,6 +899,7 @@ public class MassiveCoral extends SimplePortrayal2D implements Steppable
 		 if (bleachGrade<= 0)
 		 {
 			 bleached = false;
+			 report();
 			 bleachGrade = 0;
 		 }
 	 }
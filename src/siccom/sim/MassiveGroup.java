@@ -3,7 +3,6 @@ package siccom.sim;
 import java.awt.Color;
 
 import sim.engine.Schedule;
-import sim.util.Bag;
 import sim.util.Double2D;
 
 /**
@@ -19,6 +18,8 @@ import sim.util.Double2D;
  */
 public class MassiveGroup extends CoralGroup
 {
+	private static final long serialVersionUID = -7482160389046561903L;
+
 	/**
 	 * The number of coral individuals of this group
 	 */
@@ -120,12 +121,13 @@ public class MassiveGroup extends CoralGroup
 		
 		while (sumSize < coveredArea)
 		{
-			double xPos = sim.random.nextDouble()* Siccom.gridWidth;
-			double yPos = sim.random.nextDouble()* Siccom.gridHeight;
+			double xPos = sim.random.nextDouble()* sim.gridWidth;
+			double yPos = sim.random.nextDouble()* sim.gridHeight;
 			
 			age = 10;
 			
 			MassiveCoral mC = new MassiveCoral( 	sim,										// the simulation, the agent acts in
+													this,
 													name,
 													color,
 													CI,
@@ -137,9 +139,9 @@ public class MassiveGroup extends CoralGroup
 													age);																	
 			
 			sim.massiveCorals.setObjectLocation(mC, 
-					new Double2D(xPos, yPos));							// random location
+					new Double2D(xPos, yPos), mC.extent);							// random location
 			
-			sim.schedule.scheduleOnce(Schedule.EPOCH, mC);					// schedule once in the beginning 
+			sim.coralSchedule.scheduleOnce(Schedule.EPOCH, mC);					// schedule once in the beginning 
 																		// -- then Coral reschedules itself if alive			
 			sumSize = sumSize + mC.getSize();
 		}
@@ -155,13 +157,15 @@ public class MassiveGroup extends CoralGroup
  		totalRecs = selfMadeRecs + importedRecs;
  		
  		
+ 		RandomStream random = sim.streams.get(RandomStreams.MASSIVE_RECRUITMENT, id);
  		for (int i = 0 ; i<totalRecs; i++)
 // 		for (int i = 0 ; i<recNumber; i++)
 		{
-			double xPos = sim.random.nextDouble()*Siccom.gridWidth;
-  			double yPos = sim.random.nextDouble()*Siccom.gridHeight;
+			double xPos = random.nextDouble()*sim.gridWidth;
+  			double yPos = random.nextDouble()*sim.gridHeight;
   				
   			MassiveCoral mC = new MassiveCoral(	sim,										// the simulation, the agent acts in
+  												this,
   												name,
   												color,
   												CI,
@@ -172,8 +176,8 @@ public class MassiveGroup extends CoralGroup
   												growthRate,
   												0); 										// age
   						
-  			sim.massiveCorals.setObjectLocation(mC, new Double2D(xPos, yPos));
-  			sim.schedule.scheduleOnce(mC);
+  			sim.massiveCorals.setObjectLocation(mC, new Double2D(xPos, yPos), mC.extent);
+  			sim.coralSchedule.scheduleOnceIn(1.0, mC);
   		}
  	}
  	/**
@@ -184,22 +188,10 @@ public class MassiveGroup extends CoralGroup
  	{
 		// the number of recruits that come directly from the focal reef
  		double inRecNum = 0;
- 		double surfaceArea = 0;
-
- 		// collect all massive corals into a bag to make them iterable
-		Bag mB = sim.massiveCorals.getAllObjects();
-		for(int i = 0; i<mB.size(); i++)
-		{
-			MassiveCoral mC = (MassiveCoral)mB.objs[i];
-			
-			// check, if coral is mature and can produce propagules 
-			if(mC.getName().equals(name) && mC.diameter >= diamAtMaturity)
-			{
-				// calculate area of a hemisphere (massive coral head)
-					surfaceArea += mC.calculateHemisphereRecruitment();
-			}
-			
-		}
+ 		
+ 		// the hemisphere surface of the mature colonies of this group, see Census
+ 		double surfaceArea = sim.maCoCensus.matureSurface[id];
+ 		
 		// calculate the total propagule output
 		inRecNum = (surfaceArea * surfaceFactor * propagulesPerSqCm);	
 		int selfRecs = (int) (inRecNum * retainFactor);
@@ -214,26 +206,17 @@ public class MassiveGroup extends CoralGroup
  	 */
  	private int importedRecruits()
  	{
- 		return (int)((selfMadeRecs * sim.coralRecImportFactor) + fixRecImport);
+ 		// the recruits from the other reefs -- the fraction of a recruit waits for the next event
+ 		int network = (int) networkRecImport;
+ 		networkRecImport -= network;
+ 		return (int)((selfMadeRecs * sim.coralRecImportFactor) + fixRecImport) + network;
  	}
 
  	
  	public double calculateSurfaceArea()
  	{
- 		double surfaceArea = 0;
- 		
- 		Bag mB = sim.massiveCorals.getAllObjects();
-		for(int i = 0; i<mB.size(); i++)
-		{
-			MassiveCoral mC = (MassiveCoral)mB.objs[i];
-			
-				// calculate area of a hemisphere (massive coral head)
-//				if (sim.random.nextBoolean(0.5)) 
-			surfaceArea += mC.calculateHemisphere();
-			
-		}
-		
-		return surfaceArea * surfaceFactor;
+ 		// the hemispheres of all colonies of the layer, see Census
+ 		return sim.maCoCensus.getTotalSurface() * surfaceFactor;
  	}
  	
 	
@@ -0,0 +1,237 @@
+package siccom.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ec.util.MersenneTwisterFast;
+
+/**
+ * Simulates a network of reefs -- each reef is an own {@link Siccom} with its own parameters,
+ * and the reefs exchange coral larvae through a connectivity matrix.
+ * <li>The reefs are stepped in parallel, one month at a time.</li>
+ * <li>At the beginning of a month in which a coral group recruits, its self made recruits, see
+ * {@link MassiveGroup#selfMadeRecruits()}, are the larvae the reef exports. Reef j receives the share c[i][j]
+ * of the export of reef i -- the recruits of a group go to the group of the same name.</li>
+ * <li>The received recruits are added to the imported recruits of the next recruitment event of the group,
+ * see {@link CoralGroup#networkRecImport}. The diagonal of the matrix is ignored -- the own larvae are already
+ * in the self made recruits.</li>
+ *
+ * The reefs are the points of a sweep file, see {@link SweepSpec}, e.g. in the list mode. The network is run once
+ * for every seed of the sweep file. The connectivity file holds one row per source reef with one share per destination reef.
+ *
+ * Usage: MetaPopulation reefFile connectivityFile resultFile [threads]
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class MetaPopulation
+{
+	/**
+	 * The reefs
+	 */
+	Siccom[] reefs;
+	/**
+	 * The share of the exported larvae of reef i which settle on reef j
+	 */
+	double[][] connectivity;
+	ForkJoinPool pool;
+
+	/**
+	 * Constructor -- sets up and starts the reefs
+	 * @param points the parameters of each reef
+	 * @param connectivity the connectivity matrix
+	 * @param seed the seed of the network
+	 * @param firstRun the number of the first reef in the results
+	 * @param threads the number of threads
+	 */
+	public MetaPopulation(List<ParameterSet> points, double[][] connectivity, long seed, int firstRun, int threads)
+	{
+		if (connectivity.length != points.size())
+			throw new IllegalArgumentException("connectivity matrix has " + connectivity.length + " rows for " + points.size() + " reefs");
+		this.connectivity = connectivity;
+		pool = new ForkJoinPool(threads);
+
+		MersenneTwisterFast random = new MersenneTwisterFast(seed);
+		reefs = new Siccom[points.size()];
+		for (int i=0; i<reefs.length; i++)
+		{
+			long reefSeed = random.nextLong();
+			reefs[i] = new Siccom(reefSeed, points.get(i));
+			reefs[i].setSeed(reefSeed);
+			reefs[i].run = firstRun + i;
+		}
+		pool.invoke(new Reefs(0, reefs.length, true));
+	}
+
+	/**
+	 * Simulates one month of the network
+	 */
+	public void step()
+	{
+		exchangeLarvae((int) reefs[0].schedule.getSteps());
+		pool.invoke(new Reefs(0, reefs.length, false));
+	}
+
+	/**
+	 * Simulates the network
+	 * @param months the number of months
+	 * @param results the collected results -- the reefs are written one after the other
+	 */
+	public void run(int months, SweepResults results)
+	{
+		try
+		{
+			for (int m=0; m<months; m++)
+			{
+				int steps = (int) reefs[0].schedule.getSteps();
+				step();
+				for (Siccom reef : reefs) results.groupedOutput(reef, steps);
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+			for (Siccom reef : reefs) reef.finish();
+		}
+	}
+
+	/**
+	 * Passes the larvae of the groups which recruit in this month to the other reefs
+	 * @param steps the count of steps
+	 */
+	void exchangeLarvae(int steps)
+	{
+		for (int i=0; i<reefs.length; i++)
+		{
+			for (CoralGroup g : groups(reefs[i]))
+			{
+				if (steps < g.recFirst || (steps - g.recFirst) % g.recInterval != 0) continue;
+
+				int export = g instanceof MassiveGroup ? ((MassiveGroup) g).selfMadeRecruits() : ((BranchingGroup) g).selfMadeRecruits();
+				if (export == 0) continue;
+				for (int j=0; j<reefs.length; j++)
+				{
+					if (j == i || connectivity[i][j] == 0) continue;
+					for (CoralGroup h : groups(reefs[j]))
+						if (h.name.equals(g.name)) h.networkRecImport += connectivity[i][j] * export;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the massive and the branching coral groups of a reef
+	 */
+	private static List<CoralGroup> groups(Siccom reef)
+	{
+		List<CoralGroup> groups = new ArrayList<CoralGroup>(reef.maCoGroups);
+		groups.addAll(reef.braCoGroups);
+		return groups;
+	}
+
+	/**
+	 * Reads a connectivity matrix -- one row per line, the shares separated by blanks, lines starting with # are skipped
+	 * @param file the file
+	 * @param n the number of reefs
+	 * @return the matrix
+	 */
+	public static double[][] readConnectivity(File file, int n) throws IOException
+	{
+		double[][] c = new double[n][];
+		int row = 0;
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")) continue;
+				if (row == n) throw new IOException(file + " has more than " + n + " rows");
+
+				StringTokenizer st = new StringTokenizer(line);
+				if (st.countTokens() != n) throw new IOException("row " + (row+1) + " of " + file + " must have " + n + " values");
+				c[row] = new double[n];
+				for (int j=0; j<n; j++) c[row][j] = Double.parseDouble(st.nextToken());
+				row++;
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		if (row != n) throw new IOException(file + " has " + row + " rows for " + n + " reefs");
+		return c;
+	}
+
+	/**
+	 * Starts or steps the reefs -- split in halves down to single reefs
+	 */
+	class Reefs extends RecursiveAction
+	{
+		private static final long serialVersionUID = -3129858437207934523L;
+
+		int from, to;
+		boolean start;
+
+		Reefs(int from, int to, boolean start)
+		{
+			this.from = from;
+			this.to = to;
+			this.start = start;
+		}
+
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				if (start) reefs[from].start();
+				else reefs[from].schedule.step(reefs[from]);
+			}
+			else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new Reefs(from, mid, start), new Reefs(mid, to, start));
+			}
+		}
+	}
+
+	/**
+	 * Simulates a network of reefs
+	 * @param args the sweep file of the reefs, the connectivity file, the result file and the number of threads -- all processors if missing
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 3)
+		{
+			System.out.println("Usage: MetaPopulation reefFile connectivityFile resultFile [threads]");
+			System.exit(1);
+		}
+		long startTime = System.currentTimeMillis();
+
+		SweepSpec spec = SweepSpec.read(new File(args[0]));
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		List<ParameterSet> points = spec.expand();
+		double[][] connectivity = readConnectivity(new File(args[1]), points.size());
+
+		SweepResults results = new SweepResults(new PrintWriter(new FileWriter(args[2])), spec.names);
+		results.writeHeader();
+		System.out.println(points.size() + " reefs x " + spec.seeds.length + " seeds on " + threads + " threads");
+
+		for (int s=0; s<spec.seeds.length; s++)
+			new MetaPopulation(points, connectivity, spec.seeds[s], s * points.size(), threads).run(spec.months, results);
+		results.close();
+
+		long extTime = System.currentTimeMillis() - startTime;
+		System.out.println("Execution Time: " + (extTime / 60000) + " min " + (extTime % 60000) / 1000 + " sec");
+	}
+}
@@ -0,0 +1,99 @@
+package siccom.sim;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A cached neighbour list of a colony for one {@link CellListField}.
+ * <li>The list is built with the colony's reach plus the skin of the field,
+ * so it stays complete while the colony grows by less than the skin.</li>
+ * <li>For every level it remembers the version of the grid it has seen.
+ * Colonies which entered the level since -- recruits, fragments or neighbours grown into the next level --
+ * are appended if they are within reach.</li>
+ * <li>Removed neighbours are dropped from the list when it is read.</li>
+ * <li>Whether an arrival is in the list already is looked up in an identity set,
+ * which is built at the first lookup after a rebuild.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class NeighbourList implements Serializable
+{
+	private static final long serialVersionUID = 4635820917344158290L;
+
+	/**
+	 * The candidates
+	 */
+	CellListField.Entry[] entries = new CellListField.Entry[8];
+	int num;
+	/**
+	 * The reach the list was built for -- negative as long as the list was never built
+	 */
+	double reach = -1;
+	/**
+	 * The position and the additional distance the list was built for
+	 */
+	double x, y, pad;
+	/**
+	 * The generation of the field when the list was built
+	 */
+	int generation;
+	/**
+	 * The version of each level the list has seen
+	 */
+	int[] version;
+	/**
+	 * The candidates as a set -- null until the first lookup after a rebuild
+	 */
+	transient Set<CellListField.Entry> members;
+
+	/**
+	 * Forces a rebuild at the next query
+	 */
+	public void invalidate()
+	{
+		reach = -1;
+	}
+
+	boolean contains(CellListField.Entry e)
+	{
+		if (members == null)
+		{
+			members = Collections.newSetFromMap(new IdentityHashMap<CellListField.Entry, Boolean>());
+			for (int i=0; i<num; i++) members.add(entries[i]);
+		}
+		return members.contains(e);
+	}
+
+	void add(CellListField.Entry e)
+	{
+		if (num == entries.length)
+		{
+			CellListField.Entry[] n = new CellListField.Entry[num * 2];
+			System.arraycopy(entries, 0, n, 0, num);
+			entries = n;
+		}
+		entries[num++] = e;
+		if (members != null) members.add(e);
+	}
+
+	/**
+	 * Drops a removed neighbour from the set -- the caller drops it from the array
+	 */
+	void drop(CellListField.Entry e)
+	{
+		if (members != null) members.remove(e);
+	}
+
+	/**
+	 * Empties the list before a rebuild
+	 */
+	void clear()
+	{
+		for (int i=0; i<num; i++) entries[i] = null;
+		num = 0;
+		members = null;
+	}
+}
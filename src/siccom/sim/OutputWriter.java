@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
@@ -18,7 +19,7 @@ import sim.util.Bag;
  *
  */
 
-public class OutputWriter
+public class OutputWriter implements Serializable
 {
 
 	public static final long serialVersionUID = 6948161854909261168L;
@@ -32,6 +33,21 @@ public class OutputWriter
 	public DecimalFormat numform3 = new DecimalFormat("#000.###", usFS);
 	public DecimalFormat numform8 = new DecimalFormat("0000.0000", usFS);
 	public DecimalFormat percform = new DecimalFormat("00.0", usFS);
+
+	/**
+	 * The header of the grouped output
+	 */
+	public static final String GROUP_HEADER = "Step\tMonth\tYear\tName\tAbundance\tRelativeCover";
+	/**
+	 * The names of the months, padded to the same length but for the last two
+	 */
+	static final String[] MONTH_NAMES = {"January  ", "February ", "March    ", "April    ", "May      ", "June     ",
+		"July     ", "August   ", "September", "October  ", "November", "December"};
+	/**
+	 * The formats of the grouped output -- shared by all tables with its rows, so they are used by one thread at a time
+	 */
+	private static final DecimalFormat groupYearForm = new DecimalFormat("#000.###", new DecimalFormatSymbols(Locale.US));
+	private static final DecimalFormat groupCoverForm = new DecimalFormat("00.0", new DecimalFormatSymbols(Locale.US));
 	
 	/**
 	 * File for individual output
@@ -40,7 +56,7 @@ public class OutputWriter
 	/**
 	 * The print writer for the individual output file
 	 */
-	private PrintWriter indWriter;
+	private transient PrintWriter indWriter;
 	/**
 	 * File for grouped output
 	 */
@@ -48,7 +64,7 @@ public class OutputWriter
 	/**
 	 * The print writer for the grouped output file
 	 */
-	private PrintWriter groupWriter;
+	private transient PrintWriter groupWriter;
 	/**
 	 * The month as name
 	 */
@@ -64,9 +80,9 @@ public class OutputWriter
 	/**
 	 * The print writer for disturbance data
 	 */
-	private PrintWriter disWriter;
+	private transient PrintWriter disWriter;
 
-	private PrintWriter phaseWriter;
+	private transient PrintWriter phaseWriter;
 	private File  phaseOutFile;
 
 	/**
@@ -81,7 +97,8 @@ public class OutputWriter
 		
 		this.conf = sim.conf;
 
-		writeParameters();
+		// the runs of a sweep do not list their parameters
+		if (sim.results == null) writeParameters();
 		
 	}
 
@@ -107,7 +124,7 @@ public class OutputWriter
 			indWriter.write("Step\tMonth\tYear\tName\txPos\tyPos\tRadius\tDiameter\tSize\tAge\n");
 
 			groupWriter = new PrintWriter( new BufferedWriter(new FileWriter(groupOutFile)));
-			groupWriter.write("Step\tMonth\tYear\tName\tAbundance\tRelativeCover\n");			
+			groupWriter.write(GROUP_HEADER + "\n");
 			
 			disWriter = new PrintWriter( new BufferedWriter(new FileWriter(disOutFile)));
 			disWriter.write("Step\tMode\txLoc\tyLoc\tDiameter\n");
@@ -136,9 +153,9 @@ public class OutputWriter
 	{
 		disWriter.append( steps + "\t"  );  
 		disWriter.append( mode + "\t"  );  
-		disWriter.append( numform2.format(xLoc*Siccom.meterConv) + "\t");
-		disWriter.append( numform2.format(yLoc*Siccom.meterConv) + "\t");
-		disWriter.append( numform2.format(size*2*Siccom.meterConv) + "\n");
+		disWriter.append( numform2.format(xLoc*sim.meterConv) + "\t");
+		disWriter.append( numform2.format(yLoc*sim.meterConv) + "\t");
+		disWriter.append( numform2.format(size*2*sim.meterConv) + "\n");
 		disWriter.flush();
 	}
 	/**
@@ -172,9 +189,9 @@ public class OutputWriter
 			indWriter.append( mc.getName() + "\t");
 			indWriter.append( numform2.format(mc.xPos) + "\t");
 			indWriter.append( numform2.format(mc.yPos) + "\t");
-			indWriter.append( numform2.format(mc.radius*Siccom.resolution) + "\t");
-			indWriter.append( numform2.format(mc.diameter*Siccom.resolution) + "\t");
-			indWriter.append( numform8.format(mc.getSize()*Math.pow(Siccom.resolution, 2.0)) + "\t");
+			indWriter.append( numform2.format(mc.radius*sim.resolution) + "\t");
+			indWriter.append( numform2.format(mc.diameter*sim.resolution) + "\t");
+			indWriter.append( numform8.format(mc.getSize()*Math.pow(sim.resolution, 2.0)) + "\t");
 			indWriter.append( mc.getAge() + "\n");
 		}
 		
@@ -188,9 +205,9 @@ public class OutputWriter
 			indWriter.append( bc.getName() + "\t");
 			indWriter.append( numform2.format(bc.xPos) + "\t");
 			indWriter.append( numform2.format(bc.yPos) + "\t");
-			indWriter.append( numform2.format(bc.radius*Siccom.resolution) + "\t");
-			indWriter.append( numform2.format(bc.diameter*Siccom.resolution) + "\t");
-			indWriter.append( numform8.format(bc.getSize()*Math.pow(Siccom.resolution, 2.0)) + "\t");
+			indWriter.append( numform2.format(bc.radius*sim.resolution) + "\t");
+			indWriter.append( numform2.format(bc.diameter*sim.resolution) + "\t");
+			indWriter.append( numform8.format(bc.getSize()*Math.pow(sim.resolution, 2.0)) + "\t");
 			indWriter.append( bc.getAge() + "\n");
 			
 		}
@@ -203,18 +220,7 @@ public class OutputWriter
 	 */
 	private String getMonth(int steps) 
 	{
-		if (steps%12  == 0) month = "January  ";
-		if (steps%12  == 1) month = "February ";
-		if (steps%12  == 2) month = "March    ";
-		if (steps%12  == 3) month = "April    ";
-		if (steps%12  == 4) month = "May      ";
-		if (steps%12  == 5) month = "June     ";
-		if (steps%12  == 6) month = "July     ";
-		if (steps%12  == 7) month = "August   ";
-		if (steps%12  == 8) month = "September";
-		if (steps%12  == 9) month = "October  ";
-		if (steps%12  == 10) month = "November";
-		if (steps%12  == 11) month = "December";
+		month = MONTH_NAMES[steps%12];
 		return month;
 	}
 	
@@ -230,40 +236,29 @@ public class OutputWriter
 	public void groupedOutput(int steps)
 	{
 		for (MassiveGroup mG : sim.maCoGroups)
-		{
-			groupWriter.append( steps + "\t"  );  
-			groupWriter.append( getMonth(steps) +"\t"  );  
-			groupWriter.append(  numform3.format(getYear(steps)) + "\t" );
-			if (mG.name.length() >= 8) groupWriter.append( mG.name + "\t");
-			else 	groupWriter.append( mG.name + "\t");
-			groupWriter.append(mG.getNum() + "\t");
-			groupWriter.append(percform.format(mG.getCover()) + "\n");
-//			groupWriter.append(sim.rugosity + "\n");
-			
-		}
+			groupWriter.append(groupRow(steps, mG.name, mG.getNum(), mG.getCover()));
 		
 		for (BranchingGroup bG : sim.braCoGroups)
-		{
-			groupWriter.append( steps + "\t"  );  
-			groupWriter.append( getMonth(steps) +"\t"  );  
-			groupWriter.append(  numform3.format(getYear(steps)) + "\t" );
-			if (bG.name.length() >= 8) groupWriter.append( bG.name + "\t");
-			else 	groupWriter.append( bG.name + "\t");
-			groupWriter.append(bG.getNum() + "\t");
-			groupWriter.append(percform.format(bG.getCover()) + "\n");
-//			groupWriter.append(sim.rugosity + "\n");
-		}
+			groupWriter.append(groupRow(steps, bG.name, bG.getNum(), bG.getCover()));
 		
-		groupWriter.append( steps + "\t"  );  
-		groupWriter.append( getMonth(steps) +"\t"  );  
-		groupWriter.append(  numform3.format(getYear(steps)) + "\t" );
-		groupWriter.append( "Algae" + "\t");
-		groupWriter.append( sim.numAlgae + "\t");
-		groupWriter.append(percform.format(sim.algalCoverPercent) + "\n");
-//		groupWriter.append(sim.rugosity + "\n");
+		groupWriter.append(groupRow(steps, "Algae", sim.numAlgae, sim.algalCoverPercent));
 		groupWriter.flush();
 	}
 	
+	/**
+	 * Passes one row of the grouped output -- also the rows of the tables of {@link SweepResults} and {@link ReefTiles}
+	 * @param steps the count of steps
+	 * @param name the name of the group
+	 * @param num the number of individuals
+	 * @param cover the relative cover in percent
+	 * @return step, month, year, name, abundance and relative cover, separated by tabs, with a line feed
+	 */
+	public static synchronized String groupRow(int steps, String name, int num, double cover)
+	{
+		return steps + "\t" + MONTH_NAMES[steps%12] + "\t" + groupYearForm.format(steps/12.0) + "\t"
+				+ name + "\t" + num + "\t" + groupCoverForm.format(cover) + "\n";
+	}
+	
 	/**
 	 * Write out the parameter settings to the simulation output file
 	 */
@@ -273,22 +268,22 @@ public class OutputWriter
 		System.out.println("---------------  PARAMETERS  ---------------");
 		System.out.println();
 		System.out.println("Main Parameters");
-		System.out.println( (int)(Siccom.gridWidth* Siccom.meterConv) + "\t|\t" + "areaWidth" + "\t|\t ---" ) ;
-		System.out.println( (int)(Siccom.gridHeight* Siccom.meterConv) + "\t|\t" + "areaHeight" + "\t|\t ---");
-		System.out.println(Siccom.resolution + "\t|\t" + "resolution" + "\t|\t ---");
-		System.out.println(Siccom.maCoGroupNum + "\t|\t" + "maCoNum " + "\t|\t ---");
-		System.out.println(Siccom.braCoGroupNum + "\t|\t" + "braCoNum" + "\t|\t ---");
-		System.out.println(Siccom.indivOutInter + "\t|\t" + "indivOutInter" + "\t|\t ---");
+		System.out.println( (int)(sim.gridWidth* sim.meterConv) + "\t|\t" + "areaWidth" + "\t|\t ---" ) ;
+		System.out.println( (int)(sim.gridHeight* sim.meterConv) + "\t|\t" + "areaHeight" + "\t|\t ---");
+		System.out.println(sim.resolution + "\t|\t" + "resolution" + "\t|\t ---");
+		System.out.println(sim.maCoGroupNum + "\t|\t" + "maCoNum " + "\t|\t ---");
+		System.out.println(sim.braCoGroupNum + "\t|\t" + "braCoNum" + "\t|\t ---");
+		System.out.println(sim.indivOutInter + "\t|\t" + "indivOutInter" + "\t|\t ---");
 		System.out.println();
 		
 		System.out.println("Environment Parameters");
-		System.out.println( sim.disturbMaxSize1*Siccom.meterConv + "\t|\t" + "disturbMaxSize1\t" + "\t|\t ---" );
-		System.out.println( sim.disturbMinSize1*Siccom.meterConv + "\t|\t" + "disturbMinSize1\t" + "\t|\t ---" );
+		System.out.println( sim.disturbMaxSize1*sim.meterConv + "\t|\t" + "disturbMaxSize1\t" + "\t|\t ---" );
+		System.out.println( sim.disturbMinSize1*sim.meterConv + "\t|\t" + "disturbMinSize1\t" + "\t|\t ---" );
 		System.out.println( sim.disturbMeanInterval1 + "\t|\t" + "disturbMeanInterval1" + "\t|\t ---" );
 		System.out.println( sim.disturbSDPercent1 + "\t|\t" + "disturbSDInterval1" + "\t|\t ---" );
 		System.out.println( sim.disturbMaxNumber1 + "\t|\t" + "disturbMaxNumber1" + "\t|\t ---" );
-		System.out.println( sim.disturbMaxSize2*Siccom.meterConv + "\t|\t" + "disturbMaxSize2\t" + "\t|\t ---" );
-		System.out.println( sim.disturbMinSize2*Siccom.meterConv + "\t|\t" + "disturbMinSize2\t" + "\t|\t ---" );
+		System.out.println( sim.disturbMaxSize2*sim.meterConv + "\t|\t" + "disturbMaxSize2\t" + "\t|\t ---" );
+		System.out.println( sim.disturbMinSize2*sim.meterConv + "\t|\t" + "disturbMinSize2\t" + "\t|\t ---" );
 		System.out.println( sim.disturbMeanInterval2 + "\t|\t" + "disturbMeanInterval2" + "\t|\t ---" );
 		System.out.println( sim.disturbSDPercent2 + "\t|\t" + "disturbSDInterval2" + "\t|\t ---" );
 		System.out.println( sim.disturbMaxNumber2 + "\t|\t" + "disturbMaxNumber2" + "\t|\t ---" );
@@ -302,21 +297,21 @@ public class OutputWriter
 		System.out.println( sim.maxRugosity + "\t|\t" + "maxRugosity" + "\t\t|\t ---" );
 		System.out.println( sim.disturbThreshold + "\t|\t" + "disturbThreshold" + "\t|\t ---" );
 		System.out.println( (Math.round((1 - sim.disFreqIncrease)*100)) + "\t|\t" + "disFreqIncrease" + "\t\t|\t ---" );
-		System.out.println( (int)(sim.turfResolution*Siccom.meterConv) + "\t|\t" + "turfResolution\t" + "\t|\t ---" );
+		System.out.println( (int)(sim.turfResolution*sim.meterConv) + "\t|\t" + "turfResolution\t" + "\t|\t ---" );
 		System.out.println();
 		
 		System.out.println("Algae Parameters");
 		System.out.println("Alga\t|\tname\t\t" + "\t|\t ---" );
-		System.out.println( conf.aMaxRadius*Siccom.resolution + "\t|\t" + "aMaxRadius\t" + "\t|\t ---" );
-		System.out.println( conf.aMaxHeight*Siccom.resolution + "\t|\t" + "aMaxHeight\t" + "\t|\t ---" );
+		System.out.println( conf.aMaxRadius*sim.resolution + "\t|\t" + "aMaxRadius\t" + "\t|\t ---" );
+		System.out.println( conf.aMaxHeight*sim.resolution + "\t|\t" + "aMaxHeight\t" + "\t|\t ---" );
 		System.out.println( conf.algaMaxAge + "\t|\t" + "algaMaxAge\t" + "\t|\t ---" );
-		System.out.println( conf.aGrowthRate*Siccom.resolution*10 + "\t|\t" + "aGrowthRate\t" + "\t|\t ---" );
-		System.out.println( conf.aFragmentationHeight*Siccom.resolution + "\t|\t" + "aFragmentationHeight" + "\t|\t ---" );
+		System.out.println( conf.aGrowthRate*sim.resolution*10 + "\t|\t" + "aGrowthRate\t" + "\t|\t ---" );
+		System.out.println( conf.aFragmentationHeight*sim.resolution + "\t|\t" + "aFragmentationHeight" + "\t|\t ---" );
 		System.out.println( conf.aMaxFragNum + "\t|\t" + "aMaxFragNum\t" + "\t|\t ---" );
-		System.out.println( conf.aFragmentSize*Siccom.resolution + "\t|\t" + "aFragmentSize\t" + "\t|\t ---" );
-		System.out.println( conf.aFragRange*Siccom.meterConv + "\t|\t" + "aFragRange\t" + "\t|\t ---" );
+		System.out.println( conf.aFragmentSize*sim.resolution + "\t|\t" + "aFragmentSize\t" + "\t|\t ---" );
+		System.out.println( conf.aFragRange*sim.meterConv + "\t|\t" + "aFragRange\t" + "\t|\t ---" );
 		System.out.println( conf.algalCoverPercent + "\t|\t" + "algalCoverPercent" + "\t|\t ---" );
-		System.out.println( conf.algaRecRad*Siccom.resolution + "\t|\t" + "algaRecRad\t" + "\t|\t ---" );
+		System.out.println( conf.algaRecRad*sim.resolution + "\t|\t" + "algaRecRad\t" + "\t|\t ---" );
 		System.out.println( conf.algaRecFirst + "\t|\t" + "algaRecFirst\t" + "\t|\t ---" );
 		System.out.println( conf.algaRecInterval + "\t|\t" + "algaRecInterval\t" + "\t|\t ---" );
 		System.out.println( conf.algaRecNumPerSqM + "\t|\t" + "algaRecNumPerSqM" + "\t|\t ---" );
@@ -328,18 +323,18 @@ public class OutputWriter
 			System.out.println( mg.name + "\t\t|\t" + "name\t\t" + "\t|\t ---" );
 			System.out.println( mg.colorString + "\t\t\t|\t" + "color\t\t" + "\t|\t ---" );
 			System.out.println( mg.CI + "\t\t\t|\t" + "CI\t\t" + "\t|\t ---" );
-			System.out.println( mg.maxIniRadius*Siccom.resolution + "\t\t\t|\t" + "maxIniRadius\t" + "\t|\t ---" );
-			System.out.println( mg.maxRadius*Siccom.resolution + "\t\t\t|\t" + "maxRadius\t" + "\t|\t ---" );
-			System.out.println( numform2.format(mg.growthRate/Siccom.growthConv) + "\t\t\t|\t" + "growthRate\t" + "\t|\t ---" );
+			System.out.println( mg.maxIniRadius*sim.resolution + "\t\t\t|\t" + "maxIniRadius\t" + "\t|\t ---" );
+			System.out.println( mg.maxRadius*sim.resolution + "\t\t\t|\t" + "maxRadius\t" + "\t|\t ---" );
+			System.out.println( numform2.format(mg.growthRate/sim.growthConv) + "\t\t\t|\t" + "growthRate\t" + "\t|\t ---" );
 			System.out.println( numform2.format(mg.coverPercent) + "\t\t\t|\t" + "coveredArea\t" + "\t|\t ---" );
-			System.out.println( mg.diamAtMaturity*Siccom.resolution + "\t\t\t|\t" + "diamAtMaturity\t" + "\t|\t ---" );
+			System.out.println( mg.diamAtMaturity*sim.resolution + "\t\t\t|\t" + "diamAtMaturity\t" + "\t|\t ---" );
 			System.out.println( mg.surfaceFactor + "\t\t\t|\t" + "surfaceFactor\t" + "\t|\t ---" );
 			System.out.println( mg.propagulesPerSqCm + "\t\t\t|\t" + "propagulesPerSqCm" + "\t|\t ---" );
 			System.out.println( mg.retainFactor + "\t\t\t|\t" + "retainFactor\t" + "\t|\t ---" );
-			System.out.println( mg.recRad*Siccom.resolution + "\t\t\t|\t" + "recRad\t\t" + "\t|\t ---" );
+			System.out.println( mg.recRad*sim.resolution + "\t\t\t|\t" + "recRad\t\t" + "\t|\t ---" );
 			System.out.println( mg.recFirst + "\t\t\t|\t" + "recFirst\t" + "\t|\t ---" );
 			System.out.println( mg.recInterval + "\t\t\t|\t" + "recInterval\t" + "\t|\t ---" );
-			System.out.println( mg.fixRecImport/(Siccom.areaWidth*Siccom.areaHeight) + "\t\t\t|\t" + "recNumberPerSqM\t" + "\t|\t ---" );
+			System.out.println( mg.fixRecImport/(sim.areaWidth*sim.areaHeight) + "\t\t\t|\t" + "recNumberPerSqM\t" + "\t|\t ---" );
 			System.out.println( mg.minBleachTemp + "\t\t\t|\t" + "minBleachTemp\t" + "\t|\t ---" );
 			System.out.println( mg.maxBleachTemp + "\t\t\t|\t" + "maxBleachTemp\t" + "\t|\t ---" );
 			System.out.println( mg.minDeathTemp + "\t\t\t|\t" + "minDeathTemp\t" + "\t|\t ---" );
@@ -353,18 +348,18 @@ public class OutputWriter
 			System.out.println( mg.name + "\t|\t" + "name\t\t" + "\t|\t ---" );
 			System.out.println( mg.colorString + "\t\t\t|\t" + "color\t\t" + "\t|\t ---" );
 			System.out.println( mg.CI + "\t\t\t|\t" + "CI\t\t" + "\t|\t ---" );
-			System.out.println( mg.maxIniRadius*Siccom.resolution + "\t\t\t|\t" + "maxIniRadius\t" + "\t|\t ---" );
-			System.out.println( mg.maxRadius*Siccom.resolution + "\t\t\t|\t" + "maxRadius\t" + "\t|\t ---" );
-			System.out.println( numform2.format(mg.growthRate/Siccom.growthConv) + "\t\t\t|\t" + "growthRate\t" + "\t|\t ---" );
+			System.out.println( mg.maxIniRadius*sim.resolution + "\t\t\t|\t" + "maxIniRadius\t" + "\t|\t ---" );
+			System.out.println( mg.maxRadius*sim.resolution + "\t\t\t|\t" + "maxRadius\t" + "\t|\t ---" );
+			System.out.println( numform2.format(mg.growthRate/sim.growthConv) + "\t\t\t|\t" + "growthRate\t" + "\t|\t ---" );
 			System.out.println( numform2.format(mg.coverPercent) + "\t\t\t|\t" + "coveredArea\t" + "\t|\t ---" );
-			System.out.println( mg.diamAtMaturity*Siccom.resolution + "\t\t\t|\t" + "diamAtMaturity\t" + "\t|\t ---" );
+			System.out.println( mg.diamAtMaturity*sim.resolution + "\t\t\t|\t" + "diamAtMaturity\t" + "\t|\t ---" );
 			System.out.println( mg.surfaceFactor + "\t\t\t|\t" + "surfaceFactor\t" + "\t|\t ---" );
 			System.out.println( mg.propagulesPerSqCm + "\t\t\t|\t" + "propagulesPerSqCm" + "\t|\t ---" );
 			System.out.println( mg.retainFactor + "\t\t\t|\t" + "retainFactor\t" + "\t|\t ---" );
-			System.out.println( mg.recRad*Siccom.resolution + "\t\t\t|\t" + "recRad\t\t" + "\t|\t ---" );
+			System.out.println( mg.recRad*sim.resolution + "\t\t\t|\t" + "recRad\t\t" + "\t|\t ---" );
 			System.out.println( mg.recFirst + "\t\t\t|\t" + "recFirst\t" + "\t|\t ---" );
 			System.out.println( mg.recInterval + "\t\t\t|\t" + "recInterval\t" + "\t|\t ---" );
-			System.out.println( mg.fixRecImport/(Siccom.areaWidth*Siccom.areaHeight) + "\t\t\t|\t" + "recNumberPerSqM\t" + "\t|\t ---" );
+			System.out.println( mg.fixRecImport/(sim.areaWidth*sim.areaHeight) + "\t\t\t|\t" + "recNumberPerSqM\t" + "\t|\t ---" );
 			System.out.println( mg.minBleachTemp + "\t\t\t|\t" + "minBleachTemp\t" + "\t|\t ---" );
 			System.out.println( mg.maxBleachTemp + "\t\t\t|\t" + "maxBleachTemp\t" + "\t|\t ---" );
 			System.out.println( mg.minDeathTemp + "\t\t\t|\t" + "minDeathTemp\t" + "\t|\t ---" );
@@ -0,0 +1,158 @@
+package siccom.sim;
+
+/**
+ * The geometry used for the overlap of colonies and algae -- static methods on primitive values only.
+ * <li>{@link #lensArea(double, double, double)} -- the area two overlapping circles have in common</li>
+ * <li>{@link #engulfs(double, double, double)} -- one circle covers the other completely</li>
+ * <li>{@link #circleContains(double, double, double, double, double)} -- a point, e.g. a branch end, lies within a circle</li>
+ * <li>{@link #circleIntersects(double, double, double, double, double, double, double)} and
+ * {@link #circleContains(double, double, double, double, double, double, double)} -- a circle and a rectangle, e.g. a turf cell</li>
+ * <li>{@link #lensAreas(double[], double[], double[], double[], int)} -- the lens areas of many pairs at once</li>
+ *
+ * The methods give exactly the values of the former inline computations,
+ * so the simulation results do not change.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public final class OverlapGeometry
+{
+	private OverlapGeometry()
+	{
+	}
+
+	/**
+	 * Computes the area two overlapping circles have in common
+	 * @param r1 the radius of the first circle
+	 * @param r2 the radius of the second circle
+	 * @param dist the distance of the centers
+	 * @return the area -- NaN if one circle lies within the other or the circles do not overlap
+	 */
+	public static double lensArea(double r1, double r2, double dist)
+	{
+		double r, R;
+		if (r2 > r1)
+		{
+			r = r1;
+			R = r2;
+		}
+		else
+		{
+			r = r2;
+			R = r1;
+		}
+
+		double part1 = r*r*Math.acos((dist*dist + r*r - R*R)/(2*dist*r));
+		double part2 = R*R*Math.acos((dist*dist + R*R - r*r)/(2*dist*R));
+		double part3 = 0.5*Math.sqrt((-dist+r+R)*(dist+r-R)*(dist-r+R)*(dist+r+R));
+
+		return part1 + part2 - part3;
+	}
+
+	/**
+	 * Computes the lens areas of a number of circle pairs.
+	 * The loop works on plain arrays only and does not branch, so the JIT may unroll it.
+	 * @param r1 the radii of the first circles
+	 * @param r2 the radii of the second circles
+	 * @param dist the distances of the centers
+	 * @param area receives the areas -- see {@link #lensArea(double, double, double)}
+	 * @param num the number of pairs
+	 */
+	public static void lensAreas(double[] r1, double[] r2, double[] dist, double[] area, int num)
+	{
+		for (int i=0; i<num; i++)
+		{
+			double r = Math.min(r1[i], r2[i]);
+			double R = Math.max(r1[i], r2[i]);
+			double d = dist[i];
+
+			double part1 = r*r*Math.acos((d*d + r*r - R*R)/(2*d*r));
+			double part2 = R*R*Math.acos((d*d + R*R - r*r)/(2*d*R));
+			double part3 = 0.5*Math.sqrt((-d+r+R)*(d+r-R)*(d-r+R)*(d+r+R));
+
+			area[i] = part1 + part2 - part3;
+		}
+	}
+
+	/**
+	 * @param rOuter the radius of the covering circle
+	 * @param rInner the radius of the covered circle
+	 * @param dist the distance of the centers
+	 * @return true if the first circle covers the second one completely
+	 */
+	public static boolean engulfs(double rOuter, double rInner, double dist)
+	{
+		return rOuter > rInner + dist;
+	}
+
+	/**
+	 * Tests whether a point lies within a circle --
+	 * the same test as new Ellipse2D.Double(ulX, ulY, diameter, diameter).contains(px, py)
+	 * @param ulX the x-position of the upper left corner of the bounding box
+	 * @param ulY the y-position of the upper left corner of the bounding box
+	 * @param diameter the diameter of the circle
+	 * @param px the x-position of the point
+	 * @param py the y-position of the point
+	 * @return true if the point lies within the circle
+	 */
+	public static boolean circleContains(double ulX, double ulY, double diameter, double px, double py)
+	{
+		if (diameter <= 0.0) return false;
+		double normx = (px - ulX) / diameter - 0.5;
+		double normy = (py - ulY) / diameter - 0.5;
+		return (normx * normx + normy * normy) < 0.25;
+	}
+
+	/**
+	 * Tests whether a circle and a rectangle overlap --
+	 * the same test as new Ellipse2D.Double(ulX, ulY, diameter, diameter).intersects(x, y, w, h)
+	 * @param ulX the x-position of the upper left corner of the bounding box of the circle
+	 * @param ulY the y-position of the upper left corner of the bounding box of the circle
+	 * @param diameter the diameter of the circle
+	 * @param x the x-position of the upper left corner of the rectangle
+	 * @param y the y-position of the upper left corner of the rectangle
+	 * @param w the width of the rectangle
+	 * @param h the height of the rectangle
+	 * @return true if the circle and the rectangle overlap
+	 */
+	public static boolean circleIntersects(double ulX, double ulY, double diameter, double x, double y, double w, double h)
+	{
+		if (w <= 0.0 || h <= 0.0 || diameter <= 0.0) return false;
+		double normx0 = (x - ulX) / diameter - 0.5;
+		double normx1 = normx0 + w / diameter;
+		double normy0 = (y - ulY) / diameter - 0.5;
+		double normy1 = normy0 + h / diameter;
+
+		double nearx, neary;
+		if (normx0 > 0.0) nearx = normx0;
+		else if (normx1 < 0.0) nearx = normx1;
+		else nearx = 0.0;
+		if (normy0 > 0.0) neary = normy0;
+		else if (normy1 < 0.0) neary = normy1;
+		else neary = 0.0;
+		return (nearx * nearx + neary * neary) < 0.25;
+	}
+
+	/**
+	 * Tests whether a rectangle lies within a circle --
+	 * the same test as new Ellipse2D.Double(ulX, ulY, diameter, diameter).contains(x, y, w, h)
+	 * @return true if all corners of the rectangle lie within the circle
+	 */
+	public static boolean circleContains(double ulX, double ulY, double diameter, double x, double y, double w, double h)
+	{
+		return circleContains(ulX, ulY, diameter, x, y)
+			&& circleContains(ulX, ulY, diameter, x + w, y)
+			&& circleContains(ulX, ulY, diameter, x, y + h)
+			&& circleContains(ulX, ulY, diameter, x + w, y + h);
+	}
+
+	/**
+	 * @return the distance between two points
+	 */
+	public static double distance(double x1, double y1, double x2, double y2)
+	{
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+}
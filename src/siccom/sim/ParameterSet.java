@@ -0,0 +1,154 @@
+package siccom.sim;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parameters of one run -- the parameter files together with the values which replace some of theirs.
+ * <li>A value is named by the parameter file and its key, e.g. <i>environment.grazingProb</i> or <i>maCoParam1.growthRate</i>.</li>
+ * <li>The files are read only once from the folder of the set and are shared by all sets which are derived from it,
+ * so the runs of a sweep do not touch the disk but for the temperature data.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class ParameterSet implements Serializable
+{
+	private static final long serialVersionUID = -6180455132468803416L;
+
+	/**
+	 * The folder of the parameter files -- null for the inf-folder next to the program
+	 */
+	File infDir;
+	/**
+	 * The parameter files read so far, by file name
+	 */
+	private transient Map<String, ParameterFile> files;
+	/**
+	 * The values which replace the ones of the files, by file and key
+	 */
+	public LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+
+	/**
+	 * Constructor
+	 * @param infDir the folder of the parameter files -- null for the inf-folder next to the program
+	 */
+	public ParameterSet(File infDir)
+	{
+		this.infDir = infDir;
+		files = new HashMap<String, ParameterFile>();
+	}
+
+	/**
+	 * @return a new set with the same files and values -- the files are shared
+	 */
+	public ParameterSet derive()
+	{
+		ParameterSet set = new ParameterSet(infDir);
+		set.files = getFiles();
+		set.values.putAll(values);
+		return set;
+	}
+
+	/**
+	 * Sets a value which replaces the one of the file
+	 * @param name the file and the key, e.g. environment.grazingProb
+	 * @param value the value
+	 */
+	public void setValue(String name, String value)
+	{
+		if (name.indexOf('.') <= 0) throw new IllegalArgumentException("parameter must be named file.key: " + name);
+		values.put(name, value);
+	}
+
+	/**
+	 * @param fileName the name of the parameter file, with or without extension
+	 * @param key the key of the value
+	 * @return the value which replaces the one of the file -- null if there is none
+	 */
+	public String getValue(String fileName, String key)
+	{
+		if (values.isEmpty()) return null;
+		int ext = fileName.lastIndexOf('.');
+		if (ext > 0) fileName = fileName.substring(0, ext);
+		return values.get(fileName + "." + key);
+	}
+
+	/**
+	 * Passes a parameter file -- it is read at the first request
+	 * @param fileName the file name with extension
+	 * @return the parameter file
+	 */
+	ParameterFile getParameterFile(String fileName) throws IOException
+	{
+		Map<String, ParameterFile> files = getFiles();
+		synchronized (files)
+		{
+			ParameterFile pf = files.get(fileName);
+			if (pf == null)
+			{
+				File file = infDir != null ? new File(infDir, fileName) : new File(Config.getLocalFileName(fileName));
+				if (!file.isFile()) throw new IOException(file + " could not be found");
+
+				InputStreamReader in = new InputStreamReader(new FileInputStream(file));
+				try
+				{
+					pf = new ParameterFile(in, fileName, true);
+				}
+				finally
+				{
+					in.close();
+				}
+				files.put(fileName, pf);
+			}
+			return pf;
+		}
+	}
+
+	/**
+	 * Checks that every value replaces one of a file which a simulation reads with these parameters
+	 * -- e.g. a misspelt key or the file of a coral group beyond the number of groups would be ignored.
+	 * @throws IllegalArgumentException for a value whose file is not read or has no such key
+	 */
+	public void checkNames()
+	{
+		// the main file tells which files are read
+		Siccom probe = new Siccom(0, derive());
+		List<String> fileNames = probe.conf.parameterFileNames();
+		try
+		{
+			for (String name : values.keySet())
+			{
+				int dot = name.indexOf('.');
+				String fileName = name.substring(0, dot) + Config.infoFileExtension;
+				String key = name.substring(dot + 1);
+				if (!fileNames.contains(fileName))
+					throw new IllegalArgumentException(name + ": " + fileName + " is not read with these parameters");
+				if (!getParameterFile(fileName).getOrderedKeys().contains(key))
+					throw new IllegalArgumentException(name + ": " + fileName + " has no entry " + key);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("parameters could not be read: " + e.getMessage());
+		}
+	}
+
+	private synchronized Map<String, ParameterFile> getFiles()
+	{
+		if (files == null) files = new HashMap<String, ParameterFile>();
+		return files;
+	}
+
+	public String toString()
+	{
+		return values.toString();
+	}
+}
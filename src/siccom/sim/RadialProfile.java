@@ -0,0 +1,264 @@
+package siccom.sim;
+
+import java.io.Serializable;
+
+import org.jhotdraw.geom.Polygon2D;
+
+/**
+ * The shape of a massive coral colony as a radial profile --
+ * the lengths of its axial rays at fixed angles around the center.
+ * <li>The outline is the polygon through the ray ends, which is star-shaped around the center.
+ * Thus a point lies within the shape if it lies within the triangle of the center and the two rays
+ * enclosing its angle -- one sector test instead of a point-in-polygon test over all corners.</li>
+ * <li>The ray ends are kept in primitive arrays and updated in place, so growth creates no objects.</li>
+ *
+ * The corners are computed exactly like the corners of the former polygon shape,
+ * see {@link #toPolygon()}.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class RadialProfile implements Serializable
+{
+	private static final long serialVersionUID = 7730945128416653019L;
+
+	/**
+	 * The center
+	 */
+	double cx, cy;
+	/**
+	 * The number of rays
+	 */
+	int n;
+	/**
+	 * The direction of each ray -- ray i points at the angle (2*PI/n)*(i+1), like the branches of a colony
+	 */
+	private transient double[] cos, sin;
+	/**
+	 * The ray ends
+	 */
+	double[] xs, ys;
+	/**
+	 * The bounding box of the ray ends
+	 */
+	double minX, minY, maxX, maxY;
+	/**
+	 * The radius of the largest circle around the center which lies within the shape
+	 */
+	double inner;
+
+	/**
+	 * Constructor -- all rays have length 0
+	 * @param cx the x-position of the center
+	 * @param cy the y-position of the center
+	 * @param n the number of rays
+	 */
+	public RadialProfile(double cx, double cy, int n)
+	{
+		this.cx = cx;
+		this.cy = cy;
+		this.n = n;
+
+		xs = new double[n];
+		ys = new double[n];
+		for (int i=0; i<n; i++)
+		{
+			xs[i] = cx;
+			ys[i] = cy;
+		}
+		minX = maxX = cx;
+		minY = maxY = cy;
+	}
+
+	/**
+	 * Sets the length of a ray -- call {@link #update()} after the last ray is set
+	 * @param i the index of the ray
+	 * @param length the new length
+	 */
+	public void set(int i, double length)
+	{
+		if (cos == null)
+		{
+			double[][] d = Branches.getDirections(n);
+			cos = d[0];
+			sin = d[1];
+		}
+		xs[i] = cx + (length*cos[i]);
+		ys[i] = cy - (length*sin[i]);
+	}
+
+	/**
+	 * Takes the rays of another profile with the same number of rays, shifted to the own center
+	 * -- for the ghost of a colony, see {@link ReefTiles}
+	 * @param other the profile to copy
+	 */
+	void copy(RadialProfile other)
+	{
+		double dx = cx - other.cx;
+		double dy = cy - other.cy;
+		for (int i=0; i<n; i++)
+		{
+			xs[i] = other.xs[i] + dx;
+			ys[i] = other.ys[i] + dy;
+		}
+		minX = other.minX + dx;
+		maxX = other.maxX + dx;
+		minY = other.minY + dy;
+		maxY = other.maxY + dy;
+		inner = other.inner;
+	}
+
+	/**
+	 * Updates the bounding box and the inner radius after the rays were set
+	 */
+	public void update()
+	{
+		minX = maxX = xs[0];
+		minY = maxY = ys[0];
+		inner = Double.MAX_VALUE;
+		for (int i=0; i<n; i++)
+		{
+			if (xs[i] < minX) minX = xs[i];
+			if (xs[i] > maxX) maxX = xs[i];
+			if (ys[i] < minY) minY = ys[i];
+			if (ys[i] > maxY) maxY = ys[i];
+
+			// distance of the center to the edge from ray i to the next one
+			int j = (i+1) % n;
+			double ex = xs[j] - xs[i];
+			double ey = ys[j] - ys[i];
+			double len = ex*ex + ey*ey;
+			double t = len > 0 ? ((cx - xs[i])*ex + (cy - ys[i])*ey) / len : 0;
+			if (t < 0) t = 0;
+			else if (t > 1) t = 1;
+			double dx = xs[i] + t*ex - cx;
+			double dy = ys[i] + t*ey - cy;
+			double d = Math.sqrt(dx*dx + dy*dy);
+			if (d < inner) inner = d;
+		}
+	}
+
+	/**
+	 * Tests whether a point lies within the shape
+	 * @param px the x-position of the point
+	 * @param py the y-position of the point
+	 * @return true if the point lies within the shape
+	 */
+	public boolean contains(double px, double py)
+	{
+		if (px < minX || px > maxX || py < minY || py > maxY) return false;
+
+		// the sector enclosing the angle of the point -- the y-axis points downwards
+		double step = 2*Math.PI/n;
+		double angle = Math.atan2(cy - py, px - cx);
+		if (angle < 0) angle += 2*Math.PI;
+		int a = (int)(angle / step);
+		if (a >= n) a = n-1;
+
+		int i = Math.floorMod(a - 1, n);
+		int j = (i+1) % n;
+
+		double ex = xs[j] - xs[i];
+		double ey = ys[j] - ys[i];
+		double sideC = ex*(cy - ys[i]) - ey*(cx - xs[i]);
+		double sideP = ex*(py - ys[i]) - ey*(px - xs[i]);
+		return sideC > 0 ? sideP > 0 : sideC < 0 && sideP < 0;
+	}
+
+	/**
+	 * Tests whether the shape and a rectangle overlap
+	 * @param x the x-position of the upper left corner of the rectangle
+	 * @param y the y-position of the upper left corner of the rectangle
+	 * @param w the width of the rectangle
+	 * @param h the height of the rectangle
+	 * @return true if the interiors of the shape and the rectangle overlap
+	 */
+	public boolean intersects(double x, double y, double w, double h)
+	{
+		if (w <= 0 || h <= 0) return false;
+		if (x >= maxX || x + w <= minX || y >= maxY || y + h <= minY) return false;
+
+		if (contains(x, y) || contains(x+w, y) || contains(x, y+h) || contains(x+w, y+h)) return true;
+		for (int i=0; i<n; i++)
+		{
+			int j = (i+1) % n;
+			if (crossesRectangle(xs[i], ys[i], xs[j], ys[j], x, y, w, h)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Tests whether a rectangle lies entirely within the shape
+	 * @param x the x-position of the upper left corner of the rectangle
+	 * @param y the y-position of the upper left corner of the rectangle
+	 * @param w the width of the rectangle
+	 * @param h the height of the rectangle
+	 * @return true if the rectangle lies within the shape
+	 */
+	public boolean contains(double x, double y, double w, double h)
+	{
+		if (w <= 0 || h <= 0) return false;
+		if (!(contains(x, y) && contains(x+w, y) && contains(x, y+h) && contains(x+w, y+h))) return false;
+
+		// the corners lie within the inner circle -- so does the whole rectangle
+		double dx = Math.max(Math.abs(x - cx), Math.abs(x + w - cx));
+		double dy = Math.max(Math.abs(y - cy), Math.abs(y + h - cy));
+		if (dx*dx + dy*dy < inner*inner) return true;
+
+		for (int i=0; i<n; i++)
+		{
+			int j = (i+1) % n;
+			if (crossesRectangle(xs[i], ys[i], xs[j], ys[j], x, y, w, h)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return a polygon through the ray ends -- only for drawing and other shape operations
+	 */
+	public Polygon2D.Double toPolygon()
+	{
+		Polygon2D.Double p = new Polygon2D.Double();
+		for (int i=0; i<n; i++) p.addPoint(xs[i], ys[i]);
+		return p;
+	}
+
+	/**
+	 * Tests whether a line segment passes through the interior of a rectangle
+	 */
+	static boolean crossesRectangle(double x0, double y0, double x1, double y1,
+									double x, double y, double w, double h)
+	{
+		// the segment is x0 + t*dx, y0 + t*dy with t in [0,1] -- clip t against the open rectangle
+		double lo = Double.NEGATIVE_INFINITY;
+		double hi = Double.POSITIVE_INFINITY;
+
+		double dx = x1 - x0;
+		if (dx == 0)
+		{
+			if (x0 <= x || x0 >= x + w) return false;
+		}
+		else
+		{
+			double a = (x - x0) / dx;
+			double b = (x + w - x0) / dx;
+			lo = Math.max(lo, Math.min(a, b));
+			hi = Math.min(hi, Math.max(a, b));
+		}
+
+		double dy = y1 - y0;
+		if (dy == 0)
+		{
+			if (y0 <= y || y0 >= y + h) return false;
+		}
+		else
+		{
+			double a = (y - y0) / dy;
+			double b = (y + h - y0) / dy;
+			lo = Math.max(lo, Math.min(a, b));
+			hi = Math.min(hi, Math.max(a, b));
+		}
+
+		return lo < hi && lo < 1 && hi > 0;
+	}
+}
@@ -0,0 +1,112 @@
+package siccom.sim;
+
+import java.io.Serializable;
+
+import sim.engine.SimState;
+
+/**
+ * A source of random numbers for one stochastic process -- handed out by {@link RandomStreams}.
+ * <li>A legacy stream draws from the random number generator of the simulation.</li>
+ * <li>A split stream is a SplitMix64 generator, whose start is derived from seed, month, process and id.
+ * Its numbers do not depend on any other draw of the simulation.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class RandomStream implements Serializable
+{
+	private static final long serialVersionUID = -8321409667153722350L;
+
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The simulation whose generator is used -- null for a split stream
+	 */
+	SimState legacy;
+	/**
+	 * The state of a split stream
+	 */
+	long state;
+	/**
+	 * The month the split stream was derived for
+	 */
+	long month;
+
+	/**
+	 * Constructor for a legacy stream
+	 * @param legacy the simulation whose generator is used
+	 */
+	RandomStream(SimState legacy)
+	{
+		this.legacy = legacy;
+	}
+
+	/**
+	 * Constructor for a split stream
+	 * @param key the start of the stream, see {@link RandomStreams#key(long, long, int, long)}
+	 * @param month the month the stream was derived for
+	 */
+	RandomStream(long key, long month)
+	{
+		state = key;
+		this.month = month;
+	}
+
+	/**
+	 * @return a double in [0, 1)
+	 */
+	public double nextDouble()
+	{
+		if (legacy != null) return legacy.random.nextDouble();
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * @param p the probability of true
+	 * @return true with the probability p
+	 */
+	public boolean nextBoolean(double p)
+	{
+		if (legacy != null) return legacy.random.nextBoolean(p);
+		if (p < 0.0 || p > 1.0) throw new IllegalArgumentException("probability must be between 0.0 and 1.0 inclusive. " + p);
+		if (p == 0.0) return false;
+		if (p == 1.0) return true;
+		return nextDouble() < p;
+	}
+
+	/**
+	 * @param n the bound -- must be positive
+	 * @return an int in [0, n)
+	 */
+	public int nextInt(int n)
+	{
+		if (legacy != null) return legacy.random.nextInt(n);
+		if (n <= 0) throw new IllegalArgumentException("n must be positive, got: " + n);
+
+		// the same rejection as java.util.Random -- no bias for any n
+		int bits, val;
+		do
+		{
+			bits = (int)(nextLong() >>> 33);
+			val = bits % n;
+		}
+		while (bits - val + (n-1) < 0);
+		return val;
+	}
+
+	private long nextLong()
+	{
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * The finalizer of SplitMix64
+	 */
+	static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
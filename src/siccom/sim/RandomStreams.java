@@ -0,0 +1,113 @@
+package siccom.sim;
+
+import java.io.Serializable;
+
+/**
+ * Hands out the random streams of the stochastic processes -- see {@link RandomStream}.
+ * <li>In the legacy mode every stream draws from the random number generator of the simulation,
+ * so the results depend on the order of all draws -- as ever.</li>
+ * <li>If {@link Siccom#splitStreams} is set, every process gets its own stream per month and agent, group or layer,
+ * keyed by seed, month, process and id. The numbers an agent draws do not depend on the order in which
+ * the agents are handled, so they stay the same if parts of a month are run in parallel.</li>
+ *
+ * The shuffling of the schedule, the initialisation, the temperature series and the disturbance intervals
+ * always draw from the generator of the simulation.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class RandomStreams implements Serializable
+{
+	private static final long serialVersionUID = 3097411282542750386L;
+
+	// THE PROCESSES
+	/**
+	 * Bleaching, bleaching death, fragmentation, breakage and turf mortality of a coral colony
+	 */
+	public static final int CORAL = 1;
+	/**
+	 * The interactions and the fragmentation of an alga
+	 */
+	public static final int ALGA = 2;
+	/**
+	 * The placement of the recruits of a massive coral group
+	 */
+	public static final int MASSIVE_RECRUITMENT = 3;
+	/**
+	 * The placement of the recruits of a branching coral group
+	 */
+	public static final int BRANCHING_RECRUITMENT = 4;
+	/**
+	 * The placement of the algal recruits
+	 */
+	public static final int ALGAL_RECRUITMENT = 5;
+	/**
+	 * The grazing of algae -- id 0 -- and turf -- id 1
+	 */
+	public static final int GRAZING = 6;
+	/**
+	 * The size and the placement of the disturbances -- the id is the number of the disturbance
+	 */
+	public static final int DISTURBANCE = 7;
+
+	Siccom sim;
+	/**
+	 * True if every process gets its own streams
+	 */
+	boolean split;
+	/**
+	 * The stream handed out in the legacy mode
+	 */
+	RandomStream legacy;
+
+	/**
+	 * Constructor
+	 * @param sim the simulation
+	 * @param split if true, every process gets its own streams
+	 */
+	public RandomStreams(Siccom sim, boolean split)
+	{
+		this.sim = sim;
+		this.split = split;
+		legacy = new RandomStream(sim);
+	}
+
+	/**
+	 * Passes the stream of a process in the current month
+	 * @param process the process, e.g. {@link #CORAL}
+	 * @param id the agent, group or layer
+	 * @return a new split stream or the legacy stream
+	 */
+	public RandomStream get(int process, long id)
+	{
+		if (!split) return legacy;
+		long month = (long) sim.schedule.getTime();
+		return new RandomStream(key(sim.seed(), month, process, id), month);
+	}
+
+	/**
+	 * Passes the stream of a process in the current month -- an agent which draws in several steps of a month
+	 * keeps its stream and passes it here again
+	 * @param process the process
+	 * @param id the agent
+	 * @param current the stream the agent got last -- may be null
+	 * @return the current stream if it belongs to this month, a new one otherwise
+	 */
+	public RandomStream get(int process, long id, RandomStream current)
+	{
+		if (!split) return legacy;
+		if (current != null && current.legacy == null && current.month == (long) sim.schedule.getTime()) return current;
+		return get(process, id);
+	}
+
+	/**
+	 * Derives the start of a stream -- every value is mixed in by the SplitMix64 finalizer
+	 */
+	static long key(long seed, long month, int process, long id)
+	{
+		long h = RandomStream.mix(seed + RandomStream.GOLDEN_GAMMA);
+		h = RandomStream.mix(h + month + RandomStream.GOLDEN_GAMMA);
+		h = RandomStream.mix(h + process + RandomStream.GOLDEN_GAMMA);
+		return RandomStream.mix(h + id + RandomStream.GOLDEN_GAMMA);
+	}
+}
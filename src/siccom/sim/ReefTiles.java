@@ -0,0 +1,497 @@
+package siccom.sim;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ec.util.MersenneTwisterFast;
+import sim.util.Bag;
+import sim.util.Double2D;
+
+/**
+ * Simulates a reef which is too large for one simulation as a grid of tiles -- each tile is an own {@link Siccom}
+ * of the size of the simulation area divided by the number of tiles.
+ * <li>The tiles are stepped in parallel, one month at a time.</li>
+ * <li>The colonies near the edge of a tile are copied into the neighbouring tiles as ghosts after each month,
+ * so the colonies of a tile interact with the ones across its edge. A ghost is neither stepped nor counted.</li>
+ * <li>Branching coral fragments and algae which settle outside their tile are moved into the tile they settled in.</li>
+ * <li>The disturbances are drawn for the whole reef and applied to every tile they hit,
+ * and all tiles share the temperature years and the year of the first bleaching event.</li>
+ *
+ * The grouped output is the one of the whole reef: the colonies are counted over all tiles and the cover is the mean of the tiles.
+ * The interaction is always the one of the single colonies, the pairwise interaction is not used for tiles.
+ *
+ * Usage: ReefTiles resultFile months tilesX tilesY seed [threads]
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class ReefTiles
+{
+	/**
+	 * The largest pad of the neighbour queries of colonies and algae, see {@link CellListField#getNeighbours(double, double, double, double, Bag)}
+	 */
+	static final double PAD = 10;
+
+	/**
+	 * The number of tiles along the width and the height of the reef
+	 */
+	int tilesX, tilesY;
+	/**
+	 * The tiles, row by row
+	 */
+	Siccom[] tiles;
+	/**
+	 * The width and the height of a tile in pixels
+	 */
+	double tileWidth, tileHeight;
+	/**
+	 * The ghosts of each tile by their originals
+	 */
+	List<Map<Object, Object>> ghosts = new ArrayList<Map<Object, Object>>();
+	/**
+	 * The colonies of each tile which are not ghosts -- taken before the ghosts are refreshed, see {@link #snapshot()}
+	 */
+	Bag[] maCoOriginals, braCoOriginals;
+	/**
+	 * The distance beyond the edge of each tile within which the colonies of its neighbours are copied
+	 */
+	double[] reach;
+	/**
+	 * The random number generator of the reef -- disturbances and climate
+	 */
+	MersenneTwisterFast random;
+	/**
+	 * The parameters of the disturbances, see {@link Siccom#dist1}, null if switched off
+	 */
+	double[] dist1, dist2;
+	/**
+	 * The month of the next disturbance of each kind
+	 */
+	long next1 = -1, next2 = -1;
+	ForkJoinPool pool;
+
+	/**
+	 * Constructor -- sets up and starts the tiles
+	 * @param base the parameters of the reef -- the simulation area is the one of the whole reef
+	 * @param seed the seed of the reef
+	 * @param tilesX the number of tiles along the width
+	 * @param tilesY the number of tiles along the height
+	 * @param months the number of months to be simulated
+	 * @param threads the number of threads
+	 */
+	public ReefTiles(ParameterSet base, long seed, int tilesX, int tilesY, int months, int threads)
+	{
+		this.tilesX = tilesX;
+		this.tilesY = tilesY;
+		random = new MersenneTwisterFast(seed);
+		pool = new ForkJoinPool(threads);
+
+		// the reef itself is read but never started
+		Siccom reef = new Siccom(seed, base);
+		if (reef.areaWidth % tilesX != 0 || reef.areaHeight % tilesY != 0)
+			throw new IllegalArgumentException("the area of " + reef.areaWidth + " x " + reef.areaHeight + " m cannot be split into whole meters by " + tilesX + " x " + tilesY + " tiles");
+		if (reef.disser1) dist1 = reef.dist1;
+		if (reef.disser2) dist2 = reef.dist2;
+		if (dist1 != null) next1 = (long) dist1[5];
+		if (dist2 != null) next2 = (long) dist2[5];
+
+		ParameterSet tileParameters = base.derive();
+		tileParameters.setValue("mainParam.areaWidth", String.valueOf((int)(reef.areaWidth / tilesX)));
+		tileParameters.setValue("mainParam.areaHeight", String.valueOf((int)(reef.areaHeight / tilesY)));
+
+		tiles = new Siccom[tilesX * tilesY];
+		maCoOriginals = new Bag[tiles.length];
+		braCoOriginals = new Bag[tiles.length];
+		reach = new double[tiles.length];
+		for (int i=0; i<tiles.length; i++)
+		{
+			long tileSeed = random.nextLong();
+			Siccom tile = new Siccom(tileSeed, tileParameters);
+			tile.setSeed(tileSeed);
+			tile.run = i;
+			tile.pairwiseInteraction = false;
+			// the disturbances are the ones of the reef
+			tile.disser1 = false;
+			tile.disser2 = false;
+			tile.start();
+			tiles[i] = tile;
+			ghosts.add(new LinkedHashMap<Object, Object>());
+			maCoOriginals[i] = new Bag();
+			braCoOriginals[i] = new Bag();
+		}
+		tileWidth = tiles[0].gridWidth;
+		tileHeight = tiles[0].gridHeight;
+
+		// one climate for the whole reef
+		Temperature temp = tiles[0].temp;
+		int[] years = new int[months / 12 + 1];
+		for (int y=0; y<years.length; y++)
+		{
+			do years[y] = (int)(random.nextDouble() * (temp.maxYear - temp.minYear + 1) + temp.minYear);
+			while (years[y] == 1998);
+		}
+		int firstBleach = random.nextInt(tiles[0].bleachInterval / 12);
+		for (Siccom tile : tiles)
+		{
+			tile.temp.years = years;
+			tile.firstBleach = firstBleach;
+		}
+
+		snapshot();
+		pool.invoke(new Tiles(0, tiles.length, true));
+	}
+
+	/**
+	 * Simulates one month of the reef
+	 */
+	public void step()
+	{
+		long steps = tiles[0].schedule.getSteps();
+		if (steps == next1)
+		{
+			disturb(dist1, false);
+			next1 = steps + interval(dist1);
+		}
+		if (steps == next2)
+		{
+			disturb(dist2, true);
+			next2 = steps + interval(dist2);
+		}
+
+		pool.invoke(new Tiles(0, tiles.length, false));
+		migrate();
+		snapshot();
+		pool.invoke(new Tiles(0, tiles.length, true));
+	}
+
+	/**
+	 * Simulates the reef
+	 * @param months the number of months
+	 * @param out the print writer for the grouped output
+	 */
+	public void run(int months, PrintWriter out)
+	{
+		out.println(OutputWriter.GROUP_HEADER);
+		try
+		{
+			for (int m=0; m<months; m++)
+			{
+				int steps = (int) tiles[0].schedule.getSteps();
+				step();
+				groupedOutput(out, steps);
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+			for (Siccom tile : tiles) tile.finish();
+		}
+	}
+
+	/**
+	 * @return the months until the next disturbance -- drawn as in {@link Siccom#disturbance1(double[])}
+	 */
+	private long interval(double[] dist)
+	{
+		if (dist[2] <= 1) return 1;
+		return Math.max(1, Math.round(random.nextGaussian() * dist[3] + dist[2]) + 1);
+	}
+
+	/**
+	 * Draws the disturbances of one event for the whole reef and clears them in every tile they hit
+	 * @param dist the parameters of the disturbance
+	 * @param large true for the large disturbance, see {@link Siccom#disturbance2(double[])}
+	 */
+	private void disturb(double[] dist, boolean large)
+	{
+		double width = tilesX * tileWidth;
+		double height = tilesY * tileHeight;
+		for (int j=0; j<(int) dist[4]; j++)
+		{
+			double dRadius = random.nextDouble() * (dist[0] - dist[1] + 1) + dist[1];
+			if (!large && dRadius < 0.5) dRadius = 0;
+			double dX = random.nextDouble() * ((width+dRadius) - (0-dRadius) + 1) + (0-dRadius);
+			double dY = random.nextDouble() * ((height+dRadius) - (0-dRadius) + 1) + (0-dRadius);
+
+			for (int i=0; i<tiles.length; i++)
+			{
+				double x = dX - originX(i);
+				double y = dY - originY(i);
+				if (x + dRadius >= 0 && x - dRadius <= tileWidth && y + dRadius >= 0 && y - dRadius <= tileHeight)
+					tiles[i].disturb(x, y, dRadius, large);
+			}
+		}
+	}
+
+	/**
+	 * Moves the branching coral fragments and the algae which settled outside their tile into the tile they settled in
+	 * -- the ones outside the reef stay, as in a single simulation
+	 */
+	private void migrate()
+	{
+		for (int i=0; i<tiles.length; i++)
+		{
+			Siccom src = tiles[i];
+
+			Bag b = new Bag(src.branchingCorals.getAllObjects());
+			for (int k=0; k<b.numObjs; k++)
+			{
+				BranchingCoral c = (BranchingCoral) b.objs[k];
+				if (c.ghost || !c.alive) continue;
+				int t = tileAt(i, c.xPos, c.yPos);
+				if (t < 0) continue;
+
+				Siccom dest = tiles[t];
+				double x = c.xPos + originX(i) - originX(t);
+				double y = c.yPos + originY(i) - originY(t);
+				BranchingCoral mC = new BranchingCoral(dest, dest.braCoGroups.get(c.bG.id), c.name, c.initColor, c.CI, c.maxBranchLength,
+						x, y, c.radius, c.initGrowthRate, c.numBranches, c.age, c.fragSize, c.fragRange);
+				dest.branchingCorals.setObjectLocation(mC, new Double2D(x, y), mC.extent);
+				dest.coralSchedule.scheduleOnceIn(1.0, mC);
+				c.die();
+			}
+
+			AlgaPopulation algae = src.algae;
+			int[] live = Arrays.copyOf(algae.live, algae.size());
+			for (int slot : live)
+			{
+				int t = tileAt(i, algae.getX(slot), algae.getY(slot));
+				if (t < 0) continue;
+
+				double x = algae.getX(slot) + originX(i) - originX(t);
+				double y = algae.getY(slot) + originY(i) - originY(t);
+				tiles[t].algae.add(x, y, algae.radius[slot], algae.age[slot], algae.height[slot]);
+				algae.die(slot);
+			}
+		}
+	}
+
+	/**
+	 * @return the tile in which a position of tile i lies, -1 if it lies in tile i or outside the reef
+	 */
+	private int tileAt(int i, double x, double y)
+	{
+		if (x >= 0 && x < tileWidth && y >= 0 && y < tileHeight) return -1;
+		int tx = (int) Math.floor((x + originX(i)) / tileWidth);
+		int ty = (int) Math.floor((y + originY(i)) / tileHeight);
+		if (tx < 0 || tx >= tilesX || ty < 0 || ty >= tilesY) return -1;
+		return tx + ty*tilesX;
+	}
+
+	private double originX(int i) { return (i % tilesX) * tileWidth; }
+	private double originY(int i) { return (i / tilesX) * tileHeight; }
+
+	/**
+	 * Takes the colonies of every tile which are not ghosts and the reach of its ghosts, one tile after the other
+	 * -- the tiles then refresh their ghosts in parallel and read the colonies of their neighbours from these lists only,
+	 * while each tile adds and removes its own ghosts
+	 */
+	private void snapshot()
+	{
+		for (int i=0; i<tiles.length; i++)
+		{
+			Siccom tile = tiles[i];
+
+			Bag m = tile.massiveCorals.getAllObjects();
+			maCoOriginals[i].clear();
+			for (int k=0; k<m.numObjs; k++) if (!((MassiveCoral) m.objs[k]).ghost) maCoOriginals[i].add(m.objs[k]);
+
+			Bag b = tile.branchingCorals.getAllObjects();
+			braCoOriginals[i].clear();
+			for (int k=0; k<b.numObjs; k++) if (!((BranchingCoral) b.objs[k]).ghost) braCoOriginals[i].add(b.objs[k]);
+
+			// the largest extent of any colony of the tile, bleached or not, or the largest alga, and the pad of their queries
+			double extent = Math.max(tile.massiveCorals.getMaxExtent(), tile.branchingCorals.getMaxExtent());
+			reach[i] = Math.max(extent, tile.conf.aMaxRadius) + PAD;
+		}
+	}
+
+	/**
+	 * Copies the colonies of the neighbouring tiles which reach into the range of the colonies of tile i,
+	 * updates the ghosts of the last month and removes the ghosts whose originals died or shrank out of range
+	 * -- the colonies of the neighbours are the ones of the last {@link #snapshot()}
+	 * @param i the tile
+	 */
+	void refreshGhosts(int i)
+	{
+		Siccom tile = tiles[i];
+		Map<Object, Object> old = ghosts.get(i);
+		Map<Object, Object> now = new LinkedHashMap<Object, Object>();
+		double reach = this.reach[i];
+
+		int tx = i % tilesX;
+		int ty = i / tilesX;
+		for (int nx=tx-1; nx<=tx+1; nx++)
+			for (int ny=ty-1; ny<=ty+1; ny++)
+			{
+				if (nx < 0 || nx >= tilesX || ny < 0 || ny >= tilesY || (nx == tx && ny == ty)) continue;
+				int n = nx + ny*tilesX;
+				double dx = originX(n) - originX(i);
+				double dy = originY(n) - originY(i);
+
+				Bag m = maCoOriginals[n];
+				for (int k=0; k<m.numObjs; k++)
+				{
+					MassiveCoral c = (MassiveCoral) m.objs[k];
+					if (!inRange(c.xPos + dx, c.yPos + dy, c.extent + reach)) continue;
+					MassiveCoral g = (MassiveCoral) old.remove(c);
+					if (g == null)
+					{
+						g = new MassiveCoral(tile, c, c.xPos + dx, c.yPos + dy);
+						tile.massiveCorals.setObjectLocation(g, new Double2D(g.xPos, g.yPos), g.extent);
+					}
+					else g.copyGhost(c);
+					now.put(c, g);
+				}
+
+				Bag b = braCoOriginals[n];
+				for (int k=0; k<b.numObjs; k++)
+				{
+					BranchingCoral c = (BranchingCoral) b.objs[k];
+					if (!inRange(c.xPos + dx, c.yPos + dy, c.extent + reach)) continue;
+					BranchingCoral g = (BranchingCoral) old.remove(c);
+					if (g == null)
+					{
+						g = new BranchingCoral(tile, c, c.xPos + dx, c.yPos + dy);
+						tile.branchingCorals.setObjectLocation(g, new Double2D(g.xPos, g.yPos), g.extent);
+					}
+					else g.copyGhost(c);
+					now.put(c, g);
+				}
+			}
+
+		for (Object o : old.values())
+		{
+			if (o instanceof MassiveCoral)
+			{
+				MassiveCoral g = (MassiveCoral) o;
+				g.alive = false;
+				tile.massiveCorals.remove(g);
+				tile.maCoFootprint.remove(g, g.turfFootprint);
+			}
+			else
+			{
+				BranchingCoral g = (BranchingCoral) o;
+				g.alive = false;
+				tile.branchingCorals.remove(g);
+				tile.braCoFootprint.remove(g, g.turfFootprint);
+			}
+		}
+		ghosts.set(i, now);
+	}
+
+	/**
+	 * @return true if a point lies within a distance of the area of a tile
+	 */
+	private boolean inRange(double x, double y, double dist)
+	{
+		return x > -dist && x < tileWidth + dist && y > -dist && y < tileHeight + dist;
+	}
+
+	/**
+	 * Writes the grouped output of the reef -- the rows of {@link OutputWriter#groupedOutput(int)}, summed over the tiles
+	 * @param out the print writer
+	 * @param steps the count of steps
+	 */
+	void groupedOutput(PrintWriter out, int steps)
+	{
+		for (int k=0; k<tiles[0].maCoGroups.size(); k++)
+		{
+			int num = 0;
+			double cover = 0;
+			for (Siccom tile : tiles)
+			{
+				num += tile.maCoGroups.get(k).getNum();
+				cover += tile.maCoGroups.get(k).getCover();
+			}
+			out.print(OutputWriter.groupRow(steps, tiles[0].maCoGroups.get(k).name, num, cover / tiles.length));
+		}
+		for (int k=0; k<tiles[0].braCoGroups.size(); k++)
+		{
+			int num = 0;
+			double cover = 0;
+			for (Siccom tile : tiles)
+			{
+				num += tile.braCoGroups.get(k).getNum();
+				cover += tile.braCoGroups.get(k).getCover();
+			}
+			out.print(OutputWriter.groupRow(steps, tiles[0].braCoGroups.get(k).name, num, cover / tiles.length));
+		}
+		int num = 0;
+		double cover = 0;
+		for (Siccom tile : tiles)
+		{
+			num += tile.numAlgae;
+			cover += tile.algalCoverPercent;
+		}
+		out.print(OutputWriter.groupRow(steps, "Algae", num, cover / tiles.length));
+		out.flush();
+	}
+
+	/**
+	 * Steps the tiles or refreshes their ghosts -- split in halves down to single tiles
+	 */
+	class Tiles extends RecursiveAction
+	{
+		private static final long serialVersionUID = 6203395175624807715L;
+
+		int from, to;
+		boolean refresh;
+
+		Tiles(int from, int to, boolean refresh)
+		{
+			this.from = from;
+			this.to = to;
+			this.refresh = refresh;
+		}
+
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				if (refresh) refreshGhosts(from);
+				else tiles[from].schedule.step(tiles[from]);
+			}
+			else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new Tiles(from, mid, refresh), new Tiles(mid, to, refresh));
+			}
+		}
+	}
+
+	/**
+	 * Simulates a reef
+	 * @param args the result file, the number of months, the number of tiles along the width and the height,
+	 * the seed and the number of threads -- all processors if missing
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 5)
+		{
+			System.out.println("Usage: ReefTiles resultFile months tilesX tilesY seed [threads]");
+			System.exit(1);
+		}
+		long startTime = System.currentTimeMillis();
+
+		int months = Integer.parseInt(args[1]);
+		int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+		ReefTiles reef = new ReefTiles(new ParameterSet(null), Long.parseLong(args[4]),
+				Integer.parseInt(args[2]), Integer.parseInt(args[3]), months, threads);
+
+		PrintWriter out = new PrintWriter(new FileWriter(args[0]));
+		reef.run(months, out);
+		out.close();
+
+		long extTime = System.currentTimeMillis() - startTime;
+		System.out.println("Execution Time: " + (extTime / 60000) + " min " + (extTime % 60000) / 1000 + " sec");
+	}
+}
@@ -0,0 +1,198 @@
+package siccom.sim;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many simulations at once in one program -- every point of a {@link SweepSpec} with every seed.
+ * <li>Each run is an own {@link Siccom} with its own {@link ParameterSet}, the runs share nothing but the parameter files
+ * and the {@link SweepResults}.</li>
+ * <li>The runs are split in halves down to single runs and handed to a work-stealing pool,
+ * so long and short runs are spread evenly over the threads.</li>
+ * <li>If the sweep names a {@link WarmStartCache}, a run starts from the last state of the cache which was kept
+ * with its parameters and its seed.</li>
+ *
+ * Usage: ReplicateRunner sweepFile resultFile [threads]
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class ReplicateRunner
+{
+	/**
+	 * The points of the sweep
+	 */
+	List<ParameterSet> points;
+	/**
+	 * The seeds of the replicates of each point
+	 */
+	long[] seeds;
+	/**
+	 * The number of months of each run
+	 */
+	int months;
+	/**
+	 * The collected results
+	 */
+	SweepResults results;
+	/**
+	 * The cache of the states -- null if the runs start from the beginning
+	 */
+	WarmStartCache cache;
+
+	/**
+	 * Constructor
+	 * @param points the points of the sweep
+	 * @param seeds the seeds of the replicates of each point
+	 * @param months the number of months of each run
+	 * @param results the collected results
+	 */
+	public ReplicateRunner(List<ParameterSet> points, long[] seeds, int months, SweepResults results)
+	{
+		this.points = points;
+		this.seeds = seeds;
+		this.months = months;
+		this.results = results;
+	}
+
+	/**
+	 * Runs all replicates of all points
+	 * @param threads the number of threads
+	 */
+	public void run(int threads)
+	{
+		int n = points.size() * seeds.length;
+		if (n == 0) return;
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			pool.invoke(new Replicates(0, n));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs one replicate -- the seeds of a point are run next to each other
+	 * @param run the number of the run
+	 */
+	void runOne(int run)
+	{
+		long seed = seeds[run % seeds.length];
+		ParameterSet parameters = points.get(run / seeds.length);
+
+		try
+		{
+			runReplicate(run, seed, parameters, months, results, cache);
+		}
+		catch (RuntimeException e)
+		{
+			// the other runs go on
+			System.out.println("Run " + run + " with seed " + seed + " and " + parameters + " failed: " + e);
+		}
+	}
+
+	/**
+	 * Runs one simulation and passes its grouped time series to the results
+	 * @param run the number of the run
+	 * @param seed the seed
+	 * @param parameters the parameters
+	 * @param months the number of months
+	 * @param results the collected results
+	 */
+	public static void runReplicate(int run, long seed, ParameterSet parameters, int months, SweepResults results)
+	{
+		runReplicate(run, seed, parameters, months, results, null);
+	}
+
+	/**
+	 * Runs one simulation and passes its grouped time series to the results
+	 * -- from the last state of the cache within the months if there is one
+	 * @param run the number of the run
+	 * @param seed the seed
+	 * @param parameters the parameters
+	 * @param months the number of months
+	 * @param results the collected results
+	 * @param cache the cache of the states -- null if the run starts from the beginning
+	 */
+	public static void runReplicate(int run, long seed, ParameterSet parameters, int months, SweepResults results, WarmStartCache cache)
+	{
+		Siccom sim;
+		int warm = cache != null ? cache.lastMonth(months) : 0;
+		if (warm > 0) sim = cache.start(run, seed, parameters, warm, results);
+		else
+		{
+			sim = new Siccom(seed, parameters);
+			sim.setSeed(seed);
+			sim.results = results;
+			sim.run = run;
+			sim.start();
+		}
+
+		while (sim.schedule.getSteps() < months)
+			if (!sim.schedule.step(sim)) break;
+		sim.finish();
+	}
+
+	class Replicates extends RecursiveAction
+	{
+		private static final long serialVersionUID = -2465329813052479120L;
+
+		int from, to;
+
+		Replicates(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute()
+		{
+			if (to - from == 1) runOne(from);
+			else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new Replicates(from, mid), new Replicates(mid, to));
+			}
+		}
+	}
+
+	/**
+	 * Runs a sweep
+	 * @param args the sweep file, the result file and the number of threads -- all processors if missing
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: ReplicateRunner sweepFile resultFile [threads]");
+			System.exit(1);
+		}
+		long startTime = System.currentTimeMillis();
+
+		SweepSpec spec = SweepSpec.read(new File(args[0]));
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		SweepResults results = new SweepResults(new PrintWriter(new FileWriter(args[1])), spec.names);
+		results.writeHeader();
+		List<ParameterSet> points = spec.expand();
+		System.out.println(points.size() + " points x " + spec.seeds.length + " seeds on " + threads + " threads");
+
+		ReplicateRunner runner = new ReplicateRunner(points, spec.seeds, spec.months, results);
+		runner.cache = spec.cache();
+		runner.run(threads);
+		results.close();
+		if (runner.cache != null) System.out.println(runner.cache);
+
+		long extTime = System.currentTimeMillis() - startTime;
+		System.out.println("Execution Time: " + (extTime / 60000) + " min " + (extTime % 60000) / 1000 + " sec");
+	}
+}
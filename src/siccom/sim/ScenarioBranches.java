@@ -0,0 +1,228 @@
+package siccom.sim;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the points of a {@link SweepSpec} as branches of one shared spin-up per seed.
+ * <li>For each seed, one simulation with the plain parameter files is run up to the month of the fork.</li>
+ * <li>Its state is written once, see {@link Siccom#toBytes()}, and read again for every point.
+ * The copy takes the values of the point, see {@link Siccom#changeParameters(ParameterSet)}, and runs to the end.</li>
+ * <li>The branches of a seed start from the same state with the same random numbers, so they differ by their parameters only.</li>
+ * <li>If the sweep names a {@link WarmStartCache}, the spin-ups are kept in it at the month of the fork.</li>
+ *
+ * Only the values of the environment file can be swept, except the ones of the set-up -- other points are refused at once. The table is the one of a {@link ReplicateRunner},
+ * but it starts at the month of the fork.
+ *
+ * Usage: ScenarioBranches sweepFile resultFile forkMonth [threads]
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class ScenarioBranches
+{
+	/**
+	 * The points of the sweep
+	 */
+	List<ParameterSet> points;
+	/**
+	 * The seeds of the spin-ups
+	 */
+	long[] seeds;
+	/**
+	 * The month of the fork
+	 */
+	int forkMonth;
+	/**
+	 * The number of months of each branch, counted from the beginning of the spin-up
+	 */
+	int months;
+	/**
+	 * The collected results
+	 */
+	SweepResults results;
+	/**
+	 * The cache of the spin-ups -- null if they start from the beginning
+	 */
+	WarmStartCache cache;
+
+	/**
+	 * Constructor
+	 * @param points the points of the sweep
+	 * @param seeds the seeds of the spin-ups
+	 * @param forkMonth the month of the fork
+	 * @param months the number of months of each branch, counted from the beginning of the spin-up
+	 * @param results the collected results
+	 * @throws IllegalArgumentException if a point sets a value which cannot be changed at the fork, see {@link Siccom#checkChangeable(ParameterSet)}
+	 */
+	public ScenarioBranches(List<ParameterSet> points, long[] seeds, int forkMonth, int months, SweepResults results)
+	{
+		if (forkMonth > months) throw new IllegalArgumentException("the fork at month " + forkMonth + " lies after the end at month " + months);
+		// before the spin-ups, which would take long to find it
+		for (ParameterSet point : points) Siccom.checkChangeable(point);
+		this.points = points;
+		this.seeds = seeds;
+		this.forkMonth = forkMonth;
+		this.months = months;
+		this.results = results;
+	}
+
+	/**
+	 * Runs the spin-ups and their branches
+	 * @param threads the number of threads
+	 */
+	public void run(int threads)
+	{
+		if (points.isEmpty() || seeds.length == 0) return;
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			pool.invoke(new SpinUps(0, seeds.length));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs the spin-up of a seed
+	 * @param s the index of the seed
+	 * @return the simulation at the month of the fork
+	 */
+	Siccom spinUp(int s)
+	{
+		// the files without the values of the points
+		ParameterSet base = points.get(0).derive();
+		base.values.clear();
+
+		if (cache != null && forkMonth > 0) return cache.start(0, seeds[s], base, forkMonth, new SweepResults(null, results.names));
+		Siccom sim = new Siccom(seeds[s], base);
+		sim.setSeed(seeds[s]);
+		// the spin-up passes its rows like a run of the ReplicateRunner, so it draws the same random numbers -- they are not written
+		sim.results = new SweepResults(null, results.names);
+		sim.start();
+		while (sim.schedule.getSteps() < forkMonth)
+			if (!sim.schedule.step(sim)) break;
+		return sim;
+	}
+
+	/**
+	 * Runs one branch to the end -- the runs are numbered as in the {@link ReplicateRunner}
+	 * @param origin the state of the spin-up
+	 * @param s the index of the seed
+	 * @param point the index of the point
+	 */
+	void runBranch(byte[] origin, int s, int point)
+	{
+		int run = point*seeds.length + s;
+		ParameterSet parameters = points.get(point);
+		try
+		{
+			Siccom sim = Siccom.fromBytes(origin);
+			sim.changeParameters(parameters);
+			sim.results = results;
+			sim.run = run;
+
+			while (sim.schedule.getSteps() < months)
+				if (!sim.schedule.step(sim)) break;
+			sim.finish();
+		}
+		catch (RuntimeException e)
+		{
+			// the other branches go on
+			System.out.println("Run " + run + " with seed " + seeds[s] + " and " + parameters + " failed: " + e);
+		}
+	}
+
+	class SpinUps extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1735312409843370622L;
+
+		int from, to;
+
+		SpinUps(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				byte[] origin = spinUp(from).toBytes();
+				invokeAll(new Branches(origin, from, 0, points.size()));
+			}
+			else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new SpinUps(from, mid), new SpinUps(mid, to));
+			}
+		}
+	}
+
+	class Branches extends RecursiveAction
+	{
+		private static final long serialVersionUID = -5506113970398744237L;
+
+		byte[] origin;
+		int s, from, to;
+
+		Branches(byte[] origin, int s, int from, int to)
+		{
+			this.origin = origin;
+			this.s = s;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute()
+		{
+			if (to - from == 1) runBranch(origin, s, from);
+			else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new Branches(origin, s, from, mid), new Branches(origin, s, mid, to));
+			}
+		}
+	}
+
+	/**
+	 * Runs a sweep as branches of shared spin-ups
+	 * @param args the sweep file, the result file, the month of the fork and the number of threads -- all processors if missing
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 3)
+		{
+			System.out.println("Usage: ScenarioBranches sweepFile resultFile forkMonth [threads]");
+			System.exit(1);
+		}
+		long startTime = System.currentTimeMillis();
+
+		SweepSpec spec = SweepSpec.read(new File(args[0]));
+		int forkMonth = Integer.parseInt(args[2]);
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		SweepResults results = new SweepResults(new PrintWriter(new FileWriter(args[1])), spec.names);
+		results.writeHeader();
+		List<ParameterSet> points = spec.expand();
+		System.out.println(points.size() + " points x " + spec.seeds.length + " seeds, forked at month " + forkMonth + ", on " + threads + " threads");
+
+		ScenarioBranches branches = new ScenarioBranches(points, spec.seeds, forkMonth, spec.months, results);
+		branches.cache = spec.cache();
+		branches.run(threads);
+		results.close();
+		if (branches.cache != null) System.out.println(branches.cache);
+
+		long extTime = System.currentTimeMillis() - startTime;
+		System.out.println("Execution Time: " + (extTime / 60000) + " min " + (extTime % 60000) / 1000 + " sec");
+	}
+}
@@ -12,20 +12,24 @@
 
 package siccom.sim;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
-import java.util.Hashtable;
 import java.util.Locale;
 
 import sim.engine.Schedule;
 import sim.engine.SimState;
 import sim.engine.Steppable;
-import sim.field.continuous.Continuous2D;
 import sim.field.grid.SparseGrid2D;
 import sim.util.Bag;
 import sim.util.Double2D;
+import sim.util.IntBag;
 import ec.util.MersenneTwisterFast;
 
 public class Siccom extends SimState 
@@ -47,7 +51,6 @@ public class Siccom extends SimState
 	 */
 	Siccom sim = this;		
 		
-	static long startTime;
 	/**
 	 * The count for steps (month)
 	 */
@@ -59,19 +62,19 @@ public class Siccom extends SimState
 	/**
 	 * 
 	 */
-	public static boolean gui = false;						// IF true --> the simulation is started from the GUI
+	public boolean gui = false;						// IF true --> the simulation is started from the GUI
 
 	// Main variables for the simulation field
 	public double discretization = 10.0;
 	
-	public static double areaWidth;			// the simulation area width in meters
-	public static double areaHeight;			// the simulation area height in meters
-	public static double resolution; 			// how many centimeters per pixel
-	public static double meterConv;			// converter from meters to pixels
-	public static double growthConv;			// converter from mm/year to pixels/month
-	public static double gridWidth;			// the simulation area width in pixels
-	public static double gridHeight;			// the simulation area height in pixels
-	public static double totalArea;			// = gridWidth * gridHeight
+	public double areaWidth;			// the simulation area width in meters
+	public double areaHeight;			// the simulation area height in meters
+	public double resolution; 			// how many centimeters per pixel
+	public double meterConv;			// converter from meters to pixels
+	public double growthConv;			// converter from mm/year to pixels/month
+	public double gridWidth;			// the simulation area width in pixels
+	public double gridHeight;			// the simulation area height in pixels
+	public double totalArea;			// = gridWidth * gridHeight
 
 	
 	// TEMPERATURE
@@ -94,15 +97,27 @@ public class Siccom extends SimState
 	/**
 	 * The 2D-Layer for {@link MassiveCoral}s of all Massive Coral Groups
 	 */
-	public Continuous2D massiveCorals;
+	public CellListField massiveCorals;
 	/**
 	 * The 2D-Layer for {@link BranchingCoral}s of all Branching Coral Groups
 	 */
-	public Continuous2D branchingCorals;
+	public CellListField branchingCorals;
 	/**
-	 * The 2D-Layer for {@link Alga} 
+	 * The number and the covered area of the massive coral groups -- see {@link Census}
 	 */
-	public Continuous2D algae;
+	public Census maCoCensus;
+	/**
+	 * The number and the covered area of the branching coral groups -- see {@link Census}
+	 */
+	public Census braCoCensus;
+	/**
+	 * The macroalgae, see {@link AlgaPopulation}
+	 */
+	public AlgaPopulation algae;
+	/**
+	 * Steps the colonies of both coral layers, see {@link CoralSchedule}
+	 */
+	public CoralSchedule coralSchedule;
 	
 	 
 	// CORALS -- GENERAL
@@ -111,12 +126,12 @@ public class Siccom extends SimState
 	 */
 	private final double cInitMaxR = 40.0;
 	/**
-	 * The maximum radius of a massive coral 
+	 * The maximum radius of an unbleached massive coral, see {@link #getMax()}
 	 * -- initialized with the initial maximum radius
 	 */
 	public double maCoMaxLength = cInitMaxR;
 	/**
-	 * The maximum radius of a branching coral 
+	 * The maximum radius of an unbleached branching coral, see {@link #getMax()}
 	 * -- initialized with the initial maximum radius
 	 */
 	public double braCoMaxLength = cInitMaxR;
@@ -124,11 +139,11 @@ public class Siccom extends SimState
 	/** 
 	 * The number of {@link MassiveGroup}s
 	 */
-	public static int maCoGroupNum;
+	public int maCoGroupNum;
 	/**
 	 * The number of {@link BranchingGroup}s
 	 */
-	public static int braCoGroupNum;
+	public int braCoGroupNum;
 
 	// Parameter files to read
 	/**
@@ -238,11 +253,15 @@ public class Siccom extends SimState
 	/**
 	 * The layer for turf algae
 	 */
-	public SparseGrid2D turf;
+	public TurfGrid turf;
+	/**
+	 * The turf cells covered by each massive coral -- see {@link TurfFootprintIndex}
+	 */
+	public TurfFootprintIndex maCoFootprint;
 	/**
-	 * The relative cover per turf cell
+	 * The turf cells covered by each branching coral -- see {@link TurfFootprintIndex}
 	 */
-	double cover;
+	public TurfFootprintIndex braCoFootprint;
 	/**
 	 * The growth rate of turf in percent
 	 */
@@ -296,8 +315,20 @@ public class Siccom extends SimState
 	 * The minimal mortality probability
 	 */
 	public double minBleachDeathProb = 0.2;
-	Hashtable<String, Double> bleachProbs;
-	Hashtable<String, Double> bleachDeathProbs;
+	/**
+	 * The bleaching probability of each massive and branching coral group in the actual month
+	 * -- indexed by {@link CoralGroup#id}, see {@link #registerGroups()}
+	 */
+	double[] maCoBleachProbs, braCoBleachProbs;
+	/**
+	 * The mortality probability of bleached colonies of each massive and branching coral group
+	 * -- indexed by {@link CoralGroup#id}
+	 */
+	double[] maCoBleachDeathProbs, braCoBleachDeathProbs;
+	/**
+	 * The dormant massive colonies of each group -- indexed by {@link CoralGroup#id}, see {@link MassiveCoral#sleep()}
+	 */
+	Bag[] dormantMaCo;
 	public double tempSumThreshold;
 	public double minDeathTemp;
 	public double maxDeathTemp;
@@ -358,11 +389,11 @@ public class Siccom extends SimState
 	/**
 	 * IF true -- output will be created
 	 */
-	public static boolean createOutput = true;
+	public boolean createOutput = true;
 	/**
 	 * The interval in which output shall be produced in time steps (month)
 	 */
-	public static int indivOutInter;// = 1;
+	public int indivOutInter;// = 1;
 	/**
 	 * The relative path to the Main.class folder
 	 */
@@ -376,10 +407,49 @@ public class Siccom extends SimState
 	 * The output writer
 	 */
 	public OutputWriter outW;
+	/**
+	 * The parameters of a run of a {@link ReplicateRunner} -- null if the parameters are read from the files only
+	 */
+	public ParameterSet parameters;
+	/**
+	 * The collected results of a {@link ReplicateRunner} -- null if there is none
+	 */
+	public transient SweepResults results;
+	/**
+	 * The number of the run in the {@link ReplicateRunner}
+	 */
+	public int run;
+	/**
+	 * The file of the temperature data
+	 */
+	static final String TEMPERATURE_FILE = "TemperatureData_Chumbe";
 
 
 
 
+	/**
+	 * If true, coral colonies interact pair by pair in a {@link CoralInteraction} at the beginning of each month
+	 * instead of one after the other in their own step
+	 */
+	public boolean pairwiseInteraction = false;
+	/**
+	 * The number of threads which search the interacting pairs in the {@link CoralInteraction}
+	 * -- the results are the same for any number
+	 */
+	public int interactionThreads = 1;
+	/**
+	 * If true, every stochastic process of the agents draws from its own random streams -- see {@link RandomStreams}
+	 */
+	public boolean splitStreams = false;
+	/**
+	 * The random streams of the stochastic processes
+	 */
+	public RandomStreams streams;
+	/**
+	 * The number of the next agent, see {@link #nextSerial()}
+	 */
+	private long serialNum;
+
 	// FOR CHECKING THE REAL COVER OF DIFFERENT ORGANISM GROUPS
 	public boolean checkThatCover = false;
 	SparseGrid2D coverGrid;
@@ -432,6 +502,25 @@ public class Siccom extends SimState
 		}
 	}
 	
+	public boolean getPairwiseInteraction() { return pairwiseInteraction; }
+	/**
+	 * Allows to set the value of pairwiseInteraction -- takes effect at the next start
+	 * @param b the value of pairwiseInteraction -- true or false
+	 */
+	public void setPairwiseInteraction(boolean b) { pairwiseInteraction = b; }
+	public int getInteractionThreads() { return interactionThreads; }
+	/**
+	 * Allows to set the number of threads for the pairwise interaction -- takes effect at the next start
+	 * @param val the number of threads -- at least 1
+	 */
+	public void setInteractionThreads(int val) { if (val >= 1) interactionThreads = val; }
+	public boolean getSplitStreams() { return splitStreams; }
+	/**
+	 * Allows to set the value of splitStreams -- takes effect at the next start
+	 * @param b the value of splitStreams -- true or false
+	 */
+	public void setSplitStreams(boolean b) { splitStreams = b; }
+
 	public boolean getCheckThatCover() { return checkThatCover; }
 	/**
 	 * Allows to set the value of createOutput 
@@ -452,16 +541,42 @@ public class Siccom extends SimState
 	 * @param seed the random seed for the random generator
 	 */
 	public Siccom(long seed) 
+	{
+		this(seed, false);
+	}
+	
+	/**
+	 * Contructor
+	 * @param seed the random seed for the random generator
+	 * @param gui if true, the parameters are set by the GUI -- otherwise they are read from the parameter files
+	 */
+	public Siccom(long seed, boolean gui) 
 	{
 		super(new MersenneTwisterFast(seed), new Schedule());
 		
-		startTime = System.currentTimeMillis();
-		
+		this.gui = gui;
 		conf = new Config(this);
 		
 		if(!gui) initMain();
 	}
 	
+	/**
+	 * Contructor for a run of a {@link ReplicateRunner}
+	 * -- the parameter files are read from the {@link ParameterSet}, the output files are not written
+	 * @param seed the random seed for the random generator
+	 * @param parameters the parameters which replace the ones of the files
+	 */
+	public Siccom(long seed, ParameterSet parameters) 
+	{
+		super(new MersenneTwisterFast(seed), new Schedule());
+		
+		this.parameters = parameters;
+		createOutput = false;
+		conf = new Config(this);
+		
+		initMain();
+	}
+	
 	/**
 	 * Initializes the parameters for the different coral groups from parameter files (*.inf) in the specified folder
 	 */
@@ -473,6 +588,189 @@ public class Siccom extends SimState
 		totalArea = gridWidth*gridHeight;
 	}
 	
+	/**
+	 * Sets the size of the simulation area and derives the converters and the size in pixels
+	 * @param width the width in meters
+	 * @param height the height in meters
+	 * @param res the resolution in centimeters per pixel
+	 */
+	public void setArea(double width, double height, double res)
+	{
+		areaWidth = width;
+		areaHeight = height;
+		resolution = res;
+		
+		meterConv = resolution / 100.0;					// converter from meters to pixels
+		growthConv = 1 / (resolution*10) / 12;			// converter from mm/year to pixels/month
+		gridWidth = areaWidth / meterConv;				// the simulation area width in pixels
+		gridHeight = areaHeight / meterConv;			// the simulation area height in pixels
+		
+		totalArea = gridWidth * gridHeight;
+	}
+	
+	/**
+	 * Copies the simulation with all its agents, its schedule, its temperature data and its random number generators.
+	 * The copy goes on exactly like the simulation until its parameters are changed, see {@link ScenarioBranches}
+	 * @return the copy -- it has no results
+	 */
+	public Siccom fork()
+	{
+		Siccom copy = fromBytes(toBytes());
+		// the parameter files are shared again
+		if (parameters != null) copy.parameters = parameters.derive();
+		return copy;
+	}
+
+	/**
+	 * Writes the whole state of the simulation into a byte array -- see {@link #fork()}
+	 * @return the serialized simulation
+	 */
+	public byte[] toBytes()
+	{
+		if (createOutput || gui) throw new IllegalStateException("a simulation writing output files or shown in the GUI cannot be copied");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try
+		{
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(this);
+			out.close();
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("simulation could not be serialized: " + e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads a simulation written by {@link #toBytes()}
+	 * @param bytes the serialized simulation
+	 * @return the simulation
+	 */
+	public static Siccom fromBytes(byte[] bytes)
+	{
+		try
+		{
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			try
+			{
+				return (Siccom) in.readObject();
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("simulation could not be read: " + e);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IllegalStateException("simulation could not be read: " + e);
+		}
+	}
+	
+	/**
+	 * Checks that parameters can be passed to {@link #changeParameters(ParameterSet)}
+	 * @param changed the new parameters
+	 * @throws IllegalArgumentException for a value of another file than the environment file or of the set-up
+	 */
+	public static void checkChangeable(ParameterSet changed)
+	{
+		for (String name : changed.values.keySet())
+		{
+			if (!name.startsWith("environment.") || name.equals("environment.pairwiseInteraction") || name.equals("environment.interactionThreads")
+					|| name.equals("environment.splitStreams") || name.equals("environment.turfResolution"))
+				throw new IllegalArgumentException(name + " cannot be changed in a running simulation");
+		}
+	}
+
+	/**
+	 * Changes the parameters of a running simulation -- only the values of the environment file can be changed,
+	 * except the ones which define the set-up (pairwise interaction, threads, random streams and turf resolution).
+	 * <li>A changed disturbance keeps its next event, the intervals after it are the new ones.
+	 * A disturbance which is switched on has its first event after its first interval from now on.</li>
+	 * <li>The grazing probability is the new one from the next month on.</li>
+	 * <li>The grazing is coupled or decoupled as if the new coupling and decoupling times had been there from the beginning
+	 * -- a simulation which is decoupled by them returns to the bounds of the new grazing probability.</li>
+	 * @param changed the new parameters
+	 */
+	public void changeParameters(ParameterSet changed)
+	{
+		checkChangeable(changed);
+
+		// the new values are read by a simulation which is never started
+		Siccom probe = new Siccom(seed(), changed);
+		parameters = changed;
+
+		long now = schedule.getSteps();
+		if (probe.disser1)
+		{
+			dist1 = probe.dist1;
+			dMI1 = (int) dist1[2];
+			dmi1 = dist1[2];
+			disturbSD1 = (int) dist1[3];
+			if (!disser1)
+			{
+				disturber1 = disturber(1);
+				schedule.scheduleOnce(now + dist1[5], disturber1);
+			}
+		}
+		disser1 = probe.disser1;
+		if (probe.disser2)
+		{
+			dist2 = probe.dist2;
+			dMI2 = (int) dist2[2];
+			dmi2 = dist2[2];
+			disturbSD2 = (int) dist2[3];
+			if (!disser2)
+			{
+				disturber2 = disturber(2);
+				schedule.scheduleOnce(now + dist2[5], disturber2);
+			}
+		}
+		disser2 = probe.disser2;
+
+		tempSumThreshold = probe.tempSumThreshold;
+		bleachInterval = probe.bleachInterval;
+		coralRecImportFactor = probe.coralRecImportFactor;
+		breakageProb = probe.breakageProb;
+		dieOvergrowthMas = probe.dieOvergrowthMas;
+		dieOvergrowthBra = probe.dieOvergrowthBra;
+
+		fragProb = probe.fragProb;
+		Bag b = branchingCorals.getAllObjects();
+		for (int i=0; i<b.numObjs; i++)
+		{
+			BranchingCoral braco = (BranchingCoral) b.objs[i];
+			braco.fragProb = fragProb*braco.bG.surfaceFactor;
+		}
+
+		iniGrazingProb = probe.iniGrazingProb;
+		grazingProbHalfRange = probe.grazingProbHalfRange;
+		iniAlgalThreshold = probe.iniAlgalThreshold;
+
+		// the grazing is coupled as if the new times had been there from the beginning
+		couplingTime = probe.couplingTime;
+		decouplingTime = probe.decouplingTime;
+		boolean coupled = couplingTime < now && !(couplingTime <= decouplingTime && decouplingTime < now);
+		if (coupledGrazing && !coupled && probe.coupleDist) resetDisturbance();
+		coupledGrazing = coupled;
+		if (!coupledGrazing)
+		{
+			minGrazingProb = iniGrazingProb - grazingProbHalfRange;
+			if (minGrazingProb < 0.0) minGrazingProb = 0;
+			maxGrazingProb = iniGrazingProb + grazingProbHalfRange;
+		}
+
+		maxRugosity = probe.maxRugosity;
+		disturbThreshold = probe.disturbThreshold;
+		coupleDist = probe.coupleDist;
+		disFreqIncrease = probe.disFreqIncrease;
+	}
+	
 
 
 
@@ -498,26 +796,29 @@ public class Siccom extends SimState
 		if(!gui)	conf.initOrganisms();
 		else		conf.initGUI();															// <-- SERVER TURN OFF
 		
+		registerGroups();
+		
 		coverGrid = new SparseGrid2D((int)gridWidth, (int)gridHeight);
 		
 		//SET UP THE HASH TABLES
-		massiveCorals = new Continuous2D(discretization, gridWidth, gridHeight);
-		branchingCorals = new Continuous2D(discretization, gridWidth, gridHeight);
-		algae  = new Continuous2D(discretization, gridWidth, gridHeight);
-		turf = new SparseGrid2D(cellNumWidth,cellNumHeight);
+		massiveCorals = new CellListField(discretization, gridWidth, gridHeight, true, gui);
+		branchingCorals = new CellListField(discretization, gridWidth, gridHeight, true, gui);
+		algae  = new AlgaPopulation(this, discretization, gridWidth, gridHeight, gui);
+		turf = new TurfGrid(this, cellNumWidth, cellNumHeight, cellWidth, cellHeight, turfGR, gui);
+		maCoFootprint = new TurfFootprintIndex(cellNumWidth, cellNumHeight, cellWidth, cellHeight);
+		braCoFootprint = new TurfFootprintIndex(cellNumWidth, cellNumHeight, cellWidth, cellHeight);
+
+		streams = new RandomStreams(this, splitStreams);
+		serialNum = 0;
 
 		initTurf();
+		// all corals are stepped at once
+		coralSchedule = new CoralSchedule(this);
+		schedule.scheduleRepeating(Schedule.EPOCH, 0, coralSchedule, 1);
 		initMassiveCorals();
 		initBranchingCorals();
 		initAlgae();
 		
-		// setup and initialize the hashtable where the bleaching 
-		// probabilities for the different CoralGroups are stored in
-		bleachProbs = new Hashtable<String, Double>();
-		initBleachProbs();
-		bleachDeathProbs = new Hashtable<String, Double>();
-		initBleachDeathProbs();
-		
 		// Determine first bleaching event
 		firstBleach = random.nextInt((bleachInterval/12));
 				
@@ -529,7 +830,7 @@ public class Siccom extends SimState
 		disturbSD2 = (int) dist2[3];
 				
 		// Setup the temperature routine
-		temp = new Temperature("TemperatureData_Chumbe", this);
+		temp = new Temperature(TEMPERATURE_FILE, this);
 		temp.readTempFile();
 		schedule.scheduleOnce(Schedule.EPOCH, temp);
 		
@@ -551,6 +852,7 @@ public class Siccom extends SimState
 				if (!createOutput) steps = (int) schedule.getSteps();
 				
 				calculateBleachProbs();
+				wakeCorals();
 				calcRugosity();
 				getMax();
 				grazing();
@@ -589,11 +891,14 @@ public class Siccom extends SimState
 			}
 		};
 		schedule.scheduleRepeating(Schedule.EPOCH, 2, monthlies, 1);
+		
+		// the coral interaction has to take place before the corals finish their step
+		if (pairwiseInteraction) schedule.scheduleRepeating(Schedule.EPOCH, -1, new CoralInteraction(this), 1);
 	
 
-		if(createOutput == true) 
+		if(createOutput == true || results != null) 
 		{
-			outW.initOutput(this);
+			if (createOutput) outW.initOutput(this);
 			
 			Steppable output = new Steppable()
 			{
@@ -604,8 +909,12 @@ public class Siccom extends SimState
 				{
 					steps = (int) schedule.getSteps();
 					
-					outW.groupedOutput(steps);
-					outW.phaseOutput(steps, rugosity, grazingProb, coupledGrazingProb, minGrazingProb, maxGrazingProb);
+					if (createOutput)
+					{
+						outW.groupedOutput(steps);
+						outW.phaseOutput(steps, rugosity, grazingProb, coupledGrazingProb, minGrazingProb, maxGrazingProb);
+					}
+					if (results != null) results.groupedOutput(sim, steps);
 				}
 			};
 			schedule.scheduleRepeating(Schedule.EPOCH, 2, output, 1);
@@ -639,31 +948,13 @@ public class Siccom extends SimState
 		 */
 		if (disser1)
 		{
-			disturber1 = new Steppable()
-			{
-				private static final long serialVersionUID = 3564764645L;
-
-				@Override
-				public void step(SimState state) 
-				{
-					disturbance1(dist1);
-				}
-			};
+			disturber1 = disturber(1);
 			schedule.scheduleOnce(Schedule.EPOCH+dist1[5], disturber1);
 		}
 		
 		if (disser2)
 		{
-			disturber2 = new Steppable()
-			{
-				private static final long serialVersionUID = 3564764645L;
-
-				@Override
-				public void step(SimState state) 
-				{
-					 disturbance2(dist2);
-				}
-			};
+			disturber2 = disturber(2);
 			schedule.scheduleOnce(Schedule.EPOCH+dist2[5], disturber2);
 		}
 
@@ -720,18 +1011,24 @@ public class Siccom extends SimState
 	}
 
 	/**
-	 * initializes the storage for the bleaching probabilities
+	 * Gives every coral group its id -- the position in its group list --
+	 * and sets up the census and the bleaching probabilities, which are indexed by the id
 	 */
-	 private void initBleachProbs()
+	 private void registerGroups()
 	 {
-		 for(MassiveGroup mG : maCoGroups)
-		 {
-			 bleachProbs.put(mG.name, 0.0);
-		 }
-		 for(BranchingGroup bG : braCoGroups)
-		 {
-			 bleachProbs.put(bG.name, 0.0);
-		 }
+		 for (int i=0; i<maCoGroups.size(); i++) maCoGroups.get(i).id = i;
+		 for (int i=0; i<braCoGroups.size(); i++) braCoGroups.get(i).id = i;
+		 
+		 maCoCensus = new Census(maCoGroups.size());
+		 braCoCensus = new Census(braCoGroups.size());
+		 
+		 maCoBleachProbs = new double[maCoGroups.size()];
+		 braCoBleachProbs = new double[braCoGroups.size()];
+		 maCoBleachDeathProbs = new double[maCoGroups.size()];
+		 braCoBleachDeathProbs = new double[braCoGroups.size()];
+		 
+		 dormantMaCo = new Bag[maCoGroups.size()];
+		 for (int i=0; i<dormantMaCo.length; i++) dormantMaCo[i] = new Bag();
 	 }
 	/**
 	 * Calculation of specific bleaching probs
@@ -750,11 +1047,11 @@ public class Siccom extends SimState
 				 bleachDeathProb = 1/(mG.maxDeathTemp-mG.minDeathTemp) * (actualTemp-mG.minDeathTemp);	
 				 if (bleachDeathProb>1) bleachDeathProb = 1;
 				 if (bleachDeathProb<0) bleachDeathProb = 0;
-				 bleachDeathProbs.put(mG.name, bleachDeathProb);
+				 maCoBleachDeathProbs[mG.id] = bleachDeathProb;
 			 }
 			 else bleachProb = 0;
 			 
-			 bleachProbs.put(mG.name, bleachProb);
+			 maCoBleachProbs[mG.id] = bleachProb;
 		 }
 		 
 		 for(BranchingGroup bG : braCoGroups)
@@ -767,26 +1064,29 @@ public class Siccom extends SimState
 				 bleachDeathProb = 1/(bG.maxDeathTemp-bG.minDeathTemp) * (actualTemp-bG.minDeathTemp);
 				 if (bleachDeathProb>1) bleachDeathProb = 1;
 				 if (bleachDeathProb<0) bleachDeathProb = 0;				 
-				 bleachDeathProbs.put(bG.name, bleachDeathProb);
+				 braCoBleachDeathProbs[bG.id] = bleachDeathProb;
 			 }
 			 else bleachProb = 0;
 			 
-			 bleachProbs.put(bG.name, bleachProb);
+			 braCoBleachProbs[bG.id] = bleachProb;
 		 }
 	 }
 	
+
 	 /**
-	  * Initializes the storage for bleach death probabilities
+	  * Wakes the dormant massive colonies of all groups which may bleach in the next month
+	  * -- see {@link MassiveCoral#sleep()}
 	  */
-	 private void initBleachDeathProbs()
+	 public void wakeCorals()
 	 {
-		 for(MassiveGroup mG : maCoGroups)
+		 for (MassiveGroup mG : maCoGroups)
 		 {
-			 bleachDeathProbs.put(mG.name, 0.0);
-		 }
-		 for(BranchingGroup bG : braCoGroups)
-		 {
-			 bleachDeathProbs.put(bG.name, 0.0);
+			 if (maCoBleachProbs[mG.id] > 0)
+			 {
+				 Bag d = dormantMaCo[mG.id];
+				 for (int i=0; i<d.numObjs; i++) ((MassiveCoral) d.objs[i]).wake();
+				 d.clear();
+			 }
 		 }
 	 }
 
@@ -856,7 +1156,16 @@ public class Siccom extends SimState
 	 */
 		
 	/**
-	 *  Initializes massive coral agents from the massive groups and stores them into the massiveCorals-Continuous2D
+	 * Passes a new agent number -- agents are numbered in the order they are created
+	 * @return the number
+	 */
+	public long nextSerial()
+	{
+		return serialNum++;
+	}
+
+	/**
+	 *  Initializes massive coral agents from the massive groups and stores them into the massiveCorals-layer
 	 */
  	public synchronized void initMassiveCorals()
 	{
@@ -867,7 +1176,7 @@ public class Siccom extends SimState
 	}
 
 	/**
-	 *  Initializes branching coral agents from the branching groups and stores them into the branchingCorals-Continuous2D
+	 *  Initializes branching coral agents from the branching groups and stores them into the branchingCorals-layer
 	 */
 	public synchronized void initBranchingCorals()
 	{
@@ -883,7 +1192,7 @@ public class Siccom extends SimState
 	 */
 	
 	/**
-	 *  Initializes alga agents into the algae-Continuous2D
+	 *  Initializes alga agents into the algae-layer
 	 */
 	public synchronized void initAlgae()
 	{
@@ -894,40 +1203,35 @@ public class Siccom extends SimState
 			double xPos = random.nextDouble()*gridWidth;
 			double yPos = random.nextDouble()*gridHeight;
 			
-			Alga a = new Alga(	sim,									// the simulation, the agent acts in
-								xPos, 									// x position
+			int a = algae.add(	xPos, 									// x position
 								yPos,									// y position
 								random.nextDouble()*conf.aMaxRadius,			// radius
 								random.nextInt(conf.algaMaxAge),				// age
 								random.nextDouble()*conf.aMaxHeight);		// height
 			
-			sim.algae.setObjectLocation(a, 
-					new Double2D(xPos, yPos));	
-			schedule.scheduleOnce(Schedule.EPOCH, a);
-			sumSize = sumSize + a.getSize();
+			sumSize = sumSize + algae.size[a];
 		}
+		// all algae are stepped at once
+		schedule.scheduleRepeating(Schedule.EPOCH, 0, algae, 1);
 	}
 	
 	
 	/**
-	 * Creates new alga agents and stores them into the algae-Continuous2D
+	 * Creates new alga agents and stores them into the algae-layer
 	 */
  	public void recruitAlgae()
   	{
+		RandomStream recRandom = streams.get(RandomStreams.ALGAL_RECRUITMENT, 0);
    		for (int i=0; i<conf.algaRecNum; i++)
   		{
-  			double xPos = random.nextDouble()*gridWidth;
-  			double yPos = random.nextDouble()*gridHeight;
+  			double xPos = recRandom.nextDouble()*gridWidth;
+  			double yPos = recRandom.nextDouble()*gridHeight;
   				
-  			Alga a = new Alga(		sim,							// the simulation, the agent acts in
-  									xPos,							// x position
+  			algae.add(				xPos,							// x position
   									yPos,							// y position
 									conf.algaRecRad,				// radius
 									0,								// age
 									conf.algaRecRad);				// height of the recruit equals the radius
-  				
-  			sim.algae.setObjectLocation(a, new Double2D(xPos, yPos));
-  			schedule.scheduleOnce(a);
    		}
   	}
 	
@@ -935,35 +1239,23 @@ public class Siccom extends SimState
  	 *  TURF
  	 */
  	/**
- 	 * Initializes turf algae and stores them into the turf-SparseGrid2D
+ 	 * Initializes turf algae with a random cover for each cell
  	 */
 	private void initTurf() {
 		for (int i = 0; i < cellNumWidth; i++)
 		{
-			double x = (i * cellWidth);
 			for (int j = 0; j < cellNumHeight; j++)
 			{
-				double y = (j * cellHeight);
-				cover = random.nextDouble()*100.0;
-				
-				TurfCell tC = new TurfCell( 	sim,
-												x, 
-												y,
-												cellWidth,
-												cellHeight,
-												cover,
-												turfGR			);
-				
-				schedule.scheduleOnce(Schedule.EPOCH, tC);
-				turf.setObjectLocation(tC, i, j);
+				turf.cover[i*cellNumHeight + j] = random.nextDouble()*100.0;
 			}
 		}
+		turf.updateView();
 	}
  
  	/* GRAZING */
 	/**
 	 *  At first the grazing probability is computed in relation to the algal density.
-	 *  Then it checks the whole algae-Continuous2D and removes an alga with a certain probability
+	 *  Then it checks the whole algae-layer and removes an alga with a certain probability
 	 */
 	public void grazing()
 	{
@@ -984,47 +1276,33 @@ public class Siccom extends SimState
 		if (grazingProb < 0) grazingProb = 0; 
 		else if (grazingProb > 1) grazingProb = 1;
 		
-		Bag a = algae.getAllObjects();
-		for(int i=0; i<a.numObjs; i++)					//	ORIGINAL
+		// every alga is grazed with the grazing probability -- the survivors in between are skipped.
+		// A grazed alga is replaced by the last one, which is not tested anymore this month.
+		double logMiss = GrazingSampler.logMiss(grazingProb);
+		RandomStream grazingRandom = streams.get(RandomStreams.GRAZING, 0);
+		long i = -1;
+		while (true)
 		{
-			if (random.nextBoolean(grazingProb)) 		//	ORIGINAL
-			((Alga) a.objs[i]).die();
+			i += 1 + GrazingSampler.skip(grazingRandom, logMiss);
+			if (i < 0 || i >= algae.size()) break;
+			algae.die(algae.live[(int) i]);
 		}
 		
-		Bag t = turf.getAllObjects();
-		for (int j=0; j<t.numObjs; j++)
-		{
-			if(random.nextBoolean(grazingProb)) ((TurfCell) t.objs[j]).cover = ((TurfCell) t.objs[j]).cover - 50;
-			if (((TurfCell) t.objs[j]).cover < 0) ((TurfCell) t.objs[j]).cover = 0;
-		}
+		// the monthly update of turf -- growth and grazing
+		turf.update(grazingProb);
 	}
 	
 
   	/* FIND THE MAXIMUM RADIUS OF CORALS */
   	/**
-	 * 	Finds the maximum radius of corals.	
+	 * 	Finds the maximum radius of unbleached corals -- read from the radius histogram of the census, see {@link Census#getMaxRadius()}.
+	 * 	The values are kept for the output only, they bound neither bleached colonies nor any neighbour search.
 	 */
 	public void getMax()
 	{
-		maCoMaxLength = 25;						// in case that the larger coral dies, maxR is reset to the initial value
-		braCoMaxLength = 10;
-		Bag m = massiveCorals.getAllObjects();
-		for (int i=0; i<m.numObjs; i++)
-		{
-			 if ((!((MassiveCoral) m.objs[i]).bleached) && (((MassiveCoral) m.objs[i]).maximumBranchLength > maCoMaxLength))
-			 {
-				maCoMaxLength = ((MassiveCoral) m.objs[i]).getRadius(); 
-			 }
-		}
-		
-		Bag b = branchingCorals.getAllObjects();
-		for (int i=0; i<b.numObjs; i++)
-		{
-			 if ((!((BranchingCoral) b.objs[i]).bleached) && (((BranchingCoral) b.objs[i]).maximumBranchLength > braCoMaxLength))
-			 {
-				braCoMaxLength = ((BranchingCoral) b.objs[i]).getRadius(); 
-			 }
-		}
+		// in case that the larger coral dies, maxR is reset to the initial value
+		maCoMaxLength = Math.max(25, maCoCensus.getMaxRadius());
+		braCoMaxLength = Math.max(10, braCoCensus.getMaxRadius());
 	}
 	
 	/**
@@ -1051,29 +1329,22 @@ public class Siccom extends SimState
 //		disturbSD1 = (int) disList[3];
 		int disturbPerEvent = (int) disList[4]; 					// random.nextInt(disturbMaxNumber1);
 		
+		RandomStream disRandom = streams.get(RandomStreams.DISTURBANCE, 1);
 		if (disturbPerEvent != 0)
 		{
 
 			for (int j=0; j<disturbPerEvent; j++)
 			{
-				dRadius = random.nextDouble()* (disturbMaxRadius - disturbMinRadius +1) + disturbMinRadius;
+				dRadius = disRandom.nextDouble()* (disturbMaxRadius - disturbMinRadius +1) + disturbMinRadius;
 				if (dRadius<0.5) dRadius = 0;
 				
 				
-				double dX = random.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);
-				double dY = random.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);	
-				Double2D dCentre = new Double2D(	dX, dY );
+				double dX = disRandom.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);
+				double dY = disRandom.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);	
 				
 				if (createOutput) outW.disturbanceOutput(steps, "small", dX, dY, dRadius);
 				
-				Bag m = massiveCorals.getObjectsExactlyWithinDistance(dCentre, dRadius);
-				for (int i=0; i<m.numObjs; i++) ((MassiveCoral) m.objs[i]).die();
-				
-				Bag b = branchingCorals.getObjectsExactlyWithinDistance(dCentre, dRadius);
-				for (int i=0; i<b.numObjs; i++) ((BranchingCoral) b.objs[i]).die();
-				
-				Bag a = algae.getObjectsExactlyWithinDistance(dCentre, dRadius);
-				for (int i=0; i<a.numObjs; i++) ((Alga) a.objs[i]).die();
+				disturb(dX, dY, dRadius, false);
 			}
 		}
 		// sets the time for the first disturbance event to occur
@@ -1089,6 +1360,27 @@ public class Siccom extends SimState
 		}
 	}
 	
+	/**
+	 * Creates the Steppable of a disturbance -- it does nothing once the disturbance is switched off or replaced,
+	 * see {@link #changeParameters(ParameterSet)}
+	 * @param kind 1 for the small, 2 for the large disturbance
+	 * @return the Steppable
+	 */
+	private Steppable disturber(final int kind)
+	{
+		return new Steppable()
+		{
+			private static final long serialVersionUID = 3564764645L;
+
+			@Override
+			public void step(SimState state) 
+			{
+				if (kind == 1 && disser1 && this == disturber1) disturbance1(dist1);
+				if (kind == 2 && disser2 && this == disturber2) disturbance2(dist2);
+			}
+		};
+	}
+	
 	// Disturbance No. 2
 	/**
 	 * Clears a field of the simulation area of all objects
@@ -1099,31 +1391,19 @@ public class Siccom extends SimState
 		double disturbMinRadius = disList[1];
 		int disturbPerEvent = (int) disList[4];
 
+		RandomStream disRandom = streams.get(RandomStreams.DISTURBANCE, 2);
 		if (disturbPerEvent != 0)
 		{
 
 			for (int j=0; j<disturbPerEvent; j++)
 			{
-				dRadius = random.nextDouble()* (disturbMaxRadius - disturbMinRadius +1) + disturbMinRadius;
-				double dX = random.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);
-				double dY = random.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);	
-				Double2D dCentre = new Double2D(	dX, dY );
+				dRadius = disRandom.nextDouble()* (disturbMaxRadius - disturbMinRadius +1) + disturbMinRadius;
+				double dX = disRandom.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);
+				double dY = disRandom.nextDouble() *  ((gridWidth+dRadius) - (0-dRadius) + 1)  + (0-dRadius);	
 				
 				if (createOutput) outW.disturbanceOutput(steps, "large", dX, dY, dRadius);
 				
-				Bag m = massiveCorals.getObjectsExactlyWithinDistance(dCentre, dRadius);
-				for (int i=0; i<m.numObjs; i++) ((MassiveCoral) m.objs[i]).die();
-				
-				Bag b = branchingCorals.getObjectsExactlyWithinDistance(dCentre, dRadius);
-				for (int i=0; i<b.numObjs; i++)
-				{
-					BranchingCoral braco = ((BranchingCoral) b.objs[i]);
-					if (sim.random.nextBoolean(braco.fragProb)) braco.fragtate();
-					braco.die();
-				}
-				
-				Bag a = algae.getObjectsExactlyWithinDistance(dCentre, dRadius);
-				for (int i=0; i<a.numObjs; i++) ((Alga) a.objs[i]).die();
+				disturb(dX, dY, dRadius, true);
 			}
 		}
 
@@ -1140,25 +1420,41 @@ public class Siccom extends SimState
 		}	
 	}
 	
+	/**
+	 * Clears a circle of the simulation area of all objects -- ghosts are left to their own tile, see {@link ReefTiles}
+	 * @param dX x-position of the centre
+	 * @param dY y-position of the centre
+	 * @param dRadius the radius
+	 * @param large true for a large disturbance, whose branching corals may leave fragments
+	 */
+	public void disturb(double dX, double dY, double dRadius, boolean large)
+	{
+		Double2D dCentre = new Double2D(dX, dY);
+		
+		Bag m = massiveCorals.getObjectsExactlyWithinDistance(dCentre, dRadius);
+		for (int i=0; i<m.numObjs; i++) ((MassiveCoral) m.objs[i]).die();
+		
+		Bag b = branchingCorals.getObjectsExactlyWithinDistance(dCentre, dRadius);
+		for (int i=0; i<b.numObjs; i++)
+		{
+			BranchingCoral braco = ((BranchingCoral) b.objs[i]);
+			if (braco.ghost) continue;
+			if (large && braco.random().nextBoolean(braco.fragProb)) braco.fragtate();
+			braco.die();
+		}
+		
+		IntBag a = algae.getNeighbours(dX, dY, dRadius, true, new IntBag());
+		for (int i=0; i<a.numObjs; i++) algae.die(a.objs[i]);
+	}
+	
 	
 	/**
-	 * Counts massive coral agents of each group and stores them in separate lists for each group
+	 * Counts massive coral agents of each group -- read from the census, see {@link Census}
 	 */
 	public void massiveCoralCounter()
 	{
 		for (MassiveGroup mG : maCoGroups )
-		{
-			int num = 0;
-			Bag m = massiveCorals.getAllObjects();
-			
-			for (int i=0; i<m.numObjs; i++)
-			{
-				MassiveCoral mC = (MassiveCoral)m.objs[i];
-				if (mC.getName().equals(mG.name))
-				num++;
-			}
-			mG.numMaCo = num;
-		}
+			mG.numMaCo = maCoCensus.count[mG.id];
 	}
 	
 	/**
@@ -1168,45 +1464,22 @@ public class Siccom extends SimState
 	{
 		totalMaCoCov = 0;
 		
-		
 		for ( MassiveGroup mG : maCoGroups ) 
 		{
-			double cSize = 0;
-			Bag m = massiveCorals.getAllObjects();
-		
-			for (int i=0; i<m.numObjs; i++) 
-			{
-				MassiveCoral mC = (MassiveCoral)m.objs[i];
-				if (mC.getName().equals(mG.name))
-					cSize += ((MassiveCoral) m.objs[i]).size;
-			}		
+			double cSize = maCoCensus.size[mG.id];
 			mG.maCoPercentCov = cSize/totalArea*100;
 			
-			
 			totalMaCoCov += cSize;
 		}
-		
-		
 	}
 	
 	/**
-	 * Counts branching coral agents of each group and stores them in separate lists for each group
+	 * Counts branching coral agents of each group -- read from the census, see {@link Census}
 	 */
 	public void branchingCoralCounter()
 	{
 		for (BranchingGroup bG : braCoGroups)
-		{
-			int num = 0;
-			Bag m = branchingCorals.getAllObjects();
-			
-			for (int i=0; i<m.numObjs; i++)
-			{
-				BranchingCoral bC = (BranchingCoral)m.objs[i];
-				if (bC.getName().equals(bG.name) && (bC.xPos > 0 || bC.xPos < Siccom.gridWidth || bC.yPos > 0 || bC.yPos < Siccom.gridHeight))
-				num++;
-			}
-			bG.numBraCo = num;
-		}
+			bG.numBraCo = braCoCensus.count[bG.id];
 	}
 	
 	/**
@@ -1218,15 +1491,7 @@ public class Siccom extends SimState
 		
 		for ( BranchingGroup bG : braCoGroups ) 
 		{
-			double cSize = 0;
-			Bag m = branchingCorals.getAllObjects();
-		
-			for (int i=0; i<m.numObjs; i++) 
-			{
-				BranchingCoral bC = (BranchingCoral)m.objs[i];
-				if (bC.getName().equals(bG.name) && (bC.xPos > 0 || bC.xPos < Siccom.gridWidth || bC.yPos > 0 || bC.yPos < Siccom.gridHeight))	
-					cSize += ((BranchingCoral) m.objs[i]).size;
-			}
+			double cSize = braCoCensus.size[bG.id];
 			bG.braCoPercentCov = cSize/totalArea*100;
 			
 			totalBraCoCov += cSize;
@@ -1238,13 +1503,7 @@ public class Siccom extends SimState
 	 */
 	public void algCounter()
 	{
-		numAlgae = 0;
-		Bag a = algae.getAllObjects();
-		for (int i=0; i<a.numObjs; i++)
-		{
-			Alga alg = (Alga) a.objs[i];
-			if (alg.alive && (alg.xPos > 0 || alg.xPos < Siccom.gridWidth || alg.yPos > 0 || alg.yPos < Siccom.gridHeight)) numAlgae++;
-		}
+		numAlgae = algae.size();
 	}
 
 	/**
@@ -1252,17 +1511,7 @@ public class Siccom extends SimState
 	 */
 	public double algaeCover()
 	{
-		double aSize = 0;
-		Bag a = algae.getAllObjects();
-		for (int i=0; i<a.numObjs; i++)
-		{
-			Alga alg = (Alga) a.objs[i];
-			
-			if (alg.alive && (alg.xPos > 0 || alg.xPos < Siccom.gridWidth || alg.yPos > 0 || alg.yPos < Siccom.gridHeight)) 
-				aSize = aSize + alg.getSize();
-			
-		}
-		algalCoverPercent = aSize/totalArea*100;
+		algalCoverPercent = algae.totalSize/totalArea*100;
 		
 		return algalCoverPercent;
 		
@@ -1304,6 +1553,8 @@ public class Siccom extends SimState
 	 */
 	public static void main (String[] args)
 	{
+		long startTime = System.currentTimeMillis();
+		
 		doLoop (Siccom.class, args);    
 		
 		DecimalFormatSymbols usFS = new DecimalFormatSymbols(Locale.US);
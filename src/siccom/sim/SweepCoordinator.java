@@ -0,0 +1,367 @@
+package siccom.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Hands out the runs of a {@link SweepSpec} to {@link SweepWorker}s over TCP and collects their grouped time series
+ * in one table -- the same table as the one of a {@link ReplicateRunner}.
+ * <li>A run is numbered as in the {@link ReplicateRunner}, the worker gets its seed, the number of months
+ * and the values of the swept parameters.</li>
+ * <li>If the connection to a worker breaks, its run is queued again and handed to the next worker which asks.</li>
+ * <li>The finished runs are noted in a checkpoint file together with the length of the table, after the rows are on disk.
+ * A coordinator started again with the same files cuts the table to the noted length and hands out the missing runs only.</li>
+ * <li>A run which fails on its worker is noted as failed and has no rows in the table. A coordinator started again
+ * hands it out once more.</li>
+ *
+ * The protocol is line by line: the worker sends READY, the coordinator answers with
+ * RUN run seed months n and n lines name TAB value, or with DONE if all runs are finished.
+ * The worker answers with RESULT run n and the n rows of the table, or with FAILED run and the reason.
+ *
+ * Usage: SweepCoordinator sweepFile resultFile port [checkpointFile]
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class SweepCoordinator
+{
+	SweepSpec spec;
+	List<ParameterSet> points;
+	/**
+	 * The runs to hand out
+	 */
+	LinkedList<Integer> queue = new LinkedList<Integer>();
+	/**
+	 * The finished runs
+	 */
+	boolean[] done;
+	/**
+	 * The runs which failed -- they are handed out again by a coordinator which is started again
+	 */
+	boolean[] failed;
+	/**
+	 * The number of runs which are neither finished nor failed
+	 */
+	int remaining;
+	/**
+	 * The number of failed runs
+	 */
+	int failures;
+	/**
+	 * The table of the results
+	 */
+	RandomAccessFile table;
+	/**
+	 * The checkpoint file
+	 */
+	PrintWriter checkpoint;
+	ServerSocket server;
+	/**
+	 * The connections to the workers
+	 */
+	List<Connection> connections = new ArrayList<Connection>();
+
+	/**
+	 * Constructor -- resumes from the checkpoint file if there is one
+	 * @param spec the sweep
+	 * @param resultFile the table of the results
+	 * @param checkpointFile the checkpoint file
+	 */
+	public SweepCoordinator(SweepSpec spec, File resultFile, File checkpointFile) throws IOException
+	{
+		this.spec = spec;
+		points = spec.expand();
+		int n = points.size() * spec.seeds.length;
+		done = new boolean[n];
+		failed = new boolean[n];
+		remaining = n;
+
+		table = new RandomAccessFile(resultFile, "rw");
+		if (checkpointFile.isFile()) resume(checkpointFile);
+		else
+		{
+			StringWriter header = new StringWriter();
+			new SweepResults(new PrintWriter(header), spec.names).writeHeader();
+			table.setLength(0);
+			table.write(header.toString().getBytes("UTF-8"));
+
+			checkpoint = new PrintWriter(new FileWriter(checkpointFile));
+			checkpoint.println("units " + n + " " + table.length());
+			checkpoint.flush();
+		}
+
+		for (int run=0; run<n; run++) if (!done[run]) queue.add(run);
+	}
+
+	/**
+	 * Reads the finished runs from the checkpoint file and cuts the rows of unfinished runs from the table
+	 */
+	private void resume(File checkpointFile) throws IOException
+	{
+		long length = 0;
+		BufferedReader in = new BufferedReader(new FileReader(checkpointFile));
+		try
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				String[] s = line.split(" ");
+				if (s[0].equals("units"))
+				{
+					if (Integer.parseInt(s[1]) != done.length)
+						throw new IOException(checkpointFile + " belongs to a sweep with " + s[1] + " runs, not " + done.length);
+					length = Long.parseLong(s[2]);
+				}
+				// a line cut by a kill is ignored
+				else if (s[0].equals("done") && s.length == 4 && s[3].equals("ok"))
+				{
+					int run = Integer.parseInt(s[1]);
+					if (!done[run]) remaining--;
+					done[run] = true;
+					length = Long.parseLong(s[2]);
+				}
+				// a failed run is handed out again
+				else if (s[0].equals("failed") && s.length == 4 && s[3].equals("ok"))
+				{
+					length = Long.parseLong(s[2]);
+				}
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		table.setLength(length);
+		checkpoint = new PrintWriter(new FileWriter(checkpointFile, true));
+		// a line cut by a kill is closed
+		checkpoint.println();
+		checkpoint.flush();
+		System.out.println("Resuming: " + (done.length - remaining) + " of " + done.length + " runs finished");
+	}
+
+	/**
+	 * Passes the next run -- waits while all open runs are handed out
+	 * @return the number of the run, -1 if all runs are finished
+	 */
+	synchronized int take() throws InterruptedException
+	{
+		while (queue.isEmpty() && remaining > 0) wait();
+		if (remaining == 0) return -1;
+		return queue.removeFirst();
+	}
+
+	/**
+	 * Queues a run again whose worker was lost
+	 * @param run the number of the run
+	 */
+	synchronized void requeue(int run)
+	{
+		if (done[run] || failed[run]) return;
+		System.out.println("Run " + run + " queued again");
+		queue.addFirst(run);
+		notifyAll();
+	}
+
+	/**
+	 * Writes the rows of a finished run and notes the run in the checkpoint file
+	 * @param run the number of the run
+	 * @param rows the rows of the table
+	 */
+	synchronized void finish(int run, String rows) throws IOException
+	{
+		if (done[run] || failed[run]) return;
+
+		table.seek(table.length());
+		table.write(rows.getBytes("UTF-8"));
+		table.getFD().sync();
+		checkpoint.println("done " + run + " " + table.length() + " ok");
+		checkpoint.flush();
+
+		done[run] = true;
+		remaining--;
+		System.out.println("Run " + run + " finished, " + remaining + " remaining");
+		notifyAll();
+		if (remaining == 0 && server != null) server.close();
+	}
+
+	/**
+	 * Notes a failed run in the checkpoint file -- it has no rows in the table
+	 * @param run the number of the run
+	 * @param reason the message of the worker
+	 */
+	synchronized void fail(int run, String reason) throws IOException
+	{
+		if (done[run] || failed[run]) return;
+
+		checkpoint.println("failed " + run + " " + table.length() + " ok");
+		checkpoint.flush();
+
+		failed[run] = true;
+		failures++;
+		remaining--;
+		System.out.println("Run " + reason + ", " + remaining + " remaining");
+		notifyAll();
+		if (remaining == 0 && server != null) server.close();
+	}
+
+	/**
+	 * Accepts workers until all runs are finished -- closes the table and the checkpoint file in the end
+	 * @param port the port
+	 */
+	public void serve(int port) throws IOException
+	{
+		try
+		{
+			// a sweep resumed after its last run
+			if (remaining == 0) return;
+			server = new ServerSocket(port);
+			while (true)
+			{
+				Socket socket;
+				try
+				{
+					socket = server.accept();
+				}
+				catch (IOException e)
+				{
+					// closed after the last run
+					if (server.isClosed()) break;
+					throw e;
+				}
+				socket.setKeepAlive(true);
+				Connection connection = new Connection(socket);
+				connections.add(connection);
+				connection.start();
+			}
+			// the workers which are still connected are told that there is nothing left
+			for (Connection connection : connections) connection.join(10000);
+		}
+		catch (InterruptedException e)
+		{
+		}
+		finally
+		{
+			if (server != null) server.close();
+			table.close();
+			checkpoint.close();
+		}
+	}
+
+	/**
+	 * The connection to one worker
+	 */
+	class Connection extends Thread
+	{
+		Socket socket;
+
+		Connection(Socket socket)
+		{
+			this.socket = socket;
+			setDaemon(true);
+		}
+
+		public void run()
+		{
+			int run = -1;
+			try
+			{
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+				while (true)
+				{
+					String line = in.readLine();
+					if (line == null) throw new IOException("connection closed");
+
+					if (line.equals("READY"))
+					{
+						run = take();
+						if (run < 0)
+						{
+							out.println("DONE");
+							out.flush();
+							break;
+						}
+						ParameterSet parameters = points.get(run / spec.seeds.length);
+						out.println("RUN " + run + " " + spec.seeds[run % spec.seeds.length] + " " + spec.months + " " + spec.names.size());
+						for (String name : spec.names) out.println(name + "\t" + parameters.values.get(name));
+						out.flush();
+					}
+					else if (line.startsWith("RESULT "))
+					{
+						String[] s = line.split(" ");
+						int count = Integer.parseInt(s[2]);
+						StringBuilder rows = new StringBuilder();
+						for (int i=0; i<count; i++)
+						{
+							String row = in.readLine();
+							if (row == null) throw new IOException("rows of run " + s[1] + " incomplete");
+							rows.append(row).append('\n');
+						}
+						finish(Integer.parseInt(s[1]), rows.toString());
+						run = -1;
+					}
+					else if (line.startsWith("FAILED "))
+					{
+						// a failing run would fail again on the next worker -- it is tried again on resume
+						fail(Integer.parseInt(line.split(" ")[1]), line.substring(7));
+						run = -1;
+					}
+					else throw new IOException("unknown message: " + line);
+				}
+			}
+			catch (IOException e)
+			{
+				System.out.println("Worker " + socket.getRemoteSocketAddress() + " lost: " + e.getMessage());
+			}
+			catch (InterruptedException e)
+			{
+			}
+			finally
+			{
+				if (run >= 0) requeue(run);
+				try
+				{
+					socket.close();
+				}
+				catch (IOException e)
+				{
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a sweep with workers
+	 * @param args the sweep file, the result file, the port and the checkpoint file -- resultFile.checkpoint if missing
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 3)
+		{
+			System.out.println("Usage: SweepCoordinator sweepFile resultFile port [checkpointFile]");
+			System.exit(1);
+		}
+		SweepSpec spec = SweepSpec.read(new File(args[0]));
+		File checkpointFile = new File(args.length > 3 ? args[3] : args[1] + ".checkpoint");
+
+		SweepCoordinator coordinator = new SweepCoordinator(spec, new File(args[1]), checkpointFile);
+		System.out.println(coordinator.done.length + " runs, " + coordinator.remaining + " to go, on port " + args[2]);
+		coordinator.serve(Integer.parseInt(args[2]));
+		if (coordinator.failures > 0)
+			System.out.println(coordinator.failures + " runs failed -- they are run again if the coordinator is started again");
+		else System.out.println("All runs finished");
+	}
+}
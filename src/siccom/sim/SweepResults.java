@@ -0,0 +1,114 @@
+package siccom.sim;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Collects the grouped time series of all runs of a {@link ReplicateRunner} in one table.
+ * <li>Each row is tagged with the number of the run, its seed and the values of the swept parameters,
+ * followed by the row of the grouped output file, see {@link OutputWriter#groupRow(int, String, int, double)}
+ * -- step, month, year, group, number and cover.</li>
+ * <li>The rows are written as soon as a run passes them -- one month of one run at a time.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class SweepResults
+{
+	/**
+	 * The print writer for the results
+	 */
+	private PrintWriter writer;
+	/**
+	 * The names of the swept parameters, e.g. environment.grazingProb
+	 */
+	List<String> names;
+
+	/**
+	 * Constructor
+	 * @param writer the print writer for the results -- null if the rows are not written
+	 * @param names the names of the swept parameters
+	 */
+	public SweepResults(PrintWriter writer, List<String> names)
+	{
+		this.writer = writer;
+		this.names = names;
+	}
+
+	/**
+	 * Writes the header of the table
+	 */
+	public synchronized void writeHeader()
+	{
+		StringBuilder header = new StringBuilder("run\tseed");
+		for (String name : names) header.append("\t" + name);
+		header.append("\tstep\tmonth\tyear\tgroup\tnumber\tcover");
+		writer.println(header);
+		writer.flush();
+	}
+
+	/**
+	 * Writes the rows of one month of a run -- the rows of {@link OutputWriter#groupedOutput(int)} with the tag of the run
+	 * @param sim the simulation
+	 * @param steps the count of steps
+	 */
+	public synchronized void groupedOutput(Siccom sim, int steps)
+	{
+		if (writer == null) return;
+		writeRows(sim, rows(sim, steps));
+	}
+
+	/**
+	 * Passes the rows of one month of a run without the tag of the run
+	 * @param sim the simulation
+	 * @param steps the count of steps
+	 * @return one line per group -- step, month, year, group, number and cover
+	 */
+	String rows(Siccom sim, int steps)
+	{
+		StringBuilder rows = new StringBuilder();
+		for (MassiveGroup mG : sim.maCoGroups)
+			rows.append(OutputWriter.groupRow(steps, mG.name, mG.getNum(), mG.getCover()));
+		for (BranchingGroup bG : sim.braCoGroups)
+			rows.append(OutputWriter.groupRow(steps, bG.name, bG.getNum(), bG.getCover()));
+		rows.append(OutputWriter.groupRow(steps, "Algae", sim.numAlgae, sim.algalCoverPercent));
+		return rows.toString();
+	}
+
+	/**
+	 * Writes rows of a run which were passed before, e.g. the ones of a {@link WarmStartCache}
+	 * @param sim the simulation -- its number, its seed and its parameters tag the rows
+	 * @param rows the rows without the tag, see {@link #rows(Siccom, int)}
+	 */
+	public synchronized void writeRows(Siccom sim, String rows)
+	{
+		if (writer == null || rows.length() == 0) return;
+
+		StringBuilder tag = new StringBuilder();
+		tag.append(sim.run + "\t" + sim.seed());
+		for (String name : names)
+		{
+			int dot = name.indexOf('.');
+			tag.append("\t" + sim.parameters.getValue(name.substring(0, dot), name.substring(dot+1)));
+		}
+		tag.append("\t");
+
+		StringBuilder tagged = new StringBuilder();
+		int from = 0;
+		for (int to = rows.indexOf('\n'); to >= 0; to = rows.indexOf('\n', from))
+		{
+			tagged.append(tag).append(rows, from, to+1);
+			from = to+1;
+		}
+		writer.print(tagged);
+		writer.flush();
+	}
+
+	/**
+	 * Closes the print writer
+	 */
+	public synchronized void close()
+	{
+		writer.close();
+	}
+}
@@ -0,0 +1,194 @@
+package siccom.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import ec.util.MersenneTwisterFast;
+
+/**
+ * The description of a parameter sweep -- read from a file in the format of the parameter files (*.inf):
+ * a header line, then one line <i>value | name | comment</i> per entry.
+ * <li><i>mode</i> -- grid, lhs or list</li>
+ * <li><i>months</i> -- the number of months of each run</li>
+ * <li><i>seeds</i> -- the seeds of the replicates of each point, separated by blanks</li>
+ * <li><i>samples</i> and <i>lhsSeed</i> -- the number of points of a Latin hypercube and the seed of its permutations</li>
+ * <li><i>infDir</i> -- the folder of the parameter files, the inf-folder next to the program if missing</li>
+ * <li><i>cacheDir</i>, <i>cacheMonths</i> and <i>cacheSize</i> -- the folder of a {@link WarmStartCache}, the months at which
+ * it keeps the states, separated by blanks, and its size in MB -- no cache if the folder is missing</li>
+ * <li>Each name with a dot is a swept parameter, named by file and key, e.g. <i>environment.grazingProb</i>.
+ * Its values are separated by blanks. The file must be read by the runs of each point and must have the key.</li>
+ *
+ * In the grid mode every combination of the values is a point, in the list mode the i-th point takes the i-th value of each parameter.
+ * In the lhs mode each parameter has a minimum and a maximum -- if both are integers, the samples are rounded.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class SweepSpec
+{
+	public String mode = "grid";
+	public int months = 120;
+	public long[] seeds = {1};
+	public int samples = 10;
+	public long lhsSeed = 1;
+	public File infDir;
+	public File cacheDir;
+	public int[] cacheMonths = {};
+	public long cacheSize = 1024;
+	/**
+	 * The names of the swept parameters, in the order of the file
+	 */
+	public List<String> names = new ArrayList<String>();
+	/**
+	 * The values of each swept parameter
+	 */
+	public List<String[]> values = new ArrayList<String[]>();
+
+	/**
+	 * Reads a sweep file
+	 * @param file the file
+	 * @return the sweep
+	 */
+	public static SweepSpec read(File file) throws IOException
+	{
+		if (!file.isFile()) throw new IOException(file + " could not be found");
+		ParameterFile pf = new ParameterFile(file, true);
+
+		SweepSpec spec = new SweepSpec();
+		for (String name : pf.getOrderedKeys())
+		{
+			String[] value = split(pf.getValue(name));
+
+			if (name.indexOf('.') > 0)
+			{
+				spec.names.add(name);
+				spec.values.add(value);
+			}
+			else if (name.equals("mode")) spec.mode = value[0];
+			else if (name.equals("months")) spec.months = Integer.parseInt(value[0]);
+			else if (name.equals("samples")) spec.samples = Integer.parseInt(value[0]);
+			else if (name.equals("lhsSeed")) spec.lhsSeed = Long.parseLong(value[0]);
+			else if (name.equals("infDir")) spec.infDir = new File(value[0]);
+			else if (name.equals("cacheDir")) spec.cacheDir = new File(value[0]);
+			else if (name.equals("cacheSize")) spec.cacheSize = Long.parseLong(value[0]);
+			else if (name.equals("cacheMonths"))
+			{
+				spec.cacheMonths = new int[value.length];
+				for (int i=0; i<value.length; i++) spec.cacheMonths[i] = Integer.parseInt(value[i]);
+			}
+			else if (name.equals("seeds"))
+			{
+				spec.seeds = new long[value.length];
+				for (int i=0; i<value.length; i++) spec.seeds[i] = Long.parseLong(value[i]);
+			}
+			else throw new IOException("unknown entry in " + file + ": " + name);
+		}
+		return spec;
+	}
+
+	/**
+	 * @return the cache of the states -- null if the sweep names no folder
+	 */
+	public WarmStartCache cache() throws IOException
+	{
+		if (cacheDir == null) return null;
+		return new WarmStartCache(cacheDir, cacheMonths, cacheSize << 20);
+	}
+
+	/**
+	 * Expands the sweep into its points
+	 * @return one parameter set per point -- they share the parameter files
+	 * @throws IllegalArgumentException if a point sets a value of a file which is not read or a key which its file does not have
+	 */
+	public List<ParameterSet> expand()
+	{
+		ParameterSet base = new ParameterSet(infDir);
+		List<ParameterSet> points = new ArrayList<ParameterSet>();
+
+		if (mode.equals("grid"))
+		{
+			int num = 1;
+			for (String[] v : values) num *= v.length;
+			for (int p=0; p<num; p++)
+			{
+				ParameterSet set = base.derive();
+				// the last parameter changes fastest
+				int rest = p;
+				for (int j=values.size()-1; j>=0; j--)
+				{
+					String[] v = values.get(j);
+					set.setValue(names.get(j), v[rest % v.length]);
+					rest /= v.length;
+				}
+				points.add(set);
+			}
+		}
+		else if (mode.equals("list"))
+		{
+			int num = values.isEmpty() ? 1 : values.get(0).length;
+			for (int j=0; j<values.size(); j++)
+				if (values.get(j).length != num) throw new IllegalArgumentException("list of " + names.get(j) + " must have " + num + " values");
+			for (int p=0; p<num; p++)
+			{
+				ParameterSet set = base.derive();
+				for (int j=0; j<values.size(); j++) set.setValue(names.get(j), values.get(j)[p]);
+				points.add(set);
+			}
+		}
+		else if (mode.equals("lhs"))
+		{
+			MersenneTwisterFast random = new MersenneTwisterFast(lhsSeed);
+			for (int p=0; p<samples; p++) points.add(base.derive());
+			for (int j=0; j<values.size(); j++)
+			{
+				String[] v = values.get(j);
+				if (v.length != 2) throw new IllegalArgumentException("range of " + names.get(j) + " must be min and max");
+				boolean integer = isInteger(v[0]) && isInteger(v[1]);
+				double min = Double.parseDouble(v[0]);
+				double max = Double.parseDouble(v[1]);
+
+				// one sample per stratum, the strata in random order
+				int[] strata = new int[samples];
+				for (int k=0; k<samples; k++) strata[k] = k;
+				for (int k=samples-1; k>0; k--)
+				{
+					int r = random.nextInt(k+1);
+					int s = strata[k]; strata[k] = strata[r]; strata[r] = s;
+				}
+				for (int p=0; p<samples; p++)
+				{
+					double x = min + (strata[p] + random.nextDouble()) / samples * (max - min);
+					points.get(p).setValue(names.get(j), integer ? String.valueOf(Math.round(x)) : String.valueOf(x));
+				}
+			}
+		}
+		else throw new IllegalArgumentException("unknown mode: " + mode);
+
+		for (ParameterSet set : points) set.checkNames();
+		return points;
+	}
+
+	private static String[] split(String value)
+	{
+		StringTokenizer st = new StringTokenizer(value);
+		String[] values = new String[st.countTokens()];
+		for (int i=0; i<values.length; i++) values[i] = st.nextToken();
+		return values;
+	}
+
+	private static boolean isInteger(String s)
+	{
+		try
+		{
+			Long.parseLong(s);
+			return true;
+		}
+		catch (NumberFormatException e)
+		{
+			return false;
+		}
+	}
+}
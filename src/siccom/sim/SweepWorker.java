@@ -0,0 +1,179 @@
+package siccom.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the simulations a {@link SweepCoordinator} hands out and sends back their grouped time series.
+ * <li>Each run is done by {@link ReplicateRunner#runReplicate(int, long, ParameterSet, int, SweepResults)},
+ * so the rows are the same as the ones of a {@link ReplicateRunner}.</li>
+ * <li>The parameter files are read from the own inf-folder or the given folder -- the coordinator sends the swept values only.</li>
+ * <li>If the coordinator cannot be reached, the worker tries again every few seconds for a while,
+ * so a coordinator which was restarted finds its workers again.</li>
+ *
+ * Usage: SweepWorker host port [threads] [infDir]
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class SweepWorker implements Runnable
+{
+	/**
+	 * The time between two attempts to connect in milliseconds
+	 */
+	static final int RETRY_DELAY = 5000;
+
+	String host;
+	int port;
+	/**
+	 * The parameter files -- each run derives its own set
+	 */
+	ParameterSet base;
+	/**
+	 * The number of failed attempts to connect after which the worker gives up
+	 */
+	int retries = 12;
+
+	/**
+	 * Constructor
+	 * @param host the host of the coordinator
+	 * @param port the port of the coordinator
+	 * @param base the parameter files
+	 */
+	public SweepWorker(String host, int port, ParameterSet base)
+	{
+		this.host = host;
+		this.port = port;
+		this.base = base;
+	}
+
+	/**
+	 * Works until the coordinator has no runs left or cannot be reached anymore
+	 */
+	public void run()
+	{
+		int attempts = 0;
+		while (true)
+		{
+			try
+			{
+				Socket socket = new Socket(host, port);
+				attempts = 0;
+				try
+				{
+					if (work(socket)) return;
+				}
+				finally
+				{
+					socket.close();
+				}
+			}
+			catch (IOException e)
+			{
+				if (++attempts > retries)
+				{
+					System.out.println("Coordinator " + host + ":" + port + " lost: " + e.getMessage());
+					return;
+				}
+			}
+			try
+			{
+				Thread.sleep(RETRY_DELAY);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Asks for runs and does them
+	 * @param socket the connection to the coordinator
+	 * @return true if the coordinator has no runs left
+	 */
+	boolean work(Socket socket) throws IOException
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+		while (true)
+		{
+			out.println("READY");
+			out.flush();
+
+			String line = in.readLine();
+			if (line == null) throw new IOException("connection closed");
+			if (line.equals("DONE")) return true;
+			if (!line.startsWith("RUN ")) throw new IOException("unknown message: " + line);
+
+			// RUN run seed months n
+			String[] s = line.split(" ");
+			int run = Integer.parseInt(s[1]);
+			long seed = Long.parseLong(s[2]);
+			int months = Integer.parseInt(s[3]);
+			int n = Integer.parseInt(s[4]);
+
+			ParameterSet parameters = base.derive();
+			List<String> names = new ArrayList<String>();
+			for (int i=0; i<n; i++)
+			{
+				String value = in.readLine();
+				if (value == null) throw new IOException("connection closed");
+				int tab = value.indexOf('\t');
+				names.add(value.substring(0, tab));
+				parameters.setValue(value.substring(0, tab), value.substring(tab+1));
+			}
+
+			StringWriter rows = new StringWriter();
+			try
+			{
+				ReplicateRunner.runReplicate(run, seed, parameters, months, new SweepResults(new PrintWriter(rows), names));
+			}
+			catch (RuntimeException e)
+			{
+				out.println("FAILED " + run + " with seed " + seed + " and " + parameters + ": " + e);
+				out.flush();
+				continue;
+			}
+
+			String result = rows.toString();
+			int count = 0;
+			for (int i=0; i<result.length(); i++) if (result.charAt(i) == '\n') count++;
+			out.println("RESULT " + run + " " + count);
+			out.print(result);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Starts the workers of this program
+	 * @param args the host and the port of the coordinator, the number of workers -- all processors if missing --
+	 * and the folder of the parameter files -- the inf-folder next to the program if missing
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: SweepWorker host port [threads] [infDir]");
+			System.exit(1);
+		}
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		ParameterSet base = new ParameterSet(args.length > 3 ? new File(args[3]) : null);
+
+		Thread[] workers = new Thread[threads];
+		for (int i=0; i<threads; i++)
+		{
+			workers[i] = new Thread(new SweepWorker(args[0], Integer.parseInt(args[1]), base));
+			workers[i].start();
+		}
+		for (int i=0; i<threads; i++) workers[i].join();
+	}
+}
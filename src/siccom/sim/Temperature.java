@@ -35,7 +35,7 @@ public class Temperature implements Steppable
 	/**
 	 * Scanner to read in the data
 	 */
-	Scanner scan;
+	transient Scanner scan;
 	/**
 	 * Daily temperature data for a year
 	 */
@@ -60,6 +60,11 @@ public class Temperature implements Steppable
 	 * The highest value for year of the data set
 	 */
 	int maxYear;
+	/**
+	 * The data years of the ordinary years, one per simulated year -- drawn by the simulation if null.
+	 * The tiles of a reef share them, see {@link ReefTiles}
+	 */
+	int[] years;
 	/**
 	 * The days each month of the year has
 	 */
@@ -129,7 +134,7 @@ public class Temperature implements Steppable
 	public Temperature(String fileName, Siccom sim)
 	{
 		this.fileName = fileName;
-		File file = new File(Config.getLocalFileName(fileName));
+		File file = sim.conf.getFile(fileName);
 		try {
 			scan = new Scanner(file);
 		} catch (FileNotFoundException e) {
@@ -260,10 +265,15 @@ public class Temperature implements Steppable
 			}
 			else
 			{			
-				int tempDataYear = (int)(sim.random.nextDouble() * (maxYear - minYear +1) + minYear);
+				int tempDataYear;
+				if (years != null) tempDataYear = years[(int)(sim.schedule.getSteps()/12)];
+				else
+				{
+					tempDataYear = (int)(sim.random.nextDouble() * (maxYear - minYear +1) + minYear);
 
-				// to make sure that 1998 is not chosen outside the bleaching interval
-				while (tempDataYear == 1998) tempDataYear = (int)(sim.random.nextDouble() * (maxYear - minYear +1) + minYear);
+					// to make sure that 1998 is not chosen outside the bleaching interval
+					while (tempDataYear == 1998) tempDataYear = (int)(sim.random.nextDouble() * (maxYear - minYear +1) + minYear);
+				}
 
 				tempList = tempData.get(tempDataYear+""); 
 				System.out.println(tempDataYear + "");
@@ -0,0 +1,140 @@
+package siccom.sim;
+
+import java.io.Serializable;
+
+import sim.util.Bag;
+
+/**
+ * Maps every turf cell to the coral colonies whose bounding box covers it.
+ * <li>Colonies register their bounding box when they are created, update it when they grow and
+ * unregister when they die.</li>
+ * <li>The {@link TurfGrid} then only has to test the colonies listed for each cell
+ * instead of every coral on the reef.</li>
+ *
+ * The footprint of a colony is stored in the colony itself as int[4] {first column, first row, last column, last row}
+ * so that an update only touches the cells that were entered or left.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class TurfFootprintIndex implements Serializable
+{
+	private static final long serialVersionUID = 5212047718243930151L;
+
+	/**
+	 * The number of cells along the width and the height of the simulation area
+	 */
+	int cellNumWidth, cellNumHeight;
+	/**
+	 * The width and height of a single turf cell in pixels
+	 */
+	int cellWidth, cellHeight;
+	/**
+	 * The colonies covering each cell -- indexed by col * cellNumHeight + row
+	 */
+	Bag[] cells;
+
+	/**
+	 * Constructor
+	 * @param cellNumWidth the number of turf cells along the width
+	 * @param cellNumHeight the number of turf cells along the height
+	 * @param cellWidth the width of a turf cell
+	 * @param cellHeight the height of a turf cell
+	 */
+	public TurfFootprintIndex(int cellNumWidth, int cellNumHeight, int cellWidth, int cellHeight)
+	{
+		this.cellNumWidth = cellNumWidth;
+		this.cellNumHeight = cellNumHeight;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+
+		cells = new Bag[cellNumWidth * cellNumHeight];
+		for (int i=0; i<cells.length; i++) cells[i] = new Bag();
+	}
+
+	/**
+	 * Registers a colony or moves its footprint to the bounding box of the circle (x, y, extent)
+	 * @param coral the colony
+	 * @param footprint the footprint stored in the colony -- null if the colony is not registered yet
+	 * @param x the x-position of the colony center
+	 * @param y the y-position of the colony center
+	 * @param extent the largest distance of the colony's shape from its center
+	 * @return the new footprint which has to be stored in the colony
+	 */
+	public int[] place(Object coral, int[] footprint, double x, double y, double extent)
+	{
+		int c0 = clamp((int)Math.floor((x - extent) / cellWidth), cellNumWidth);
+		int r0 = clamp((int)Math.floor((y - extent) / cellHeight), cellNumHeight);
+		int c1 = clamp((int)Math.floor((x + extent) / cellWidth), cellNumWidth);
+		int r1 = clamp((int)Math.floor((y + extent) / cellHeight), cellNumHeight);
+
+		// the bounding box lies completely outside the simulation area
+		if (x + extent < 0 || y + extent < 0 ||
+			x - extent >= cellNumWidth * cellWidth || y - extent >= cellNumHeight * cellHeight)
+		{
+			c0 = 0; c1 = -1;
+			r0 = 0; r1 = -1;
+		}
+
+		if (footprint == null)
+		{
+			footprint = new int[] {0, 0, -1, -1};
+		}
+		else if (footprint[0] == c0 && footprint[1] == r0 && footprint[2] == c1 && footprint[3] == r1)
+		{
+			return footprint;
+		}
+
+		// leave the cells which are not covered anymore
+		for (int i=footprint[0]; i<=footprint[2]; i++)
+			for (int j=footprint[1]; j<=footprint[3]; j++)
+				if (i < c0 || i > c1 || j < r0 || j > r1) cells[i*cellNumHeight + j].remove(coral);
+
+		// enter the newly covered cells
+		for (int i=c0; i<=c1; i++)
+			for (int j=r0; j<=r1; j++)
+				if (i < footprint[0] || i > footprint[2] || j < footprint[1] || j > footprint[3]) cells[i*cellNumHeight + j].add(coral);
+
+		footprint[0] = c0;
+		footprint[1] = r0;
+		footprint[2] = c1;
+		footprint[3] = r1;
+
+		return footprint;
+	}
+
+	/**
+	 * Removes a colony from all cells it covers
+	 * @param coral the colony
+	 * @param footprint the footprint stored in the colony
+	 */
+	public void remove(Object coral, int[] footprint)
+	{
+		if (footprint == null) return;
+
+		for (int i=footprint[0]; i<=footprint[2]; i++)
+			for (int j=footprint[1]; j<=footprint[3]; j++)
+				cells[i*cellNumHeight + j].remove(coral);
+
+		footprint[0] = 0; footprint[2] = -1;
+		footprint[1] = 0; footprint[3] = -1;
+	}
+
+	/**
+	 * Passes the colonies whose bounding box covers a cell
+	 * @param col the column of the cell
+	 * @param row the row of the cell
+	 * @return the colonies covering the cell
+	 */
+	public Bag getCorals(int col, int row)
+	{
+		return cells[col*cellNumHeight + row];
+	}
+
+	private int clamp(int val, int num)
+	{
+		if (val < 0) return 0;
+		if (val >= num) return num-1;
+		return val;
+	}
+}
@@ -0,0 +1,196 @@
+package siccom.sim;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import sim.field.grid.DoubleGrid2D;
+import sim.util.Bag;
+
+/**
+ * The turf algae layer as a dense grid of cells.
+ * <li>The percentage cover and the actual growth rate of every cell are kept in primitive arrays
+ * indexed by col * cellNumHeight + row -- the same index as the {@link TurfFootprintIndex}.</li>
+ * <li>The layer is updated once a month in one pass, see {@link #update(double)}:
+ * shading by corals, growth and grazing.</li>
+ *
+ * The cover is mirrored into a {@link DoubleGrid2D} for the portrayal only when the GUI is running -- see {@link #view}.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class TurfGrid implements Serializable
+{
+	private static final long serialVersionUID = -3650921742836127013L;
+
+	Siccom sim;
+	/**
+	 * The number of cells along the width and the height of the simulation area
+	 */
+	int cellNumWidth, cellNumHeight;
+	/**
+	 * The width and height of a single cell in pixels
+	 */
+	int cellWidth, cellHeight;
+	/**
+	 * The percentage cover of each cell
+	 */
+	public double[] cover;
+	/**
+	 * The growth rate of each cell in the current month
+	 */
+	public double[] growthRate;
+	/**
+	 * The initial growth rate of turf
+	 */
+	double iniGrowthRate;
+	/**
+	 * The maximal cover
+	 */
+	double maxCover = 100;
+	/**
+	 * The cover reduction of a grazed cell
+	 */
+	double grazedCover = 50;
+
+	/**
+	 * The cover for the portrayal -- null if the GUI is not running
+	 */
+	public DoubleGrid2D view;
+
+	/**
+	 * Constructor -- all cells are empty
+	 * @param sim the simulation
+	 * @param cellNumWidth the number of cells along the width
+	 * @param cellNumHeight the number of cells along the height
+	 * @param cellWidth the width of a cell
+	 * @param cellHeight the height of a cell
+	 * @param growthRate the growth rate of turf in percent
+	 * @param gui if true, the cover is mirrored into {@link #view}
+	 */
+	public TurfGrid(Siccom sim, int cellNumWidth, int cellNumHeight, int cellWidth, int cellHeight,
+					double growthRate, boolean gui)
+	{
+		this.sim = sim;
+		this.cellNumWidth = cellNumWidth;
+		this.cellNumHeight = cellNumHeight;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		iniGrowthRate = growthRate;
+
+		cover = new double[cellNumWidth * cellNumHeight];
+		this.growthRate = new double[cover.length];
+		Arrays.fill(this.growthRate, iniGrowthRate);
+
+		if (gui) view = new DoubleGrid2D(cellNumWidth, cellNumHeight);
+	}
+
+	/**
+	 * Passes the cell which contains a position.
+	 * The cell is computed directly from the cell width and height, so the lookup costs constant time.
+	 * @param x the x-position
+	 * @param y the y-position
+	 * @return the index of the cell or -1 if the position is not on the turf layer
+	 */
+	public int cellAt(double x, double y)
+	{
+		if (x < 0 || y < 0) return -1;
+
+		int col = (int)(x / cellWidth);
+		int row = (int)(y / cellHeight);
+		if (col >= cellNumWidth || row >= cellNumHeight) return -1;
+
+		return col*cellNumHeight + row;
+	}
+
+	/**
+	 * The monthly update of all cells
+	 * <li>the growth rate is reduced by the corals covering a cell, see {@link #shade(int)}</li>
+	 * <li>every cell grows by its growth rate</li>
+	 * <li>every cell is grazed with the grazing probability, see {@link GrazingSampler}</li>
+	 * @param grazingProb the grazing probability
+	 */
+	public void update(double grazingProb)
+	{
+		final double[] cover = this.cover;
+		final double[] growthRate = this.growthRate;
+		final int n = cover.length;
+
+		Arrays.fill(growthRate, iniGrowthRate);
+
+		// only cells under a coral bounding box can be shaded
+		Bag[] maCo = sim.maCoFootprint.cells;
+		Bag[] braCo = sim.braCoFootprint.cells;
+		for (int i=0; i<n; i++)
+			if (maCo[i].numObjs > 0 || braCo[i].numObjs > 0) shade(i);
+
+		// growth -- a plain loop over the arrays
+		for (int i=0; i<n; i++)
+			cover[i] = cover[i] >= maxCover ? maxCover : cover[i] + growthRate[i];
+
+		// grazing -- only the grazed cells are visited, see GrazingSampler
+		double logMiss = GrazingSampler.logMiss(grazingProb);
+		RandomStream random = sim.streams.get(RandomStreams.GRAZING, 1);
+		long i = -1;
+		while (true)
+		{
+			i += 1 + GrazingSampler.skip(random, logMiss);
+			if (i < 0 || i >= n) break;
+			cover[(int) i] -= grazedCover;
+			if (cover[(int) i] < 0) cover[(int) i] = 0;
+		}
+
+		updateView();
+	}
+
+	/**
+	 * Interaction with the corals covering a cell
+	 * -- only the colonies whose bounding box covers the cell are tested, see {@link TurfFootprintIndex}
+	 * @param i the index of the cell
+	 */
+	private void shade(int i)
+	{
+		double x = (i / cellNumHeight) * cellWidth;
+		double y = (i % cellNumHeight) * cellHeight;
+		double size = cellWidth*cellHeight;
+
+		Bag mB = sim.maCoFootprint.cells[i];
+		for (int k=0; k<mB.numObjs; k++)
+		{
+			MassiveCoral mC = (MassiveCoral) mB.objs[k];
+			if (mC.intersects(x, y, cellWidth, cellHeight))
+			{
+				if (mC.contains(x, y, cellWidth, cellHeight))
+				{
+					cover[i] = 0;
+					growthRate[i] = 0;
+				}
+				else if (mC.size > size) growthRate[i] = growthRate[i] * 0.9;
+			}
+		}
+
+		Bag bB = sim.braCoFootprint.cells[i];
+		for (int k=0; k<bB.numObjs; k++)
+		{
+			BranchingCoral bC = (BranchingCoral) bB.objs[k];
+			if (bC.intersects(x, y, cellWidth, cellHeight))
+			{
+				if (bC.contains(x, y, cellWidth, cellHeight))
+				{
+					cover[i] = 0;
+					growthRate[i] = 0;
+				}
+				else if (bC.size > size) growthRate[i] = growthRate[i] * 0.9;
+			}
+		}
+	}
+
+	/**
+	 * Copies the cover into {@link #view} if the GUI is running
+	 */
+	public void updateView()
+	{
+		if (view == null) return;
+		for (int col=0; col<cellNumWidth; col++)
+			System.arraycopy(cover, col*cellNumHeight, view.field[col], 0, cellNumHeight);
+	}
+}
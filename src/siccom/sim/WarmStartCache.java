@@ -0,0 +1,497 @@
+package siccom.sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Enumeration;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the states of simulations at given months on disk, so runs with the same parameters and the same seed
+ * start from the state instead of from the beginning -- across programs and days.
+ * <li>An entry is named by the SHA-256 of the model, its parameters, its seed and its month. The model is the code of the
+ * classes of the package siccom.sim. The parameters are the values of all parameter files a simulation reads -- sorted by
+ * file and key, the values of the {@link ParameterSet} in place of the ones of the files -- and the temperature data.
+ * Comments, the order of the lines and values for other files do not count.</li>
+ * <li>An entry holds the state, see {@link Siccom#toBytes()}, and the rows of the months before, see {@link SweepResults},
+ * so a run from the cache writes the same table as a run from the beginning.</li>
+ * <li>If the entries take more than the size of the cache, the ones which were used last long ago are deleted.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class WarmStartCache
+{
+	/**
+	 * The version of the entries -- part of their names
+	 */
+	static final int FORMAT = 1;
+	/**
+	 * The extension of the entries
+	 */
+	static final String EXTENSION = ".state";
+
+	/**
+	 * The SHA-256 of the classes of the model -- computed at the first request
+	 */
+	private static byte[] model;
+
+	/**
+	 * The folder of the entries
+	 */
+	File dir;
+	/**
+	 * The months at which the states are kept, ascending
+	 */
+	int[] months;
+	/**
+	 * The size of the cache in bytes
+	 */
+	long maxBytes;
+	/**
+	 * The number of runs which started from the cache and from the beginning
+	 */
+	int hits, misses;
+
+	/**
+	 * Constructor
+	 * @param dir the folder of the entries -- created if missing
+	 * @param months the months at which the states are kept
+	 * @param maxBytes the size of the cache in bytes
+	 */
+	public WarmStartCache(File dir, int[] months, long maxBytes) throws IOException
+	{
+		if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException(dir + " could not be created");
+		this.dir = dir;
+		this.months = months.clone();
+		Arrays.sort(this.months);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @param runMonths the number of months of a run
+	 * @return the last month of the cache within the run -- 0 if there is none
+	 */
+	public int lastMonth(int runMonths)
+	{
+		int last = 0;
+		for (int m : months) if (m > 0 && m <= runMonths) last = m;
+		return last;
+	}
+
+	/**
+	 * Runs a simulation up to a month -- from the latest state in the cache if there is one, from the beginning otherwise.
+	 * The rows of the months before are passed to the results either way, and the states at the month and at the months
+	 * of the cache before are kept.
+	 * @param run the number of the run
+	 * @param seed the seed
+	 * @param parameters the parameters
+	 * @param month the month
+	 * @param results the collected results
+	 * @return the simulation at the month
+	 */
+	public Siccom start(int run, long seed, ParameterSet parameters, int month, SweepResults results)
+	{
+		if (month <= 0) throw new IllegalArgumentException("month of a warm start must be positive: " + month);
+
+		// the months of the states, ascending
+		TreeSet<Integer> stops = new TreeSet<Integer>();
+		for (int m : months) if (m > 0 && m < month) stops.add(m);
+		stops.add(month);
+
+		byte[] canonical = canonical(parameters, seed);
+		StringBuilder rows = new StringBuilder();
+		Siccom sim = null;
+		int from = 0;
+		for (Integer m : stops.descendingSet())
+		{
+			Entry entry = load(key(canonical, m));
+			if (entry == null) continue;
+
+			try
+			{
+				sim = Siccom.fromBytes(entry.state);
+			}
+			catch (IllegalStateException e)
+			{
+				// e.g. written by an older model
+				System.out.println("Cache entry " + key(canonical, m) + " deleted: " + e.getMessage());
+				new File(dir, key(canonical, m) + EXTENSION).delete();
+				continue;
+			}
+			rows.append(entry.rows);
+			from = m;
+			break;
+		}
+
+		if (sim == null)
+		{
+			sim = new Siccom(seed, parameters);
+			sim.setSeed(seed);
+			count(false);
+		}
+		else
+		{
+			count(true);
+			System.out.println("Run " + run + " with seed " + seed + " and " + parameters + " starts from the cache at month " + from);
+		}
+		sim.parameters = parameters;
+		sim.run = run;
+		results.writeRows(sim, rows.toString());
+
+		// the rows are recorded for the states which are kept on the way
+		sim.results = new Recorder(results, rows);
+		if (from == 0) sim.start();
+		for (Integer m : stops.tailSet(from, false))
+		{
+			while (sim.schedule.getSteps() < m)
+				if (!sim.schedule.step(sim)) break;
+			if (sim.schedule.getSteps() != m) break;
+			store(key(canonical, m), rows.toString(), sim.toBytes());
+		}
+		sim.results = results;
+		return sim;
+	}
+
+	/**
+	 * Passes the parameters of a run in a canonical form
+	 * @param parameters the parameters
+	 * @param seed the seed
+	 * @return the bytes the names of the entries are made of
+	 */
+	byte[] canonical(ParameterSet parameters, long seed)
+	{
+		// the main file tells which files are read
+		Siccom probe = new Siccom(seed, parameters.derive());
+		try
+		{
+			StringBuilder s = new StringBuilder("format " + FORMAT + "\nseed " + seed + "\n");
+			for (String fileName : probe.conf.parameterFileNames())
+			{
+				ParameterFile pf = parameters.getParameterFile(fileName);
+				String file = fileName.substring(0, fileName.lastIndexOf('.'));
+
+				TreeSet<String> keys = new TreeSet<String>(pf.getOrderedKeys());
+				for (String name : parameters.values.keySet())
+					if (name.startsWith(file + ".")) keys.add(name.substring(file.length() + 1));
+
+				for (String key : keys)
+				{
+					String value = parameters.getValue(fileName, key);
+					if (value == null) value = pf.getValue(key);
+					s.append(file + "." + key + "\t" + value + "\n");
+				}
+			}
+
+			File temperature = probe.conf.getFile(Siccom.TEMPERATURE_FILE);
+			MessageDigest md = digest();
+			md.update(model());
+			md.update(s.toString().getBytes("UTF-8"));
+			md.update(readFile(temperature));
+			return md.digest();
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("parameters could not be read: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Passes the fingerprint of the model, so the entries of another version of the program are not used
+	 * @return the SHA-256 of the class files of the package siccom.sim, sorted by name -- from the folder or the jar of the program
+	 */
+	static synchronized byte[] model()
+	{
+		if (model != null) return model;
+
+		TreeMap<String, byte[]> classes = new TreeMap<String, byte[]>();
+		try
+		{
+			File source = new File(Siccom.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+			String pkg = Siccom.class.getPackage().getName().replace('.', '/') + "/";
+			if (source.isDirectory())
+			{
+				File[] files = new File(source, pkg).listFiles();
+				if (files == null) throw new IOException(source + " has no " + pkg);
+				for (File f : files)
+					if (f.getName().endsWith(".class")) classes.put(f.getName(), readFile(f));
+			}
+			else
+			{
+				JarFile jar = new JarFile(source);
+				try
+				{
+					for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); )
+					{
+						JarEntry entry = e.nextElement();
+						String name = entry.getName();
+						if (name.startsWith(pkg) && name.indexOf('/', pkg.length()) < 0 && name.endsWith(".class"))
+							classes.put(name.substring(pkg.length()), readStream(jar.getInputStream(entry)));
+					}
+				}
+				finally
+				{
+					jar.close();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("classes of the model could not be read: " + e.getMessage());
+		}
+		catch (URISyntaxException e)
+		{
+			throw new IllegalStateException("classes of the model could not be found: " + e.getMessage());
+		}
+		if (classes.isEmpty()) throw new IllegalStateException("classes of the model could not be found");
+
+		MessageDigest md = digest();
+		for (String name : classes.keySet())
+		{
+			md.update(name.getBytes());
+			md.update(classes.get(name));
+		}
+		model = md.digest();
+		return model;
+	}
+
+	/**
+	 * @param canonical the canonical form of the parameters and the seed
+	 * @param month the month
+	 * @return the name of the entry -- the SHA-256 in hexadecimal digits
+	 */
+	static String key(byte[] canonical, int month)
+	{
+		MessageDigest md = digest();
+		md.update(canonical);
+		md.update(("month " + month).getBytes());
+
+		StringBuilder key = new StringBuilder();
+		for (byte b : md.digest()) key.append(String.format("%02x", b & 0xff));
+		return key.toString();
+	}
+
+	/**
+	 * Reads an entry and marks it as used -- an entry which cannot be read is deleted
+	 * @param key the name of the entry
+	 * @return the entry, null if there is none
+	 */
+	Entry load(String key)
+	{
+		File file = new File(dir, key + EXTENSION);
+		if (!file.isFile()) return null;
+
+		try
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+			Entry entry = new Entry();
+			try
+			{
+				if (in.readInt() != FORMAT || !in.readUTF().equals(key)) throw new IOException("foreign entry");
+				entry.rows = new String(readBytes(in), "UTF-8");
+				entry.state = readBytes(in);
+			}
+			finally
+			{
+				in.close();
+			}
+			file.setLastModified(System.currentTimeMillis());
+			return entry;
+		}
+		catch (IOException e)
+		{
+			System.out.println("Cache entry " + file + " deleted: " + e.getMessage());
+			file.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Writes an entry and deletes the ones used last long ago if the cache is full
+	 * -- the entry is written to a temporary file first, so other programs never read half an entry
+	 * @param key the name of the entry
+	 * @param rows the rows of the months before
+	 * @param state the state
+	 */
+	void store(String key, String rows, byte[] state)
+	{
+		File tmp = null;
+		try
+		{
+			// a file of its own, also for the programs which share the cache
+			tmp = File.createTempFile(key, ".tmp", dir);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+			try
+			{
+				out.writeInt(FORMAT);
+				out.writeUTF(key);
+				writeBytes(out, rows.getBytes("UTF-8"));
+				writeBytes(out, state);
+			}
+			finally
+			{
+				out.close();
+			}
+			File file = new File(dir, key + EXTENSION);
+			if (!tmp.renameTo(file)) throw new IOException("could not be renamed to " + file);
+		}
+		catch (IOException e)
+		{
+			// the run goes on without the entry
+			System.out.println("Cache entry " + key + " not written: " + e.getMessage());
+			if (tmp != null) tmp.delete();
+			return;
+		}
+		evict();
+	}
+
+	/**
+	 * Deletes the entries used last long ago until the cache is not full anymore
+	 */
+	synchronized void evict()
+	{
+		File[] files = dir.listFiles();
+		if (files == null) return;
+
+		List<File> entries = new ArrayList<File>();
+		long total = 0;
+		for (File f : files)
+		{
+			if (!f.getName().endsWith(EXTENSION)) continue;
+			entries.add(f);
+			total += f.length();
+		}
+		if (total <= maxBytes) return;
+
+		File[] lru = entries.toArray(new File[entries.size()]);
+		Arrays.sort(lru, new Comparator<File>()
+		{
+			public int compare(File a, File b)
+			{
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+		for (int i=0; i<lru.length && total > maxBytes; i++)
+		{
+			long length = lru[i].length();
+			if (lru[i].delete()) total -= length;
+		}
+	}
+
+	private synchronized void count(boolean hit)
+	{
+		if (hit) hits++;
+		else misses++;
+	}
+
+	public synchronized String toString()
+	{
+		return "Cache " + dir + ": " + hits + " runs from the cache, " + misses + " from the beginning";
+	}
+
+	private static MessageDigest digest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 not available");
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException
+	{
+		byte[] bytes = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try
+		{
+			in.readFully(bytes);
+		}
+		finally
+		{
+			in.close();
+		}
+		return bytes;
+	}
+
+	private static byte[] readStream(InputStream stream) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		try
+		{
+			for (int n = stream.read(buffer); n >= 0; n = stream.read(buffer)) bytes.write(buffer, 0, n);
+		}
+		finally
+		{
+			stream.close();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException
+	{
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+	{
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * An entry of the cache
+	 */
+	static class Entry
+	{
+		String rows;
+		byte[] state;
+	}
+
+	/**
+	 * Passes the rows of a run to the results and records them for the entries
+	 */
+	static class Recorder extends SweepResults
+	{
+		SweepResults target;
+		StringBuilder recorded;
+
+		Recorder(SweepResults target, StringBuilder recorded)
+		{
+			super(null, target.names);
+			this.target = target;
+			this.recorded = recorded;
+		}
+
+		public synchronized void groupedOutput(Siccom sim, int steps)
+		{
+			String rows = rows(sim, steps);
+			recorded.append(rows);
+			target.writeRows(sim, rows);
+		}
+	}
+}
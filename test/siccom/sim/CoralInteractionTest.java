@@ -0,0 +1,95 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@link CoralInteraction} with split streams does not depend on the number of its threads
+ * -- the runs with 1 and with more threads end with the same census and pass the same output table.
+ * The parameter files are read from the folder inf of the working directory.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class CoralInteractionTest
+{
+	/**
+	 * The number of months of each run
+	 */
+	static final int MONTHS = 36;
+	static final long[] SEEDS = {1, 2};
+
+	/**
+	 * The end of one run
+	 */
+	static class Result
+	{
+		String table;
+		Census maCoCensus, braCoCensus;
+	}
+
+	static Result run(long seed, int threads)
+	{
+		ParameterSet parameters = new ParameterSet(new File("inf"));
+		parameters.setValue("environment.splitStreams", "true");
+		parameters.setValue("environment.pairwiseInteraction", "true");
+		parameters.setValue("environment.interactionThreads", String.valueOf(threads));
+
+		StringWriter table = new StringWriter();
+		SweepResults results = new SweepResults(new PrintWriter(table), Arrays.asList("environment.interactionThreads"));
+
+		Siccom sim = new Siccom(seed, parameters);
+		sim.setSeed(seed);
+		sim.results = results;
+		sim.start();
+		assertEquals(threads, sim.interactionThreads);
+		while (sim.schedule.getSteps() < MONTHS)
+			if (!sim.schedule.step(sim)) break;
+		sim.finish();
+
+		Result result = new Result();
+		// the rows without the tag, whose last column is the number of threads
+		result.table = table.toString().replaceAll("(?m)^(\\d+\\t\\d+)\\t\\d+\\t", "$1\t");
+		result.maCoCensus = sim.maCoCensus;
+		result.braCoCensus = sim.braCoCensus;
+		return result;
+	}
+
+	static void assertSameCensus(String message, Census expected, Census actual)
+	{
+		assertArrayEquals(message + ", count", expected.count, actual.count);
+		assertArrayEquals(message + ", size", expected.size, actual.size, 0);
+		assertArrayEquals(message + ", mature surface", expected.matureSurface, actual.matureSurface, 0);
+	}
+
+	@Test
+	public void threadsDoNotChangeTheRun()
+	{
+		int many = Math.max(4, Runtime.getRuntime().availableProcessors());
+		for (long seed : SEEDS)
+		{
+			Result one = run(seed, 1);
+			Result more = run(seed, many);
+			String message = "seed " + seed + ", 1 and " + many + " threads";
+
+			// enough colonies to split the search among the threads
+			int colonies = 0;
+			for (int c : more.maCoCensus.count) colonies += c;
+			for (int c : more.braCoCensus.count) colonies += c;
+			assertTrue(message + ", " + colonies + " colonies", colonies > CoralInteraction.CHUNK);
+			assertEquals(message + ", months in the table", MONTHS, one.table.split("\tAlgae\t", -1).length - 1);
+
+			assertEquals(message + ", table", one.table, more.table);
+			assertSameCensus(message + ", massive corals", one.maCoCensus, more.maCoCensus);
+			assertSameCensus(message + ", branching corals", one.braCoCensus, more.braCoCensus);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that the victims picked by {@link GrazingSampler#skip(RandomStream, double)} are distributed like the ones
+ * of one Bernoulli trial per alga -- every alga is hit with the grazing probability, independently of the others.
+ * <li>The hits of every alga follow the binomial distribution of the trials.</li>
+ * <li>The number of victims per trial follows the binomial distribution of the algae -- chi-square test.</li>
+ * <li>Neighbouring algae are hit together with the square of the probability.</li>
+ *
+ * The streams are seeded, so the test always draws the same numbers. The limits are 4.5 standard deviations
+ * and the 0.1% quantile of the chi-square distribution.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class GrazingSamplerTest
+{
+	/**
+	 * The number of algae
+	 */
+	static final int ALGAE = 60;
+	/**
+	 * The number of months drawn
+	 */
+	static final int TRIALS = 40000;
+	static final double[] PROBABILITIES = {0.01, 0.18, 0.5, 0.93};
+
+	static RandomStream stream(long seed)
+	{
+		return new RandomStream(RandomStreams.key(seed, 0, RandomStreams.GRAZING, 0), 0);
+	}
+
+	/**
+	 * The victims of one trial
+	 * @param skipping if true, drawn by skipping, else by one trial per alga
+	 * @return true for each alga which is hit
+	 */
+	static boolean[] victims(RandomStream random, double p, boolean skipping)
+	{
+		boolean[] hit = new boolean[ALGAE];
+		if (skipping)
+		{
+			double logMiss = GrazingSampler.logMiss(p);
+			long i = -1;
+			while (true)
+			{
+				i += 1 + GrazingSampler.skip(random, logMiss);
+				if (i < 0 || i >= ALGAE) break;
+				hit[(int) i] = true;
+			}
+		}
+		else for (int i=0; i<ALGAE; i++) hit[i] = random.nextBoolean(p);
+		return hit;
+	}
+
+	@Test
+	public void skippingHitsLikeBernoulliTrials()
+	{
+		for (boolean skipping : new boolean[] {true, false})
+		{
+			for (int k=0; k<PROBABILITIES.length; k++)
+			{
+				double p = PROBABILITIES[k];
+				RandomStream random = stream(k + 1);
+				long[] hits = new long[ALGAE];
+				long pairs = 0;
+				long[] victims = new long[ALGAE + 1];
+				for (int t=0; t<TRIALS; t++)
+				{
+					boolean[] hit = victims(random, p, skipping);
+					int num = 0;
+					for (int i=0; i<ALGAE; i++)
+					{
+						if (!hit[i]) continue;
+						hits[i]++;
+						num++;
+						if (i > 0 && hit[i-1]) pairs++;
+					}
+					victims[num]++;
+				}
+				String method = (skipping ? "skipping" : "Bernoulli") + " with p = " + p;
+
+				// every alga
+				double sd = Math.sqrt(TRIALS * p * (1-p));
+				for (int i=0; i<ALGAE; i++)
+					assertEquals(method + ", hits of alga " + i, TRIALS * p, hits[i], 4.5 * sd);
+
+				// neighbours -- two pairs sharing an alga are hit together with p^3
+				int m = ALGAE - 1;
+				double pp = p * p;
+				double pairSd = Math.sqrt(TRIALS * (m * pp * (1-pp) + 2 * (m-1) * (p*pp - pp*pp)));
+				assertEquals(method + ", hits of neighbours", m * TRIALS * pp, pairs, 4.5 * pairSd);
+
+				// the victims per trial
+				double chi = chiSquare(victims, p);
+				assertTrue(method + ", chi-square " + chi, chi < chiSquareLimit(victims, p));
+			}
+		}
+	}
+
+	@Test
+	public void nothingOrEverythingIsGrazed()
+	{
+		RandomStream random = stream(1);
+		assertEquals(Long.MAX_VALUE, GrazingSampler.skip(random, GrazingSampler.logMiss(0)));
+		assertEquals(Long.MAX_VALUE, GrazingSampler.skip(random, GrazingSampler.logMiss(-0.5)));
+		assertEquals(Long.MAX_VALUE, GrazingSampler.skip(random, GrazingSampler.logMiss(Double.NaN)));
+		for (int t=0; t<100; t++) assertEquals(0, GrazingSampler.skip(random, GrazingSampler.logMiss(1)));
+	}
+
+	/**
+	 * The chi-square of the victims per trial against the binomial distribution -- classes with less than
+	 * 5 expected trials are pooled with their neighbours
+	 */
+	static double chiSquare(long[] victims, double p)
+	{
+		double chi = 0;
+		double expected = 0, observed = 0;
+		for (int n=0; n<=ALGAE; n++)
+		{
+			expected += TRIALS * binomial(n, p);
+			observed += victims[n];
+			if (expected >= 5 || n == ALGAE)
+			{
+				if (expected > 0) chi += (observed - expected) * (observed - expected) / expected;
+				expected = observed = 0;
+			}
+		}
+		return chi;
+	}
+
+	/**
+	 * The 0.1% quantile of the chi-square distribution with one degree of freedom less than the pooled classes
+	 * -- the approximation of Wilson and Hilferty
+	 */
+	static double chiSquareLimit(long[] victims, double p)
+	{
+		int classes = 0;
+		double expected = 0;
+		for (int n=0; n<=ALGAE; n++)
+		{
+			expected += TRIALS * binomial(n, p);
+			if (expected >= 5 || n == ALGAE)
+			{
+				classes++;
+				expected = 0;
+			}
+		}
+		double df = Math.max(1, classes - 1);
+		double a = 2 / (9 * df);
+		return df * Math.pow(1 - a + 3.09 * Math.sqrt(a), 3);
+	}
+
+	/**
+	 * @return the probability of n victims among the algae
+	 */
+	static double binomial(int n, double p)
+	{
+		double log = 0;
+		for (int i=1; i<=n; i++) log += Math.log(ALGAE - n + i) - Math.log(i);
+		return Math.exp(log + n * Math.log(p) + (ALGAE - n) * Math.log1p(-p));
+	}
+}
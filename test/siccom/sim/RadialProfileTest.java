@@ -0,0 +1,134 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.jhotdraw.geom.Polygon2D;
+import org.junit.Test;
+
+/**
+ * Compares the sector tests of {@link RadialProfile} with the polygon through its ray ends, see {@link RadialProfile#toPolygon()}
+ * -- on random star-shaped profiles, some of whose rays have length 0.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class RadialProfileTest
+{
+	/**
+	 * The number of profiles of each test
+	 */
+	static final int PROFILES = 500;
+	/**
+	 * The number of points or rectangles tested against each profile
+	 */
+	static final int PROBES = 400;
+
+	/**
+	 * Draws a profile around a random center -- every ray has length 0 with the given probability
+	 */
+	static RadialProfile profile(Random random, int n, double zeroRays)
+	{
+		RadialProfile p = new RadialProfile(50 + random.nextDouble() * 100, 50 + random.nextDouble() * 100, n);
+		for (int i=0; i<n; i++)
+			p.set(i, random.nextDouble() < zeroRays ? 0 : random.nextDouble() * 40);
+		p.update();
+		return p;
+	}
+
+	@Test
+	public void containsPointLikePolygon()
+	{
+		Random random = new Random(1);
+		for (int k=0; k<PROFILES; k++)
+		{
+			int n = k % 2 == 0 ? 24 : 3 + random.nextInt(30);
+			RadialProfile p = profile(random, n, k % 5 == 0 ? 0.5 : 0.1);
+			Polygon2D.Double polygon = p.toPolygon();
+
+			for (int t=0; t<PROBES; t++)
+			{
+				double x = p.minX - 5 + random.nextDouble() * (p.maxX - p.minX + 10);
+				double y = p.minY - 5 + random.nextDouble() * (p.maxY - p.minY + 10);
+				assertEquals("profile " + k + ", point " + x + " " + y, polygon.contains(x, y), p.contains(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void intersectsRectangleLikePolygon()
+	{
+		Random random = new Random(2);
+		for (int k=0; k<PROFILES; k++)
+		{
+			int n = k % 2 == 0 ? 24 : 3 + random.nextInt(30);
+			RadialProfile p = profile(random, n, k % 5 == 0 ? 0.5 : 0.1);
+			Polygon2D.Double polygon = p.toPolygon();
+
+			for (int t=0; t<PROBES; t++)
+			{
+				// the size of a turf cell and larger
+				double w = 1 + random.nextDouble() * 20;
+				double h = 1 + random.nextDouble() * 20;
+				double x = p.minX - w - 2 + random.nextDouble() * (p.maxX - p.minX + w + 4);
+				double y = p.minY - h - 2 + random.nextDouble() * (p.maxY - p.minY + h + 4);
+				assertEquals("profile " + k + ", rectangle " + x + " " + y + " " + w + " " + h,
+						polygon.intersects(x, y, w, h), p.intersects(x, y, w, h));
+			}
+		}
+	}
+
+	@Test
+	public void containsRectangleLikePolygon()
+	{
+		Random random = new Random(3);
+		for (int k=0; k<PROFILES; k++)
+		{
+			int n = k % 2 == 0 ? 24 : 3 + random.nextInt(30);
+			RadialProfile p = profile(random, n, k % 5 == 0 ? 0.5 : 0.1);
+			Polygon2D.Double polygon = p.toPolygon();
+
+			for (int t=0; t<PROBES; t++)
+			{
+				double w = 0.5 + random.nextDouble() * 10;
+				double h = 0.5 + random.nextDouble() * 10;
+				double x = p.cx - w - 15 + random.nextDouble() * (w + 30);
+				double y = p.cy - h - 15 + random.nextDouble() * (h + 30);
+				assertEquals("profile " + k + ", rectangle " + x + " " + y + " " + w + " " + h,
+						polygon.contains(x, y, w, h), p.contains(x, y, w, h));
+			}
+		}
+	}
+
+	@Test
+	public void degenerateProfilesLikePolygon()
+	{
+		Random random = new Random(4);
+		for (int k=0; k<PROFILES; k++)
+		{
+			// no ray, a single spike or two rays longer than 0
+			int n = 24;
+			RadialProfile p = new RadialProfile(50, 50, n);
+			for (int r=0; r<k%3; r++) p.set(random.nextInt(n), 1 + random.nextDouble() * 40);
+			p.update();
+			Polygon2D.Double polygon = p.toPolygon();
+
+			for (int t=0; t<PROBES/4; t++)
+			{
+				double x = 5 + random.nextDouble() * 90;
+				double y = 5 + random.nextDouble() * 90;
+				double w = 0.5 + random.nextDouble() * 10;
+				double h = 0.5 + random.nextDouble() * 10;
+				assertEquals("profile " + k + ", point " + x + " " + y, polygon.contains(x, y), p.contains(x, y));
+				assertEquals("profile " + k + ", rectangle " + x + " " + y + " " + w + " " + h,
+						polygon.intersects(x, y, w, h), p.intersects(x, y, w, h));
+				assertEquals("profile " + k + ", rectangle " + x + " " + y + " " + w + " " + h,
+						polygon.contains(x, y, w, h), p.contains(x, y, w, h));
+			}
+			// the center itself
+			assertEquals(polygon.contains(50, 50), p.contains(50, 50));
+			assertEquals(polygon.intersects(49, 49, 2, 2), p.intersects(49, 49, 2, 2));
+		}
+	}
+}
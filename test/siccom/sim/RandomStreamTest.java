@@ -0,0 +1,101 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import ec.util.MersenneTwisterFast;
+import org.junit.Test;
+
+import sim.engine.SimState;
+
+/**
+ * Tests {@link RandomStream#nextInt(int)} of a split stream -- its bounds and the rejection which keeps it free of bias.
+ * <li>Every number is in [0, n), for small, odd, power of two and the largest bounds.</li>
+ * <li>A bound of about 2/3 of 2^31 folds the upper third of the raw numbers onto the lower half of the range
+ * -- without the rejection the lower half would be drawn with 2/3 instead of 1/2.</li>
+ * <li>A legacy stream draws the same numbers as the generator of the simulation.</li>
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class RandomStreamTest
+{
+	/**
+	 * The number of draws of each test
+	 */
+	static final int DRAWS = 200000;
+
+	static RandomStream stream(long seed)
+	{
+		return new RandomStream(RandomStreams.key(seed, 0, RandomStreams.CORAL, 0), 0);
+	}
+
+	@Test
+	public void nextIntWithinBounds()
+	{
+		RandomStream random = stream(1);
+		int[] bounds = {1, 2, 3, 7, 10, 64, 1000, 1 << 30, (1 << 30) + 1, 0x55555556, Integer.MAX_VALUE};
+		for (int n : bounds)
+		{
+			for (int t=0; t<DRAWS/10; t++)
+			{
+				int val = random.nextInt(n);
+				assertTrue("nextInt(" + n + ") = " + val, val >= 0 && val < n);
+			}
+		}
+		for (int t=0; t<100; t++) assertEquals(0, random.nextInt(1));
+	}
+
+	@Test
+	public void nextIntRejectsNonPositiveBounds()
+	{
+		RandomStream random = stream(2);
+		for (int n : new int[] {0, -1, Integer.MIN_VALUE})
+		{
+			try
+			{
+				random.nextInt(n);
+				fail("nextInt(" + n + ") did not throw");
+			}
+			catch (IllegalArgumentException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void nextIntIsUniform()
+	{
+		// a small bound -- chi-square with 9 degrees of freedom, 27.88 is the 0.1% quantile
+		RandomStream random = stream(3);
+		int n = 10;
+		long[] count = new long[n];
+		for (int t=0; t<DRAWS; t++) count[random.nextInt(n)]++;
+		double expected = DRAWS / (double) n;
+		double chi = 0;
+		for (int i=0; i<n; i++) chi += (count[i] - expected) * (count[i] - expected) / expected;
+		assertTrue("chi-square " + chi, chi < 27.88);
+
+		// a large bound -- the lower half must not be drawn more often than the upper one
+		random = stream(4);
+		n = 0x55555556;
+		long lower = 0;
+		for (int t=0; t<DRAWS; t++) if (random.nextInt(n) < n/2) lower++;
+		double sd = Math.sqrt(DRAWS * 0.25);
+		assertEquals("draws in the lower half", DRAWS * 0.5, lower, 4.5 * sd);
+	}
+
+	@Test
+	public void legacyStreamDrawsFromSimulation()
+	{
+		RandomStream random = new RandomStream(new SimState(5));
+		MersenneTwisterFast reference = new MersenneTwisterFast(5);
+		for (int t=0; t<1000; t++)
+		{
+			int n = 1 + t * 7919;
+			assertEquals(reference.nextInt(n), random.nextInt(n));
+		}
+	}
+}
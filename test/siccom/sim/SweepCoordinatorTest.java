@@ -0,0 +1,295 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests a {@link SweepCoordinator} with {@link SweepWorker}s on localhost -- its table must be the one of a {@link ReplicateRunner}
+ * on one thread, byte by byte, also if a worker is lost in the middle of a run or the coordinator is started again.
+ * A failed run is noted as failed and is run again by the next coordinator.
+ * The parameter files are read from the folder inf of the working directory.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class SweepCoordinatorTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Two points with two seeds each, a year long
+	 */
+	static SweepSpec spec()
+	{
+		SweepSpec spec = new SweepSpec();
+		spec.months = 12;
+		spec.seeds = new long[] {1, 2};
+		spec.infDir = new File("inf");
+		spec.names.add("environment.grazingProb");
+		spec.values.add(new String[] {"0.18", "0.3"});
+		return spec;
+	}
+
+	/**
+	 * @return the table of a {@link ReplicateRunner} on one thread -- the runs are written in their order
+	 */
+	byte[] reference(SweepSpec spec) throws IOException
+	{
+		File file = folder.newFile("reference.txt");
+		SweepResults results = new SweepResults(new PrintWriter(new FileWriter(file)), spec.names);
+		results.writeHeader();
+		new ReplicateRunner(spec.expand(), spec.seeds, spec.months, results).run(1);
+		results.close();
+		return Files.readAllBytes(file.toPath());
+	}
+
+	/**
+	 * @return a port which was free a moment ago
+	 */
+	static int freePort() throws IOException
+	{
+		ServerSocket socket = new ServerSocket(0);
+		try
+		{
+			return socket.getLocalPort();
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+
+	/**
+	 * Serves the coordinator on its own thread and waits until it listens
+	 */
+	static Thread serve(final SweepCoordinator coordinator, final int port) throws InterruptedException
+	{
+		Thread thread = new Thread()
+		{
+			public void run()
+			{
+				try
+				{
+					coordinator.serve(port);
+				}
+				catch (IOException e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		thread.start();
+		while ((coordinator.server == null || !coordinator.server.isBound()) && thread.isAlive()) Thread.sleep(10);
+		return thread;
+	}
+
+	/**
+	 * Runs one worker until the coordinator has no runs left
+	 */
+	static void work(int port) throws InterruptedException
+	{
+		SweepWorker worker = new SweepWorker("localhost", port, new ParameterSet(new File("inf")));
+		worker.retries = 0;
+		Thread thread = new Thread(worker);
+		thread.start();
+		thread.join(600000);
+		assertFalse("worker still running", thread.isAlive());
+	}
+
+	/**
+	 * @return the tagged rows of one run, as a worker sends them
+	 */
+	static String rows(SweepSpec spec, int run)
+	{
+		StringWriter rows = new StringWriter();
+		ParameterSet parameters = spec.expand().get(run / spec.seeds.length);
+		ReplicateRunner.runReplicate(run, spec.seeds[run % spec.seeds.length], parameters, spec.months,
+				new SweepResults(new PrintWriter(rows), spec.names));
+		return rows.toString();
+	}
+
+	@Test
+	public void tableLikeReplicateRunner() throws Exception
+	{
+		SweepSpec spec = spec();
+		File table = new File(folder.getRoot(), "table.txt");
+		SweepCoordinator coordinator = new SweepCoordinator(spec, table, new File(folder.getRoot(), "table.checkpoint"));
+
+		int port = freePort();
+		Thread server = serve(coordinator, port);
+		work(port);
+		server.join(60000);
+
+		assertFalse("coordinator still serving", server.isAlive());
+		assertEquals(0, coordinator.remaining);
+		assertArrayEquals(reference(spec), Files.readAllBytes(table.toPath()));
+	}
+
+	@Test
+	public void lostWorkerRunIsQueuedAgain() throws Exception
+	{
+		SweepSpec spec = spec();
+		File table = new File(folder.getRoot(), "table.txt");
+		SweepCoordinator coordinator = new SweepCoordinator(spec, table, new File(folder.getRoot(), "table.checkpoint"));
+
+		int port = freePort();
+		Thread server = serve(coordinator, port);
+
+		// a worker which takes the first run and is killed while it sends its rows
+		Socket socket = new Socket("localhost", port);
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+		out.println("READY");
+		out.flush();
+		String[] run = in.readLine().split(" ");
+		assertEquals("RUN", run[0]);
+		assertEquals("0", run[1]);
+		for (int i=0; i<Integer.parseInt(run[4]); i++) in.readLine();
+
+		String[] rows = rows(spec, 0).split("\n");
+		out.println("RESULT 0 " + rows.length);
+		out.println(rows[0]);
+		out.println(rows[1]);
+		out.flush();
+		socket.close();
+
+		synchronized (coordinator)
+		{
+			while (!coordinator.queue.contains(0)) coordinator.wait(10000);
+			assertFalse(coordinator.done[0]);
+			assertEquals(spec.expand().size() * spec.seeds.length, coordinator.remaining);
+		}
+
+		// the run is handed to the next worker
+		work(port);
+		server.join(60000);
+
+		assertFalse("coordinator still serving", server.isAlive());
+		assertArrayEquals(reference(spec), Files.readAllBytes(table.toPath()));
+	}
+
+	/**
+	 * @return the lines of a file, sorted
+	 */
+	static List<String> sortedLines(byte[] bytes) throws IOException
+	{
+		String[] lines = new String(bytes, "UTF-8").split("\n");
+		Arrays.sort(lines);
+		return Arrays.asList(lines);
+	}
+
+	@Test
+	public void failedRunIsRunAgainOnRestart() throws Exception
+	{
+		SweepSpec spec = spec();
+		File table = new File(folder.getRoot(), "table.txt");
+		File checkpoint = new File(folder.getRoot(), "table.checkpoint");
+		SweepCoordinator first = new SweepCoordinator(spec, table, checkpoint);
+
+		int port = freePort();
+		Thread server = serve(first, port);
+
+		// a worker which fails the first run
+		Socket socket = new Socket("localhost", port);
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+		out.println("READY");
+		out.flush();
+		String[] run = in.readLine().split(" ");
+		assertEquals("0", run[1]);
+		for (int i=0; i<Integer.parseInt(run[4]); i++) in.readLine();
+		out.println("FAILED 0 with seed 1: a test");
+		out.flush();
+		socket.close();
+
+		work(port);
+		server.join(60000);
+
+		assertFalse("coordinator still serving", server.isAlive());
+		assertEquals(1, first.failures);
+		assertTrue(first.failed[0]);
+		assertFalse(first.done[0]);
+		assertTrue(new String(Files.readAllBytes(checkpoint.toPath()), "UTF-8").contains("failed 0 "));
+
+		// the second one hands out the failed run only and appends its rows
+		SweepCoordinator second = new SweepCoordinator(spec, table, checkpoint);
+		assertEquals(1, second.remaining);
+		assertEquals(Arrays.asList(0), second.queue);
+
+		port = freePort();
+		server = serve(second, port);
+		work(port);
+		server.join(60000);
+
+		assertFalse("coordinator still serving", server.isAlive());
+		assertEquals(0, second.failures);
+		assertEquals(sortedLines(reference(spec)), sortedLines(Files.readAllBytes(table.toPath())));
+	}
+
+	@Test
+	public void restartCutsTableToCheckpoint() throws Exception
+	{
+		SweepSpec spec = spec();
+		File table = new File(folder.getRoot(), "table.txt");
+		File checkpoint = new File(folder.getRoot(), "table.checkpoint");
+
+		// the first coordinator finishes run 0 and dies while it writes run 1
+		SweepCoordinator first = new SweepCoordinator(spec, table, checkpoint);
+		first.finish(0, rows(spec, 0));
+		long length = table.length();
+		String partial = rows(spec, 1).substring(0, 100);
+		first.table.seek(length);
+		first.table.write(partial.getBytes("UTF-8"));
+		first.checkpoint.print("done 1 " + (length + 1000));
+		first.checkpoint.flush();
+		first.table.close();
+		first.checkpoint.close();
+		assertEquals(length + partial.length(), table.length());
+
+		// the second one cuts the rows of run 1 and hands out the other runs only
+		SweepCoordinator second = new SweepCoordinator(spec, table, checkpoint);
+		assertEquals(length, table.length());
+		assertTrue(second.done[0]);
+		assertEquals(second.done.length - 1, second.remaining);
+		assertFalse(second.queue.contains(0));
+
+		int port = freePort();
+		Thread server = serve(second, port);
+		work(port);
+		server.join(60000);
+
+		assertFalse("coordinator still serving", server.isAlive());
+		byte[] expected = reference(spec);
+		assertArrayEquals(expected, Files.readAllBytes(table.toPath()));
+
+		// a third one has nothing left to do and closes its files
+		SweepCoordinator third = new SweepCoordinator(spec, table, checkpoint);
+		assertEquals(0, third.remaining);
+		third.serve(freePort());
+		assertFalse(third.table.getChannel().isOpen());
+		third.checkpoint.println();
+		assertTrue("checkpoint file not closed", third.checkpoint.checkError());
+		assertArrayEquals(expected, Files.readAllBytes(table.toPath()));
+	}
+}
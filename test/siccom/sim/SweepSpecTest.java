@@ -0,0 +1,69 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Tests that a {@link SweepSpec} refuses swept names which would be ignored by the runs
+ * -- a key which its file does not have and a file which is not read.
+ * The parameter files are read from the folder inf of the working directory.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class SweepSpecTest
+{
+	static SweepSpec spec(String name, String... values)
+	{
+		SweepSpec spec = new SweepSpec();
+		spec.infDir = new File("inf");
+		spec.names.add(name);
+		spec.values.add(values);
+		return spec;
+	}
+
+	static void assertRefused(SweepSpec spec)
+	{
+		try
+		{
+			spec.expand();
+			fail(spec.names + " expanded");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void knownNamesExpand()
+	{
+		assertEquals(2, spec("environment.grazingProb", "0.18", "0.3").expand().size());
+		assertEquals(1, spec("maCoParam2.maxRadius", "20").expand().size());
+	}
+
+	@Test
+	public void unknownKeyIsRefused()
+	{
+		assertRefused(spec("environment.grazingprob", "0.18", "0.3"));
+	}
+
+	@Test
+	public void unreadFileIsRefused()
+	{
+		assertRefused(spec("maCoParam3.maxRadius", "20"));
+		assertRefused(spec("environment2.grazingProb", "0.18"));
+
+		// the file of the second group is not read if the point has one group only
+		SweepSpec spec = spec("maCoParam1.maxRadius", "20");
+		spec.names.add("mainParam.maCoNum");
+		spec.values.add(new String[] {"1"});
+		spec.expand();
+		spec.names.set(0, "maCoParam2.maxRadius");
+		assertRefused(spec);
+	}
+}
@@ -0,0 +1,138 @@
+package siccom.sim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link WarmStartCache} in a temporary folder -- every run is done from the beginning and twice through the cache,
+ * the second time from the cache, and the three tables must be equal.
+ * The parameter files are read from the folder inf of the working directory.
+ *
+ * @author Andreas Kubicek
+ * @version 2.0
+ */
+public class WarmStartCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	static final int MONTHS = 36;
+	static final int[] CACHE_MONTHS = {12, 24};
+	static final long[] SEEDS = {1, 2};
+	static final List<String> NAMES = Arrays.asList("environment.grazingProb");
+
+	static ParameterSet parameters(String grazingProb)
+	{
+		ParameterSet parameters = new ParameterSet(new File("inf"));
+		parameters.setValue("environment.grazingProb", grazingProb);
+		return parameters;
+	}
+
+	/**
+	 * @return the table of one run -- through the cache if there is one
+	 */
+	static String table(int run, long seed, ParameterSet parameters, int months, WarmStartCache cache)
+	{
+		StringWriter rows = new StringWriter();
+		ReplicateRunner.runReplicate(run, seed, parameters, months, new SweepResults(new PrintWriter(rows), NAMES), cache);
+		return rows.toString();
+	}
+
+	/**
+	 * @return the number of months in a table
+	 */
+	static int months(String table)
+	{
+		return table.split("\tAlgae\t", -1).length - 1;
+	}
+
+	/**
+	 * @return the number of entries in the cache
+	 */
+	int entries()
+	{
+		return folder.getRoot().listFiles(new FilenameFilter()
+		{
+			public boolean accept(File dir, String name)
+			{
+				return name.endsWith(WarmStartCache.EXTENSION);
+			}
+		}).length;
+	}
+
+	@Test
+	public void runsFromCacheLikeFromBeginning() throws Exception
+	{
+		WarmStartCache cache = new WarmStartCache(folder.getRoot(), CACHE_MONTHS, 1L << 30);
+
+		int run = 0;
+		for (String grazingProb : new String[] {"0.18", "0.3"})
+		{
+			for (long seed : SEEDS)
+			{
+				ParameterSet parameters = parameters(grazingProb);
+				String cold = table(run, seed, parameters, MONTHS, null);
+				String first = table(run, seed, parameters, MONTHS, cache);
+				String second = table(run, seed, parameters, MONTHS, cache);
+				String message = "run " + run + " with seed " + seed + " and grazing " + grazingProb;
+
+				assertEquals(message + ", months", MONTHS, months(cold));
+				assertEquals(message + ", first run through the cache", cold, first);
+				assertEquals(message + ", second run through the cache", cold, second);
+				run++;
+			}
+		}
+
+		// the first run through the cache starts from the beginning and keeps two states, the second one starts from month 24
+		assertEquals("misses", run, cache.misses);
+		assertEquals("hits", run, cache.hits);
+		assertEquals("entries", run * CACHE_MONTHS.length, entries());
+	}
+
+	@Test
+	public void shorterRunStartsFromEarlierState() throws Exception
+	{
+		WarmStartCache cache = new WarmStartCache(folder.getRoot(), CACHE_MONTHS, 1L << 30);
+		ParameterSet parameters = parameters("0.18");
+
+		table(0, 1, parameters, MONTHS, cache);
+		assertEquals(12, cache.lastMonth(18));
+		String cold = table(0, 1, parameters, 18, null);
+		String warm = table(0, 1, parameters, 18, cache);
+
+		assertEquals(18, months(cold));
+		assertEquals(cold, warm);
+		assertEquals("misses", 1, cache.misses);
+		assertEquals("hits", 1, cache.hits);
+
+		// another seed is not in the cache
+		table(1, 2, parameters, 18, cache);
+		assertEquals("misses", 2, cache.misses);
+		assertEquals("hits", 1, cache.hits);
+	}
+
+	@Test
+	public void fullCacheEvictsEntries() throws Exception
+	{
+		// a cache of one byte cannot keep a single entry
+		WarmStartCache cache = new WarmStartCache(folder.getRoot(), CACHE_MONTHS, 1);
+		ParameterSet parameters = parameters("0.18");
+
+		String cold = table(0, 1, parameters, MONTHS, null);
+		assertEquals(cold, table(0, 1, parameters, MONTHS, cache));
+		assertEquals(0, entries());
+		assertEquals(cold, table(0, 1, parameters, MONTHS, cache));
+		assertEquals("misses", 2, cache.misses);
+		assertEquals("hits", 0, cache.hits);
+	}
+}